@@ -0,0 +1,71 @@
+package ch.unil.doplab.webapplication;
+
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import java.util.List;
+
+/**
+ * TraceResource - Debug view of the spans recorded for sampled traces
+ * Shows the JSF request and client call spans; the web service keeps the
+ * handler spans of the same trace id under its own /api/traces.
+ */
+@Path("/traces")
+@Produces(MediaType.APPLICATION_JSON)
+public class TraceResource {
+
+    private static final int MAX_LIMIT = 4096;
+
+    /**
+     * Most recent spans, newest first
+     * GET /api/traces?limit=200
+     */
+    @GET
+    public Response getRecentSpans(@QueryParam("limit") @DefaultValue("200") int limit) {
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse("limit must be between 1 and " + MAX_LIMIT))
+                    .build();
+        }
+        return Response.ok(Tracing.recent(null, limit)).build();
+    }
+
+    /**
+     * Sampling rate and ring buffer usage
+     * GET /api/traces/stats
+     */
+    @GET
+    @Path("/stats")
+    public Response getStats() {
+        return Response.ok(Tracing.getStats()).build();
+    }
+
+    /**
+     * Spans of one trace still in the ring buffer
+     * GET /api/traces/{traceId}
+     */
+    @GET
+    @Path("/{traceId: [0-9a-f]{32}}")
+    public Response getTrace(@PathParam("traceId") String traceId) {
+        List<Tracing.SpanRecord> spans = Tracing.recent(traceId, MAX_LIMIT);
+        if (spans.isEmpty()) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity(new ErrorResponse("No spans retained for trace " + traceId
+                            + " (unsampled or already overwritten)"))
+                    .build();
+        }
+        return Response.ok(spans).build();
+    }
+
+    public static class ErrorResponse {
+        private String error;
+        public ErrorResponse(String error) { this.error = error; }
+        public String getError() { return error; }
+    }
+}
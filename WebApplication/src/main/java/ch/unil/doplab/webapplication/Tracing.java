@@ -0,0 +1,208 @@
+package ch.unil.doplab.webapplication;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Tracing - Trace context propagation and a ring buffer of finished spans
+ * Each JSF request is the root of a trace, whatever the browser sends; the
+ * context is forwarded to the web service in the W3C traceparent header,
+ * whose own spans share the trace id. Sampling is decided here and carried in the header flags, so
+ * both tiers keep the same traces; unsampled requests only pay for a
+ * ThreadLocal lookup.
+ */
+public final class Tracing {
+
+    public static final String HEADER = "traceparent";
+    static final String TIER = "web-application";
+    static final double ROOT_SAMPLE_RATE = 0.05;
+    private static final int CAPACITY = 4096;
+
+    private static final ThreadLocal<TraceContext> CURRENT = new ThreadLocal<>();
+    private static final SpanRecord[] RING = new SpanRecord[CAPACITY];
+    private static long recorded;
+
+    private Tracing() {
+    }
+
+    public record TraceContext(String traceId, String spanId, boolean sampled) {
+    }
+
+    /**
+     * Context from a traceparent header, null when missing or malformed
+     */
+    public static TraceContext parse(String header) {
+        if (header == null) return null;
+        String[] parts = header.trim().split("-");
+        if (parts.length != 4 || parts[1].length() != 32 || parts[2].length() != 16 || parts[3].length() != 2) {
+            return null;
+        }
+        try {
+            int flags = Integer.parseInt(parts[3], 16);
+            return new TraceContext(parts[1], parts[2], (flags & 1) == 1);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public static String format(TraceContext context) {
+        return "00-" + context.traceId() + "-" + context.spanId() + (context.sampled() ? "-01" : "-00");
+    }
+
+    public static TraceContext newRoot() {
+        boolean sampled = ThreadLocalRandom.current().nextDouble() < ROOT_SAMPLE_RATE;
+        return new TraceContext(randomHex(32), randomHex(16), sampled);
+    }
+
+    public static TraceContext current() {
+        return CURRENT.get();
+    }
+
+    static void setCurrent(TraceContext context) {
+        if (context == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(context);
+        }
+    }
+
+    /**
+     * Child span of the current context; a no-op unless the trace is sampled
+     */
+    public static Span start(String name) {
+        return start(CURRENT.get(), name);
+    }
+
+    public static Span start(TraceContext parent, String name) {
+        if (parent == null || !parent.sampled()) {
+            return Span.NOOP;
+        }
+        return new Span(parent.traceId(), randomHex(16), parent.spanId(), name);
+    }
+
+    /**
+     * Latest finished spans, newest first, optionally for one trace
+     */
+    public static synchronized List<SpanRecord> recent(String traceId, int limit) {
+        List<SpanRecord> spans = new ArrayList<>();
+        long oldest = Math.max(0, recorded - CAPACITY);
+        for (long i = recorded - 1; i >= oldest && spans.size() < limit; i--) {
+            SpanRecord span = RING[(int) (i % CAPACITY)];
+            if (traceId == null || span.getTraceId().equals(traceId)) {
+                spans.add(span);
+            }
+        }
+        return spans;
+    }
+
+    public static synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("rootSampleRate", ROOT_SAMPLE_RATE);
+        stats.put("capacity", CAPACITY);
+        stats.put("recorded", recorded);
+        stats.put("retained", Math.min(recorded, CAPACITY));
+        return stats;
+    }
+
+    private static synchronized void record(SpanRecord span) {
+        RING[(int) (recorded++ % CAPACITY)] = span;
+    }
+
+    private static String randomHex(int length) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder hex = new StringBuilder(length);
+        while (hex.length() < length) {
+            String part = Long.toHexString(random.nextLong());
+            for (int pad = part.length(); pad < 16; pad++) hex.append('0');
+            hex.append(part);
+        }
+        return hex.substring(0, length);
+    }
+
+    /**
+     * A stage being timed; end() records it once
+     */
+    public static final class Span implements AutoCloseable {
+
+        static final Span NOOP = new Span(null, null, null, null);
+
+        private final String traceId;
+        private final String spanId;
+        private final String parentId;
+        private final String name;
+        private final long startMicros;
+        private final long startNanos;
+        private String detail;
+        private boolean ended;
+
+        private Span(String traceId, String spanId, String parentId, String name) {
+            this.traceId = traceId;
+            this.spanId = spanId;
+            this.parentId = parentId;
+            this.name = name;
+            this.startMicros = traceId == null ? 0 : System.currentTimeMillis() * 1000;
+            this.startNanos = traceId == null ? 0 : System.nanoTime();
+        }
+
+        public boolean isRecording() {
+            return this != NOOP;
+        }
+
+        /**
+         * Context for spans started below this one
+         */
+        public TraceContext context() {
+            return this == NOOP ? null : new TraceContext(traceId, spanId, true);
+        }
+
+        public Span detail(String detail) {
+            if (this != NOOP) this.detail = detail;
+            return this;
+        }
+
+        public void end() {
+            if (this == NOOP || ended) return;
+            ended = true;
+            record(new SpanRecord(traceId, spanId, parentId, name, detail, startMicros,
+                    (System.nanoTime() - startNanos) / 1000));
+        }
+
+        @Override
+        public void close() {
+            end();
+        }
+    }
+
+    public static final class SpanRecord {
+        private final String traceId;
+        private final String spanId;
+        private final String parentId;
+        private final String name;
+        private final String detail;
+        private final long startMicros;
+        private final long durationMicros;
+
+        SpanRecord(String traceId, String spanId, String parentId, String name, String detail,
+                   long startMicros, long durationMicros) {
+            this.traceId = traceId;
+            this.spanId = spanId;
+            this.parentId = parentId;
+            this.name = name;
+            this.detail = detail;
+            this.startMicros = startMicros;
+            this.durationMicros = durationMicros;
+        }
+
+        public String getTier() { return TIER; }
+        public String getTraceId() { return traceId; }
+        public String getSpanId() { return spanId; }
+        public String getParentId() { return parentId; }
+        public String getName() { return name; }
+        public String getDetail() { return detail; }
+        public long getStartMicros() { return startMicros; }
+        public long getDurationMicros() { return durationMicros; }
+    }
+}
@@ -0,0 +1,52 @@
+package ch.unil.doplab.webapplication;
+
+import jakarta.ws.rs.client.ClientRequestContext;
+import jakarta.ws.rs.client.ClientRequestFilter;
+import jakarta.ws.rs.client.ClientResponseContext;
+import jakarta.ws.rs.client.ClientResponseFilter;
+import jakarta.ws.rs.ext.ReaderInterceptor;
+import jakarta.ws.rs.ext.ReaderInterceptorContext;
+
+import java.io.IOException;
+
+/**
+ * Forwards the current trace to the web service and times each call.
+ * The client call span runs from sending the request (including the
+ * connection) until the response headers arrive; reading the entity is
+ * the client deserialization span. Register it on every JAX-RS client
+ * that calls the web service.
+ */
+public class TracingClientFilter implements ClientRequestFilter, ClientResponseFilter, ReaderInterceptor {
+
+    private static final String SPAN = TracingClientFilter.class.getName() + ".span";
+
+    @Override
+    public void filter(ClientRequestContext request) {
+        Tracing.TraceContext current = Tracing.current();
+        if (current == null) return;
+        Tracing.Span span = Tracing.start(current, "client call");
+        if (span.isRecording()) {
+            request.setProperty(SPAN, span);
+            request.getHeaders().putSingle(Tracing.HEADER, Tracing.format(span.context()));
+        } else {
+            request.getHeaders().putSingle(Tracing.HEADER, Tracing.format(current));
+        }
+    }
+
+    @Override
+    public void filter(ClientRequestContext request, ClientResponseContext response) {
+        if (request.getProperty(SPAN) instanceof Tracing.Span span) {
+            span.detail(request.getMethod() + " " + request.getUri().getPath() + " -> " + response.getStatus()).end();
+        }
+    }
+
+    @Override
+    public Object aroundReadFrom(ReaderInterceptorContext context) throws IOException {
+        Tracing.Span span = Tracing.start("client deserialization");
+        try {
+            return context.proceed();
+        } finally {
+            span.detail(context.getType().getSimpleName()).end();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package ch.unil.doplab.webapplication;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+/**
+ * Opens the root span of every JSF request.
+ * The span covers the whole Faces lifecycle, so the time it spends outside
+ * its client call children is JSF processing and rendering.
+ * A traceparent sent by the browser is ignored: this tier is the root, and
+ * honouring the client's sampled flag would let anyone force every request
+ * into the span buffer.
+ */
+@WebFilter(urlPatterns = "*.xhtml")
+public class TracingServletFilter extends HttpFilter {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String TRACE_ID_HEADER = "X-Trace-Id";
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        Tracing.TraceContext trace = Tracing.newRoot();
+        Tracing.Span span = Tracing.start(trace, "jsf request");
+        Tracing.setCurrent(span.isRecording() ? span.context() : trace);
+        response.setHeader(TRACE_ID_HEADER, trace.traceId());
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            span.detail(request.getMethod() + " " + request.getRequestURI() + " -> " + response.getStatus()).end();
+            Tracing.setCurrent(null);
+        }
+    }
+}
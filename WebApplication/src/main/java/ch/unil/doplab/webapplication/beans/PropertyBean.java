@@ -1,5 +1,6 @@
 package ch.unil.doplab.webapplication.beans;
 
+import ch.unil.doplab.webapplication.TracingClientFilter;
 import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.SessionScoped;
 import jakarta.inject.Named;
@@ -20,6 +21,8 @@ import java.util.UUID;
 public class PropertyBean implements Serializable {
     
     private static final String API_URL = "http://payara:8080/WebService_RealsEstateHub-1.0-SNAPSHOT/api/properties";
+    // Only the columns shown in properties.xhtml
+    private static final String LIST_FIELDS = "propertyId,title,location,price,size,type,status";
     
     private List<Map<String, Object>> properties;
     private Map<String, Object> selectedProperty;
@@ -31,8 +34,8 @@ public class PropertyBean implements Serializable {
     
     public void loadProperties() {
         try {
-            Client client = ClientBuilder.newClient();
-            WebTarget target = client.target(API_URL);
+            Client client = ClientBuilder.newClient().register(TracingClientFilter.class);
+            WebTarget target = client.target(API_URL).queryParam("fields", LIST_FIELDS);
             properties = target.request(MediaType.APPLICATION_JSON)
                     .get(new GenericType<List<Map<String, Object>>>() {});
             client.close();
@@ -42,8 +45,23 @@ public class PropertyBean implements Serializable {
         }
     }
     
+    // Property, seller, offers and their buyers in one call to the compound endpoint
+    @SuppressWarnings("unchecked")
     public void viewProperty(Map<String, Object> property) {
         this.selectedProperty = property;
+        try {
+            Client client = ClientBuilder.newClient().register(TracingClientFilter.class);
+            WebTarget target = client.target(API_URL).path("detail").queryParam("id", property.get("propertyId"));
+            Map<String, Object> detail = target.request(MediaType.APPLICATION_JSON)
+                    .get(new GenericType<Map<String, Object>>() {});
+            client.close();
+            List<Map<String, Object>> items = (List<Map<String, Object>>) detail.get("items");
+            if (items != null && !items.isEmpty()) {
+                this.selectedProperty = items.get(0);
+            }
+        } catch (Exception e) {
+            System.err.println("Error loading property details: " + e.getMessage());
+        }
     }
     
     public String getPropertyStatus(Map<String, Object> property) {
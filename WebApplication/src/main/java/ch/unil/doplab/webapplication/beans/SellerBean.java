@@ -1,5 +1,6 @@
 package ch.unil.doplab.webapplication.beans;
 
+import ch.unil.doplab.webapplication.TracingClientFilter;
 import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.SessionScoped;
 import jakarta.inject.Named;
@@ -30,7 +31,7 @@ public class SellerBean implements Serializable {
     
     public void loadSellers() {
         try {
-            Client client = ClientBuilder.newClient();
+            Client client = ClientBuilder.newClient().register(TracingClientFilter.class);
             WebTarget target = client.target(API_URL);
             sellers = target.request(MediaType.APPLICATION_JSON)
                     .get(new GenericType<List<Map<String, Object>>>() {});
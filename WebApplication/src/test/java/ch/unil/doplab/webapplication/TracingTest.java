@@ -0,0 +1,121 @@
+package ch.unil.doplab.webapplication;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the Tracing class and the TracingServletFilter.
+ * Tests traceparent parsing and formatting, the ring buffer of finished
+ * spans and that the filter never continues a trace sent by the browser.
+ */
+class TracingTest {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+    private static final String SPAN_ID = "00f067aa0ba902b7";
+
+    @Test
+    void testParseAndFormatRoundTrip() {
+        Tracing.TraceContext sampled = Tracing.parse("00-" + TRACE_ID + "-" + SPAN_ID + "-01");
+        assertEquals(new Tracing.TraceContext(TRACE_ID, SPAN_ID, true), sampled);
+        assertEquals("00-" + TRACE_ID + "-" + SPAN_ID + "-01", Tracing.format(sampled));
+
+        Tracing.TraceContext unsampled = Tracing.parse(" 00-" + TRACE_ID + "-" + SPAN_ID + "-00 ");
+        assertFalse(unsampled.sampled());
+        assertEquals(unsampled, Tracing.parse(Tracing.format(unsampled)));
+    }
+
+    @Test
+    void testParseRejectsMalformedHeaders() {
+        assertNull(Tracing.parse(null));
+        assertNull(Tracing.parse(""));
+        assertNull(Tracing.parse("00-" + TRACE_ID + "-" + SPAN_ID));
+        assertNull(Tracing.parse("00-" + TRACE_ID.substring(1) + "-" + SPAN_ID + "-01"));
+        assertNull(Tracing.parse("00-" + TRACE_ID + "-" + SPAN_ID + "0-01"));
+        assertNull(Tracing.parse("00-" + TRACE_ID + "-" + SPAN_ID + "-zz"));
+        assertNull(Tracing.parse("00-" + TRACE_ID + "-" + SPAN_ID + "-01-extra"));
+    }
+
+    @Test
+    void testNewRootHasWellFormedIds() {
+        Tracing.TraceContext root = Tracing.newRoot();
+        assertTrue(root.traceId().matches("[0-9a-f]{32}"));
+        assertTrue(root.spanId().matches("[0-9a-f]{16}"));
+        assertEquals(root, Tracing.parse(Tracing.format(root)));
+    }
+
+    @Test
+    void testUnsampledTraceRecordsNothing() {
+        Tracing.Span span = Tracing.start(new Tracing.TraceContext(TRACE_ID, SPAN_ID, false), "skipped");
+        assertFalse(span.isRecording());
+        assertNull(span.context());
+        span.detail("ignored").end();
+        assertTrue(Tracing.recent(TRACE_ID, 10).isEmpty());
+    }
+
+    @Test
+    void testRingKeepsTheLatestSpansNewestFirst() {
+        Tracing.TraceContext trace = new Tracing.TraceContext(Tracing.newRoot().traceId(), SPAN_ID, true);
+        int capacity = (Integer) Tracing.getStats().get("capacity");
+        long recordedBefore = (Long) Tracing.getStats().get("recorded");
+        int total = capacity + 10;
+        for (int i = 0; i < total; i++) {
+            Tracing.Span span = Tracing.start(trace, "span " + i);
+            span.end();
+            span.end(); // recorded once
+        }
+
+        List<Tracing.SpanRecord> spans = Tracing.recent(trace.traceId(), Integer.MAX_VALUE);
+        assertEquals(capacity, spans.size());
+        assertEquals("span " + (total - 1), spans.get(0).getName());
+        assertEquals("span 10", spans.get(capacity - 1).getName());
+        assertEquals(SPAN_ID, spans.get(0).getParentId());
+        assertEquals(Tracing.TIER, spans.get(0).getTier());
+
+        List<Tracing.SpanRecord> latest = Tracing.recent(trace.traceId(), 3);
+        assertEquals(List.of("span " + (total - 1), "span " + (total - 2), "span " + (total - 3)),
+                latest.stream().map(Tracing.SpanRecord::getName).toList());
+        assertTrue(Tracing.recent(Tracing.newRoot().traceId(), 10).isEmpty());
+
+        Map<String, Object> stats = Tracing.getStats();
+        assertEquals(recordedBefore + total, stats.get("recorded"));
+        assertEquals((long) capacity, stats.get("retained"));
+    }
+
+    @Test
+    void testFilterIgnoresTheBrowserTraceparent() throws Exception {
+        Map<String, String> responseHeaders = new HashMap<>();
+        HttpServletRequest request = (HttpServletRequest) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{HttpServletRequest.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getHeader" -> Tracing.HEADER.equals(args[0])
+                            ? "00-" + TRACE_ID + "-" + SPAN_ID + "-01" : null;
+                    case "getMethod" -> "GET";
+                    case "getRequestURI" -> "/index.xhtml";
+                    default -> null;
+                });
+        HttpServletResponse response = (HttpServletResponse) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{HttpServletResponse.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "setHeader" -> responseHeaders.put((String) args[0], (String) args[1]);
+                    case "getStatus" -> 200;
+                    default -> null;
+                });
+        Tracing.TraceContext[] seen = new Tracing.TraceContext[1];
+
+        new TracingServletFilter().doFilter(request, response, (req, res) -> seen[0] = Tracing.current());
+
+        assertNotNull(seen[0]);
+        assertNotEquals(TRACE_ID, seen[0].traceId());
+        assertEquals(seen[0].traceId(), responseHeaders.get(TracingServletFilter.TRACE_ID_HEADER));
+        assertNull(Tracing.current());
+        assertTrue(Tracing.recent(TRACE_ID, 10).isEmpty());
+    }
+}
@@ -0,0 +1,58 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import ch.unil.doplab.User;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import java.util.*;
+
+/**
+ * AccountResource - Login-style account lookups across buyers and sellers
+ */
+@Path("/accounts")
+@Produces(MediaType.APPLICATION_JSON)
+public class AccountResource {
+
+    @Inject
+    private ApplicationState state;
+
+    /**
+     * Find an account by username or email (case-insensitive)
+     * GET /api/accounts/lookup?username=alice
+     * GET /api/accounts/lookup?email=alice@demo.com
+     */
+    @GET
+    @Path("/lookup")
+    public Response lookup(@QueryParam("username") String username, @QueryParam("email") String email) {
+        if ((username == null || username.isBlank()) == (email == null || email.isBlank())) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse("Provide either username or email"))
+                    .build();
+        }
+
+        User user = username != null && !username.isBlank()
+                ? state.findUserByUsername(username)
+                : state.findUserByEmail(email);
+
+        if (user == null) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity(new ErrorResponse("Account not found"))
+                    .build();
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("userId", user.getUserID());
+        response.put("role", user.getRole());
+        response.put("username", user.getUsername());
+        response.put("email", user.getEmail());
+        return Response.ok(response).build();
+    }
+
+    public static class ErrorResponse {
+        private String error;
+        public ErrorResponse(String error) { this.error = error; }
+        public String getError() { return error; }
+    }
+}
@@ -0,0 +1,38 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Priority class of an endpoint for the {@link AdmissionController}
+ * Unannotated endpoints are NORMAL for GET and CRITICAL for writes.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Admission {
+
+    Level value();
+
+    enum Level {
+        /** Never limited: metrics, stats and event streams */
+        EXEMPT(1.0),
+        /** Writes; may use the whole limit */
+        CRITICAL(1.0),
+        /** Single-entity reads */
+        NORMAL(0.75),
+        /** Listings, searches, exports and batch calls; shed first */
+        BULK(0.5);
+
+        private final double share;
+
+        Level(double share) {
+            this.share = share;
+        }
+
+        public double getShare() {
+            return share;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AdmissionController - Adaptive limit on requests in flight (AIMD)
+ * The limit grows by about one per round of requests while latencies stay
+ * near each endpoint's no-load baseline, and shrinks by 10% when they
+ * show queueing or a pool sheds work. Lower priority classes may only fill
+ * part of the limit, so listings are refused before writes are.
+ */
+@ApplicationScoped
+public class AdmissionController {
+
+    static final int INITIAL_LIMIT = 64;
+    static final int MIN_LIMIT = 8;
+    static final int MAX_LIMIT = 1024;
+    private static final double BACKOFF = 0.9;
+    private static final double TOLERANCE = 2.0;
+    private static final long SLACK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long DECREASE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long BASELINE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private double limit = INITIAL_LIMIT;
+    private int inFlight;
+    private long lastDecrease = System.nanoTime() - DECREASE_INTERVAL_NANOS;
+    private long decreases;
+    private final Map<Admission.Level, LongAdder> admitted = counters();
+    private final Map<Admission.Level, LongAdder> rejected = counters();
+
+    /**
+     * Lowest latency of one endpoint over the last 30 to 60 seconds
+     */
+    public static final class Baseline {
+        private long current = Long.MAX_VALUE;
+        private long previous = Long.MAX_VALUE;
+        private long rotatedAt = System.nanoTime();
+
+        synchronized long update(long nanos, long now) {
+            if (now - rotatedAt >= BASELINE_WINDOW_NANOS) {
+                previous = current;
+                current = Long.MAX_VALUE;
+                rotatedAt = now;
+            }
+            current = Math.min(current, nanos);
+            return Math.min(current, previous);
+        }
+    }
+
+    private static Map<Admission.Level, LongAdder> counters() {
+        Map<Admission.Level, LongAdder> counters = new EnumMap<>(Admission.Level.class);
+        for (Admission.Level level : Admission.Level.values()) {
+            counters.put(level, new LongAdder());
+        }
+        return counters;
+    }
+
+    /**
+     * Take a slot if the class still has room under the limit
+     */
+    public boolean tryAcquire(Admission.Level level) {
+        boolean granted;
+        synchronized (this) {
+            granted = inFlight < Math.max(1, limit * level.getShare());
+            if (granted) inFlight++;
+        }
+        (granted ? admitted : rejected).get(level).increment();
+        return granted;
+    }
+
+    /**
+     * Give the slot back and adjust the limit from how the request went
+     */
+    public void release(Baseline baseline, long nanos, boolean shed) {
+        release(baseline, nanos, shed, System.nanoTime());
+    }
+
+    void release(Baseline baseline, long nanos, boolean shed, long now) {
+        long fastest = baseline.update(nanos, now);
+        boolean queued = shed || nanos > fastest * TOLERANCE + SLACK_NANOS;
+        synchronized (this) {
+            inFlight--;
+            if (queued) {
+                if (now - lastDecrease >= DECREASE_INTERVAL_NANOS) {
+                    limit = Math.max(MIN_LIMIT, limit * BACKOFF);
+                    lastDecrease = now;
+                    decreases++;
+                }
+            } else if (inFlight * 2 >= limit) {
+                limit = Math.min(MAX_LIMIT, limit + 1.0 / limit);
+            }
+        }
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public long getRejected(Admission.Level level) {
+        return rejected.get(level).sum();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("limit", (int) limit);
+            stats.put("inFlight", inFlight);
+            stats.put("decreases", decreases);
+        }
+        Map<String, Object> levels = new LinkedHashMap<>();
+        for (Admission.Level level : Admission.Level.values()) {
+            if (level == Admission.Level.EXEMPT) continue;
+            Map<String, Object> counts = new LinkedHashMap<>();
+            counts.put("share", level.getShare());
+            counts.put("admitted", admitted.get(level).sum());
+            counts.put("rejected", rejected.get(level).sum());
+            levels.put(level.name().toLowerCase(Locale.ROOT), counts);
+        }
+        stats.put("levels", levels);
+        return stats;
+    }
+}
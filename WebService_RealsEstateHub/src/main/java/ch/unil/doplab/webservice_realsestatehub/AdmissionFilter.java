@@ -0,0 +1,84 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.Provider;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Admits requests through the {@link AdmissionController}, refusing the
+ * excess with 503 and Retry-After before any work is done.
+ * Runs after metrics and tracing so refusals are still counted.
+ */
+@Provider
+@Priority(150)
+public class AdmissionFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    private static final int RETRY_AFTER_SECONDS = 1;
+    private static final String START = AdmissionFilter.class.getName() + ".start";
+    private static final String ROUTE = AdmissionFilter.class.getName() + ".route";
+
+    @Inject
+    private AdmissionController admission;
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    private final Map<Method, Route> byMethod = new ConcurrentHashMap<>();
+
+    private record Route(Admission.Level level, AdmissionController.Baseline baseline) {
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        Method method = resourceInfo.getResourceMethod();
+        if (method == null) return;
+        Route route = byMethod.computeIfAbsent(method, m -> new Route(levelOf(m, request.getMethod()),
+                new AdmissionController.Baseline()));
+        if (route.level() == Admission.Level.EXEMPT) return;
+        if (!admission.tryAcquire(route.level())) {
+            request.abortWith(Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", RETRY_AFTER_SECONDS)
+                    .type(MediaType.APPLICATION_JSON)
+                    .entity(Map.of("error", "Server overloaded, retry later"))
+                    .build());
+            return;
+        }
+        request.setProperty(ROUTE, route);
+        request.setProperty(START, System.nanoTime());
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        if (!(request.getProperty(ROUTE) instanceof Route route)) return;
+        request.removeProperty(ROUTE);
+        long elapsed = System.nanoTime() - (Long) request.getProperty(START);
+        admission.release(route.baseline(), elapsed,
+                response.getStatus() == Response.Status.SERVICE_UNAVAILABLE.getStatusCode());
+    }
+
+    private static Admission.Level levelOf(Method method, String httpMethod) {
+        Admission admission = method.getAnnotation(Admission.class);
+        if (admission == null) {
+            admission = method.getDeclaringClass().getAnnotation(Admission.class);
+        }
+        if (admission != null) {
+            return admission.value();
+        }
+        return HttpMethod.GET.equals(httpMethod) || HttpMethod.HEAD.equals(httpMethod)
+                ? Admission.Level.NORMAL
+                : Admission.Level.CRITICAL;
+    }
+}
@@ -0,0 +1,30 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * AdmissionResource - Observability for the adaptive concurrency limit
+ */
+@Admission(Admission.Level.EXEMPT)
+@Path("/admission")
+@Produces(MediaType.APPLICATION_JSON)
+public class AdmissionResource {
+
+    @Inject
+    private AdmissionController admission;
+
+    /**
+     * Current limit, requests in flight, admitted and rejected per priority class
+     * GET /api/admission/stats
+     */
+    @GET
+    @Path("/stats")
+    public Response getStats() {
+        return Response.ok(admission.getStats()).build();
+    }
+}
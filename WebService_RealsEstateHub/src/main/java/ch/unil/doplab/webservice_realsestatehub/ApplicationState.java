@@ -2,9 +2,12 @@ package ch.unil.doplab.webservice_realsestatehub;
 
 import ch.unil.doplab.*;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * ApplicationState - Centralized state management bean
@@ -14,34 +17,92 @@ import java.util.*;
 @ApplicationScoped
 public class ApplicationState {
 
-    private final Map<UUID, Property> properties = new HashMap<>();
-    private final Map<UUID, Offer> offers = new HashMap<>();
-    private final Map<UUID, Buyer> buyers = new HashMap<>();
-    private final Map<UUID, Seller> sellers = new HashMap<>();
+    private final Map<UUID, Property> properties = new ConcurrentHashMap<>();
+    private final Map<UUID, Offer> offers = new ConcurrentHashMap<>();
+    private final Map<UUID, Buyer> buyers = new ConcurrentHashMap<>();
+    private final Map<UUID, Seller> sellers = new ConcurrentHashMap<>();
+
+    // Unique identity index shared by buyers and sellers (normalized username/email -> userID)
+    private final ConcurrentMap<String, UUID> usernameIndex = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, UUID> emailIndex = new ConcurrentHashMap<>();
+
+    // Reverse index: property -> users who saved it
+    private final ConcurrentMap<UUID, UuidSet> savedBy = new ConcurrentHashMap<>();
+
+    private final ChangeLog changeLog = new ChangeLog(ChangeLog.DEFAULT_CAPACITY);
+    private final CatalogVersion.ChangeListener changeListener = new CatalogVersion.ChangeListener() {
+        @Override
+        public void onChange(long version, String entity, UUID id, CatalogVersion.Change change) {
+            changeLog.append(version, entity, id, change);
+        }
+
+        @Override
+        public boolean accepts(String entity, UUID id, CatalogVersion.Change change) {
+            return isPublished(entity, id, change);
+        }
+    };
 
     /**
      * Initialize with demo data
      */
     @PostConstruct
     public void init() {
+        CatalogVersion.addListener(changeListener);
+
         // Pre-load demo buyers
         Buyer alice = new Buyer("Alice", "Martin", "alice@demo.com", "alice", "pass123", 350000);
         Buyer jonathan = new Buyer("Jonathan", "Grossrieder", "jonathan.grossrieder@unil.ch", "Jon", "pass456", 550000);
-        buyers.put(alice.getUserID(), alice);
-        buyers.put(jonathan.getUserID(), jonathan);
+        registerBuyer(alice);
+        registerBuyer(jonathan);
 
         // Pre-load demo seller
         Seller demoSeller = new Seller("Demo", "Seller", "seller@demo.com", "seller", "pass789");
-        sellers.put(demoSeller.getUserID(), demoSeller);
+        registerSeller(demoSeller);
 
         Property property1 = new Property("Bel appartement au centre",UUID.randomUUID(), "Un bel appartement de 3 pièces au centre de Lausanne.","Lausanne", 520000.0, 85, Property.PropertyType.APARTMENT);
         Property property2 = new Property("Villa avec vue lac", UUID.randomUUID(),"Magnifique villa avec 5 pièces et un grand jardin.", "Pully", 1200000.0, 210, Property.PropertyType.HOUSE);
-        properties.put(property1.getPropertyId(), property1);
-        properties.put(property2.getPropertyId(), property2);
+        addProperty(property1);
+        addProperty(property2);
 
         System.out.println("ApplicationState initialized with " + buyers.size() + " buyers and " + sellers.size() + " sellers");
     }
 
+    /**
+     * Advances on every change to any property, offer, buyer or seller,
+     * including additions and removals
+     */
+    public long getCatalogVersion() {
+        return CatalogVersion.current();
+    }
+
+    public ChangeLog getChangeLog() {
+        return changeLog;
+    }
+
+    @PreDestroy
+    public void stop() {
+        CatalogVersion.removeListener(changeListener);
+    }
+
+    /**
+     * Log creates and deletes, and updates of entities that are in the catalog;
+     * entities still being built or already removed are left out, and their
+     * edits skip the change log's lock altogether
+     */
+    private boolean isPublished(String entity, UUID id, CatalogVersion.Change change) {
+        if (change != CatalogVersion.Change.UPDATED) {
+            return true;
+        }
+        Map<UUID, ?> entities = switch (entity) {
+            case "property" -> properties;
+            case "offer" -> offers;
+            case "buyer" -> buyers;
+            case "seller" -> sellers;
+            default -> Map.of();
+        };
+        return entities.containsKey(id);
+    }
+
     // Properties
     public Map<UUID, Property> getProperties() {
         return properties;
@@ -51,6 +112,61 @@ public class ApplicationState {
         return properties.get(id);
     }
 
+    public void addProperty(Property property) {
+        StateMutationEvent event = StateMutationEvent.start();
+        properties.put(property.getPropertyId(), property);
+        CatalogVersion.record("property", property.getPropertyId(), CatalogVersion.Change.CREATED);
+        event.end("property", "add", 1);
+    }
+
+    /**
+     * Insert a batch of new properties with a single catalog version bump
+     */
+    public void addProperties(Collection<Property> batch) {
+        if (batch.isEmpty()) return;
+        StateMutationEvent event = StateMutationEvent.start();
+        List<UUID> ids = new ArrayList<>(batch.size());
+        for (Property property : batch) {
+            properties.put(property.getPropertyId(), property);
+            ids.add(property.getPropertyId());
+        }
+        CatalogVersion.record("property", ids, CatalogVersion.Change.CREATED);
+        event.end("property", "add", batch.size());
+    }
+
+    /**
+     * Remove a property and drop it from the saved lists of its savers.
+     * The savers are cleared under the property's entry in the saved-by index,
+     * the same lock saveProperty holds, so no save can slip in between.
+     */
+    public Property removeProperty(UUID id) {
+        StateMutationEvent event = StateMutationEvent.start();
+        Property removed = properties.remove(id);
+        if (removed != null) {
+            CatalogVersion.record("property", id, CatalogVersion.Change.DELETED);
+            JsonCodecs.evict(id);
+            savedBy.compute(id, (propertyId, savers) -> {
+                if (savers != null) {
+                    List<UUID> saverIds;
+                    synchronized (savers) {
+                        saverIds = savers.toList();
+                    }
+                    for (UUID saverId : saverIds) {
+                        User saver = getUserById(saverId);
+                        if (saver != null) {
+                            synchronized (saver) {
+                                saver.removeSavedPropertyId(propertyId);
+                            }
+                        }
+                    }
+                }
+                return null;
+            });
+        }
+        event.end("property", "remove", removed != null ? 1 : 0);
+        return removed;
+    }
+
     // Offers
     public Map<UUID, Offer> getOffers() {
         return offers;
@@ -60,6 +176,24 @@ public class ApplicationState {
         return offers.get(id);
     }
 
+    public void addOffer(Offer offer) {
+        StateMutationEvent event = StateMutationEvent.start();
+        offers.put(offer.getOfferId(), offer);
+        CatalogVersion.record("offer", offer.getOfferId(), CatalogVersion.Change.CREATED);
+        event.end("offer", "add", 1);
+    }
+
+    public Offer removeOffer(UUID id) {
+        StateMutationEvent event = StateMutationEvent.start();
+        Offer removed = offers.remove(id);
+        if (removed != null) {
+            CatalogVersion.record("offer", id, CatalogVersion.Change.DELETED);
+            JsonCodecs.evict(id);
+        }
+        event.end("offer", "remove", removed != null ? 1 : 0);
+        return removed;
+    }
+
     // Buyers
     public Map<UUID, Buyer> getBuyers() {
         return buyers;
@@ -77,4 +211,211 @@ public class ApplicationState {
     public Seller getSellerById(UUID id) {
         return sellers.get(id);
     }
+
+    // Users (buyers and sellers)
+    public User getUserById(UUID id) {
+        User user = buyers.get(id);
+        return user != null ? user : sellers.get(id);
+    }
+
+    /**
+     * Add a buyer after reserving its username and email
+     * @throws IdentityConflictException if either is already registered
+     */
+    public void registerBuyer(Buyer buyer) {
+        StateMutationEvent event = StateMutationEvent.start();
+        reserveIdentity(buyer.getUserID(), buyer.getUsername(), buyer.getEmail());
+        buyers.put(buyer.getUserID(), buyer);
+        CatalogVersion.record("buyer", buyer.getUserID(), CatalogVersion.Change.CREATED);
+        event.end("buyer", "add", 1);
+    }
+
+    /**
+     * Add a seller after reserving its username and email
+     * @throws IdentityConflictException if either is already registered
+     */
+    public void registerSeller(Seller seller) {
+        StateMutationEvent event = StateMutationEvent.start();
+        reserveIdentity(seller.getUserID(), seller.getUsername(), seller.getEmail());
+        sellers.put(seller.getUserID(), seller);
+        CatalogVersion.record("seller", seller.getUserID(), CatalogVersion.Change.CREATED);
+        event.end("seller", "add", 1);
+    }
+
+    public Buyer removeBuyer(UUID id) {
+        StateMutationEvent event = StateMutationEvent.start();
+        Buyer removed = buyers.remove(id);
+        if (removed != null) {
+            CatalogVersion.record("buyer", id, CatalogVersion.Change.DELETED);
+            JsonCodecs.evict(id);
+            releaseIdentity(removed.getUserID(), removed.getUsername(), removed.getEmail());
+            unindexSaver(removed);
+        }
+        event.end("buyer", "remove", removed != null ? 1 : 0);
+        return removed;
+    }
+
+    public Seller removeSeller(UUID id) {
+        StateMutationEvent event = StateMutationEvent.start();
+        Seller removed = sellers.remove(id);
+        if (removed != null) {
+            CatalogVersion.record("seller", id, CatalogVersion.Change.DELETED);
+            JsonCodecs.evict(id);
+            releaseIdentity(removed.getUserID(), removed.getUsername(), removed.getEmail());
+            unindexSaver(removed);
+        }
+        event.end("seller", "remove", removed != null ? 1 : 0);
+        return removed;
+    }
+
+    // Saved properties
+
+    /**
+     * Save a property for a user and record the user in the property's savers.
+     * Both sides change under the property's entry in the saved-by index
+     * (then the user's monitor, in that order everywhere); returns false if
+     * it was already saved or the property no longer exists.
+     */
+    public boolean saveProperty(User user, UUID propertyId) {
+        StateMutationEvent event = StateMutationEvent.start();
+        boolean[] added = new boolean[1];
+        savedBy.compute(propertyId, (id, savers) -> {
+            if (!properties.containsKey(id)) return savers;
+            synchronized (user) {
+                added[0] = user.savePropertyId(id);
+            }
+            if (!added[0]) return savers;
+            UuidSet set = savers != null ? savers : new UuidSet();
+            synchronized (set) {
+                set.add(user.getUserID());
+            }
+            return set;
+        });
+        event.end("savedProperty", "save", added[0] ? 1 : 0);
+        return added[0];
+    }
+
+    public boolean unsaveProperty(User user, UUID propertyId) {
+        StateMutationEvent event = StateMutationEvent.start();
+        boolean[] removed = new boolean[1];
+        savedBy.compute(propertyId, (id, savers) -> {
+            synchronized (user) {
+                removed[0] = user.removeSavedPropertyId(id);
+            }
+            if (savers == null || !removed[0]) return savers;
+            synchronized (savers) {
+                savers.remove(user.getUserID());
+                return savers.isEmpty() ? null : savers;
+            }
+        });
+        event.end("savedProperty", "unsave", removed[0] ? 1 : 0);
+        return removed[0];
+    }
+
+    public int getSaverCount(UUID propertyId) {
+        UuidSet savers = savedBy.get(propertyId);
+        if (savers == null) return 0;
+        synchronized (savers) {
+            return savers.size();
+        }
+    }
+
+    /**
+     * Snapshot of the users who saved a property, O(savers)
+     */
+    public List<UUID> getSaverIds(UUID propertyId) {
+        UuidSet savers = savedBy.get(propertyId);
+        if (savers == null) return List.of();
+        synchronized (savers) {
+            return savers.toList();
+        }
+    }
+
+    private void removeSaver(UUID propertyId, UUID userId) {
+        savedBy.computeIfPresent(propertyId, (id, savers) -> {
+            synchronized (savers) {
+                savers.remove(userId);
+                return savers.isEmpty() ? null : savers;
+            }
+        });
+    }
+
+    private void unindexSaver(User user) {
+        List<UUID> saved;
+        synchronized (user) {
+            saved = user.getSavedPropertyIds();
+        }
+        saved.forEach(propertyId -> removeSaver(propertyId, user.getUserID()));
+    }
+
+    /**
+     * Change a user's username and/or email (null keeps the current value)
+     * @throws IdentityConflictException if a new value is already registered
+     */
+    public void changeIdentity(User user, String newUsername, String newEmail) {
+        StateMutationEvent event = StateMutationEvent.start();
+        String oldUsername = user.getUsername();
+        String oldEmail = user.getEmail();
+        boolean usernameChanged = newUsername != null
+                && !Objects.equals(normalize(newUsername), normalize(oldUsername));
+        boolean emailChanged = newEmail != null
+                && !Objects.equals(normalize(newEmail), normalize(oldEmail));
+
+        reserveIdentity(user.getUserID(), usernameChanged ? newUsername : null, emailChanged ? newEmail : null);
+        releaseIdentity(user.getUserID(), usernameChanged ? oldUsername : null, emailChanged ? oldEmail : null);
+
+        if (newUsername != null) user.setUsername(newUsername);
+        if (newEmail != null) user.setEmail(newEmail);
+        event.end("user", "changeIdentity", 1);
+    }
+
+    public User findUserByUsername(String username) {
+        String key = normalize(username);
+        UUID id = key != null ? usernameIndex.get(key) : null;
+        return id != null ? getUserById(id) : null;
+    }
+
+    public User findUserByEmail(String email) {
+        String key = normalize(email);
+        UUID id = key != null ? emailIndex.get(key) : null;
+        return id != null ? getUserById(id) : null;
+    }
+
+    /**
+     * Atomically claim a username and email; the username claim is rolled back
+     * if the email is taken, so two concurrent sign-ups can never both succeed
+     */
+    private void reserveIdentity(UUID userId, String username, String email) {
+        String usernameKey = normalize(username);
+        String emailKey = normalize(email);
+        boolean claimedUsername = false;
+        if (usernameKey != null) {
+            UUID owner = usernameIndex.putIfAbsent(usernameKey, userId);
+            if (owner != null && !owner.equals(userId)) {
+                throw new IdentityConflictException("Username already taken");
+            }
+            claimedUsername = owner == null;
+        }
+        if (emailKey != null) {
+            UUID owner = emailIndex.putIfAbsent(emailKey, userId);
+            if (owner != null && !owner.equals(userId)) {
+                if (claimedUsername) {
+                    usernameIndex.remove(usernameKey, userId);
+                }
+                throw new IdentityConflictException("Email already registered");
+            }
+        }
+    }
+
+    private void releaseIdentity(UUID userId, String username, String email) {
+        String usernameKey = normalize(username);
+        String emailKey = normalize(email);
+        if (usernameKey != null) usernameIndex.remove(usernameKey, userId);
+        if (emailKey != null) emailIndex.remove(emailKey, userId);
+    }
+
+    private static String normalize(String value) {
+        if (value == null || value.isBlank()) return null;
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
 }
@@ -0,0 +1,90 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import jakarta.ws.rs.core.StreamingOutput;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * BatchGet - Shared handling of the POST .../batch-get endpoints
+ * Resolves up to MAX_IDS ids in one call and streams the hits from the
+ * JsonCodecs cache, in request order and without duplicates:
+ * {"items":[...],"missing":["id",...]}
+ */
+public final class BatchGet {
+
+    static final int MAX_IDS = 5000;
+
+    private static final byte[] ITEMS = "{\"items\":[".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MISSING = "],\"missing\":[".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] END = "]}".getBytes(StandardCharsets.US_ASCII);
+
+    private BatchGet() {
+    }
+
+    /**
+     * Distinct ids of the request, in order
+     * @throws IllegalArgumentException when empty, too large or not UUIDs
+     */
+    public static Set<UUID> parse(IdsDTO dto) {
+        if (dto == null || dto.getIds() == null || dto.getIds().isEmpty()) {
+            throw new IllegalArgumentException("ids is required");
+        }
+        if (dto.getIds().size() > MAX_IDS) {
+            throw new IllegalArgumentException("At most " + MAX_IDS + " ids per request");
+        }
+        Set<UUID> ids = new LinkedHashSet<>();
+        for (String id : dto.getIds()) {
+            try {
+                ids.add(UUID.fromString(id));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw new IllegalArgumentException("Invalid ID: " + id);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Look every id up and stream the hits followed by the ids not found
+     */
+    public static <T> StreamingOutput resolve(Set<UUID> ids, Map<UUID, T> entities) {
+        List<T> found = new ArrayList<>(ids.size());
+        List<UUID> missing = new ArrayList<>();
+        for (UUID id : ids) {
+            T entity = entities.get(id);
+            if (entity != null) {
+                found.add(entity);
+            } else {
+                missing.add(id);
+            }
+        }
+        return out -> {
+            out.write(ITEMS);
+            for (int i = 0; i < found.size(); i++) {
+                if (i > 0) out.write(',');
+                out.write(JsonCodecs.encode(found.get(i)));
+            }
+            out.write(MISSING);
+            for (int i = 0; i < missing.size(); i++) {
+                if (i > 0) out.write(',');
+                out.write(('"' + missing.get(i).toString() + '"').getBytes(StandardCharsets.US_ASCII));
+            }
+            out.write(END);
+        };
+    }
+
+    /**
+     * Body of a batch-get request: {"ids":["...", "..."]}
+     */
+    public static class IdsDTO {
+        private List<String> ids;
+
+        public List<String> getIds() { return ids; }
+        public void setIds(List<String> ids) { this.ids = ids; }
+    }
+}
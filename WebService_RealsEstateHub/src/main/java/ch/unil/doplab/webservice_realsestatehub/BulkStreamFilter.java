@@ -0,0 +1,23 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Gives back the bulk lane slot of a {@link ResourceExecutors.BulkStream}
+ * whose entity the container will not write, as for HEAD requests.
+ */
+@Provider
+public class BulkStreamFilter implements ContainerResponseFilter {
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        if (HttpMethod.HEAD.equals(request.getMethod())
+                && response.getEntity() instanceof ResourceExecutors.BulkStream stream) {
+            stream.release();
+        }
+    }
+}
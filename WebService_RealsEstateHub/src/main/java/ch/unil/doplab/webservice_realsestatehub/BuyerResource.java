@@ -3,7 +3,10 @@ package ch.unil.doplab.webservice_realsestatehub;
 import ch.unil.doplab.Buyer;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 
 import java.util.*;
@@ -16,6 +19,9 @@ public class BuyerResource {
     @Inject
     private ApplicationState state;
 
+    @Inject
+    private PriceDropWatcher priceDropWatcher;
+
     /**
      * Créer un nouvel acheteur
      * POST /api/buyers
@@ -44,11 +50,15 @@ public class BuyerResource {
                     dto.getBudget()
             );
 
-            state.getBuyers().put(buyer.getUserID(), buyer);
+            state.registerBuyer(buyer);
 
             return Response.status(Response.Status.CREATED)
                     .entity(buyer)
                     .build();
+        } catch (IdentityConflictException e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(new ErrorResponse(e.getMessage()))
+                    .build();
         } catch (Exception e) {
             return Response.status(Response.Status.BAD_REQUEST)
                     .entity(new ErrorResponse("Invalid buyer data: " + e.getMessage()))
@@ -61,8 +71,31 @@ public class BuyerResource {
      * GET /api/buyers
      */
     @GET
-    public Response getAllBuyers() {
-        return Response.ok(new ArrayList<>(state.getBuyers().values())).build();
+    @Admission(Admission.Level.BULK)
+    public Response getAllBuyers(@Context Request request) {
+        EntityTag tag = EntityTags.forCatalog(state.getCatalogVersion());
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null) {
+            return notModified.build();
+        }
+        return Response.ok(JsonCodecs.array(state.getBuyers().values())).tag(tag).build();
+    }
+
+    /**
+     * Obtenir plusieurs acheteurs en un seul appel
+     * POST /api/buyers/batch-get
+     */
+    @POST
+    @Path("/batch-get")
+    @Admission(Admission.Level.BULK)
+    public Response batchGet(BatchGet.IdsDTO dto) {
+        try {
+            return Response.ok(BatchGet.resolve(BatchGet.parse(dto), state.getBuyers())).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse(e.getMessage()))
+                    .build();
+        }
     }
 
     /**
@@ -71,7 +104,7 @@ public class BuyerResource {
      */
     @GET
     @Path("/{id}")
-    public Response getBuyerById(@PathParam("id") String id) {
+    public Response getBuyerById(@PathParam("id") String id, @Context Request request) {
         try {
             UUID buyerId = UUID.fromString(id);
             Buyer buyer = state.getBuyerById(buyerId);
@@ -82,7 +115,12 @@ public class BuyerResource {
                         .build();
             }
 
-            return Response.ok(buyer).build();
+            EntityTag tag = EntityTags.forVersion(buyer.getVersion());
+            Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+            if (notModified != null) {
+                return notModified.build();
+            }
+            return Response.ok(buyer).tag(tag).build();
         } catch (IllegalArgumentException e) {
             return Response.status(Response.Status.BAD_REQUEST)
                     .entity(new ErrorResponse("Invalid buyer ID"))
@@ -132,13 +170,14 @@ public class BuyerResource {
     public Response deleteBuyer(@PathParam("id") String id) {
         try {
             UUID buyerId = UUID.fromString(id);
-            Buyer removed = state.getBuyers().remove(buyerId);
+            Buyer removed = state.removeBuyer(buyerId);
 
             if (removed == null) {
                 return Response.status(Response.Status.NOT_FOUND)
                         .entity(new ErrorResponse("Buyer not found"))
                         .build();
             }
+            priceDropWatcher.forgetUser(buyerId);
 
             return Response.ok()
                     .entity(new SuccessResponse("Buyer deleted successfully"))
@@ -0,0 +1,41 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * CacheResource - Observability for the server-side response cache
+ */
+@Admission(Admission.Level.EXEMPT)
+@Path("/cache")
+@Produces(MediaType.APPLICATION_JSON)
+public class CacheResource {
+
+    @Inject
+    private ResponseCache cache;
+
+    /**
+     * Hit ratio, memory use and eviction counters
+     * GET /api/cache/stats
+     */
+    @GET
+    @Path("/stats")
+    public Response getStats() {
+        return Response.ok(cache.getStats()).build();
+    }
+
+    /**
+     * Drop every cached response
+     * DELETE /api/cache
+     */
+    @DELETE
+    public Response clear() {
+        cache.clear();
+        return Response.noContent().build();
+    }
+}
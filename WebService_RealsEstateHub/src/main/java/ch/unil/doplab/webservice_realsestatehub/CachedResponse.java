@@ -0,0 +1,22 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import jakarta.ws.rs.NameBinding;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a GET endpoint whose responses are kept in the {@link ResponseCache}
+ */
+@NameBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface CachedResponse {
+
+    /**
+     * Seconds clients may reuse a response without revalidating; 0 means always revalidate with the ETag
+     */
+    int maxAge() default 0;
+}
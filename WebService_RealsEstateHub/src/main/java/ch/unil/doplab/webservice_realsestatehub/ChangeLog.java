@@ -0,0 +1,134 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import ch.unil.doplab.CatalogVersion;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * ChangeLog - Bounded log of creates, updates and deletes, ordered by version
+ * Entries arrive in version order (CatalogVersion hands versions out under
+ * its lock) and the oldest are overwritten once the ring is full. A reader
+ * asking for changes that are no longer retained has to reload a snapshot.
+ */
+public class ChangeLog {
+
+    static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private final Entry[] ring;
+    private long appended;  // entries ever appended
+    private long lostUpTo;  // highest version overwritten so far
+
+    public ChangeLog(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.ring = new Entry[capacity];
+    }
+
+    synchronized void append(long version, String entity, UUID id, CatalogVersion.Change change) {
+        int slot = (int) (appended % ring.length);
+        if (ring[slot] != null) {
+            lostUpTo = ring[slot].version;
+        }
+        ring[slot] = new Entry(version, entity, id, change);
+        appended++;
+    }
+
+    /**
+     * Changes after a version, oldest first, one entry per entity.
+     * Changes sharing a version are never split across pages.
+     * @return null when some changes after that version are no longer retained
+     */
+    public synchronized Page since(long version, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        if (version < lostUpTo) {
+            return null;
+        }
+        long first = appended - Math.min(appended, ring.length);
+        long lo = first;
+        long hi = appended;
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (at(mid).version <= version) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+
+        List<Entry> raw = new ArrayList<>();
+        long index = lo;
+        while (index < appended && (raw.size() < limit || at(index).version == at(index - 1).version)) {
+            raw.add(at(index++));
+        }
+
+        // Keep the latest change per entity; created then updated is still a create
+        Map<String, Entry> latest = new LinkedHashMap<>();
+        for (Entry entry : raw) {
+            String key = entry.entity + ":" + entry.id;
+            Entry previous = latest.remove(key);
+            if (previous != null && previous.change == CatalogVersion.Change.CREATED
+                    && entry.change == CatalogVersion.Change.UPDATED) {
+                entry = new Entry(entry.version, entry.entity, entry.id, CatalogVersion.Change.CREATED);
+            }
+            latest.put(key, entry);
+        }
+        long next = raw.isEmpty() ? version : raw.get(raw.size() - 1).version;
+        return new Page(new ArrayList<>(latest.values()), next, index < appended);
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("capacity", ring.length);
+        stats.put("retained", Math.min(appended, ring.length));
+        stats.put("appended", appended);
+        stats.put("retainedAfterVersion", lostUpTo);
+        return stats;
+    }
+
+    private Entry at(long index) {
+        return ring[(int) (index % ring.length)];
+    }
+
+    public static final class Entry {
+        private final long version;
+        private final String entity;
+        private final UUID id;
+        private final CatalogVersion.Change change;
+
+        Entry(long version, String entity, UUID id, CatalogVersion.Change change) {
+            this.version = version;
+            this.entity = entity;
+            this.id = id;
+            this.change = change;
+        }
+
+        public long getVersion() { return version; }
+        public String getEntity() { return entity; }
+        public UUID getId() { return id; }
+        public CatalogVersion.Change getChange() { return change; }
+    }
+
+    public static final class Page {
+        private final List<Entry> changes;
+        private final long next;
+        private final boolean hasMore;
+
+        Page(List<Entry> changes, long next, boolean hasMore) {
+            this.changes = changes;
+            this.next = next;
+            this.hasMore = hasMore;
+        }
+
+        public List<Entry> getChanges() { return changes; }
+        /** Version to pass as since for the following page */
+        public long getNext() { return next; }
+        public boolean isHasMore() { return hasMore; }
+    }
+}
@@ -0,0 +1,68 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * ChangeResource - Incremental sync of properties, offers, buyers and sellers
+ * Clients keep the next value of the last page and ask for what changed
+ * since; when that is too old they reload a full listing (or the property
+ * export) and resume from its catalog version.
+ */
+@Path("/changes")
+@Produces(MediaType.APPLICATION_JSON)
+public class ChangeResource {
+
+    private static final int MAX_LIMIT = 10_000;
+
+    @Inject
+    private ApplicationState state;
+
+    /**
+     * Creates, updates and deletes after a catalog version
+     * GET /api/changes?since=1234&limit=500
+     */
+    @GET
+    @Admission(Admission.Level.BULK)
+    public Response getChanges(@QueryParam("since") @DefaultValue("0") long since,
+                               @QueryParam("limit") @DefaultValue("1000") int limit) {
+        if (since < 0 || limit <= 0 || limit > MAX_LIMIT) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse("since must be >= 0 and limit between 1 and " + MAX_LIMIT))
+                    .build();
+        }
+        ChangeLog.Page page = state.getChangeLog().since(since, limit);
+        if (page == null) {
+            return Response.status(Response.Status.GONE)
+                    .entity(new ErrorResponse("Changes since " + since + " are no longer retained, "
+                            + "reload the full listing and resume from its catalog version"))
+                    .build();
+        }
+        return Response.ok(page)
+                .header("X-Catalog-Version", state.getCatalogVersion())
+                .build();
+    }
+
+    /**
+     * Ring buffer capacity and retention
+     * GET /api/changes/stats
+     */
+    @GET
+    @Path("/stats")
+    @Admission(Admission.Level.EXEMPT)
+    public Response getStats() {
+        return Response.ok(state.getChangeLog().getStats()).build();
+    }
+
+    public static class ErrorResponse {
+        private String error;
+        public ErrorResponse(String error) { this.error = error; }
+        public String getError() { return error; }
+    }
+}
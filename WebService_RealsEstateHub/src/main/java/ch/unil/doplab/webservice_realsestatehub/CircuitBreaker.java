@@ -0,0 +1,167 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CircuitBreaker - Stops calling a failing provider and probes it again later
+ * CLOSED counts consecutive failures, OPEN rejects until the cool-down expires,
+ * HALF_OPEN lets a limited number of probe calls through to decide the next state
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenProbes;
+
+    private State state = State.CLOSED;
+    private long generation; // advanced on every transition, stamps the permits granted in it
+    private int consecutiveFailures;
+    private int probesInFlight;
+    private long openedAt;
+
+    private final Map<State, AtomicLong> transitions = new EnumMap<>(State.class);
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * A granted call. Its outcome only moves the breaker if the breaker is
+     * still in the state that granted it: a call let through while CLOSED
+     * that finishes after the breaker opened is not a probe and decides nothing.
+     */
+    public static final class Permit {
+        private final long generation;
+        private final boolean probe;
+        private boolean done; // guarded by the breaker
+
+        private Permit(long generation, boolean probe) {
+            this.generation = generation;
+            this.probe = probe;
+        }
+    }
+
+    public CircuitBreaker(String name, int failureThreshold, long openDurationMillis, int halfOpenProbes) {
+        if (failureThreshold <= 0) throw new IllegalArgumentException("failureThreshold must be positive");
+        if (halfOpenProbes <= 0) throw new IllegalArgumentException("halfOpenProbes must be positive");
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = openDurationMillis * 1_000_000L;
+        this.halfOpenProbes = halfOpenProbes;
+        for (State s : State.values()) {
+            transitions.put(s, new AtomicLong());
+        }
+    }
+
+    /**
+     * Ask permission for a call; every granted permit must be handed back to
+     * {@link #recordSuccess(Permit)}, {@link #recordFailure(Permit)} or
+     * {@link #releasePermission(Permit)}
+     * @return null when the call is rejected
+     */
+    public Permit tryAcquirePermission() {
+        return tryAcquirePermission(System.nanoTime());
+    }
+
+    synchronized Permit tryAcquirePermission(long now) {
+        if (state == State.OPEN) {
+            if (now - openedAt < openDurationNanos) {
+                rejected.incrementAndGet();
+                return null;
+            }
+            transitionTo(State.HALF_OPEN, now);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight >= halfOpenProbes) {
+                rejected.incrementAndGet();
+                return null;
+            }
+            probesInFlight++;
+            return new Permit(generation, true);
+        }
+        return new Permit(generation, false);
+    }
+
+    /**
+     * Give back a granted permission when the call was not made after all
+     */
+    public synchronized void releasePermission(Permit permit) {
+        if (finish(permit) && permit.probe) {
+            probesInFlight--;
+        }
+    }
+
+    public void recordSuccess(Permit permit) {
+        recordSuccess(permit, System.nanoTime());
+    }
+
+    synchronized void recordSuccess(Permit permit, long now) {
+        if (!finish(permit)) return;
+        if (permit.probe) {
+            probesInFlight--;
+            transitionTo(State.CLOSED, now);
+        }
+        consecutiveFailures = 0;
+    }
+
+    public void recordFailure(Permit permit) {
+        recordFailure(permit, System.nanoTime());
+    }
+
+    synchronized void recordFailure(Permit permit, long now) {
+        if (!finish(permit)) return;
+        if (permit.probe) {
+            probesInFlight--;
+            transitionTo(State.OPEN, now);
+            return;
+        }
+        consecutiveFailures++;
+        if (consecutiveFailures >= failureThreshold) {
+            transitionTo(State.OPEN, now);
+        }
+    }
+
+    /**
+     * Mark the permit used; true if it was granted in the current state and
+     * not already handed back, so its outcome counts
+     */
+    private boolean finish(Permit permit) {
+        if (permit == null || permit.done) return false;
+        permit.done = true;
+        return permit.generation == generation;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * Number of times the breaker entered each state
+     */
+    public Map<State, Long> getTransitionCounts() {
+        Map<State, Long> counts = new EnumMap<>(State.class);
+        transitions.forEach((s, count) -> counts.put(s, count.get()));
+        return counts;
+    }
+
+    private void transitionTo(State next, long now) {
+        if (state == next) return;
+        System.out.println("CircuitBreaker[" + name + "] " + state + " -> " + next);
+        state = next;
+        generation++;
+        transitions.get(next).incrementAndGet();
+        if (next == State.OPEN) {
+            openedAt = now;
+        }
+        if (next != State.HALF_OPEN) {
+            probesInFlight = 0;
+        }
+        consecutiveFailures = 0;
+    }
+}
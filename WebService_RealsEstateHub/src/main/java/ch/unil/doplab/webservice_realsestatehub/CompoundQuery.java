@@ -0,0 +1,327 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import ch.unil.doplab.Buyer;
+import ch.unil.doplab.Offer;
+import ch.unil.doplab.Property;
+import ch.unil.doplab.Seller;
+import ch.unil.doplab.User;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * CompoundQuery - Properties with their seller, offers and buyers in one response
+ * The selection names fields and nested relations, GraphQL style:
+ * title,price,seller{fullName,email},offers{amount,status,buyer{fullName}}
+ * Related entities are resolved level by level through data loaders that
+ * collect every key of the page first and then fetch them in one batch, so
+ * a page costs at most one pass per relation whatever its size.
+ */
+public final class CompoundQuery {
+
+    static final int MAX_IDS = 200;
+    static final String DEFAULT_SELECTION = "propertyId,ownerId,title,description,location,price,size,type,status,"
+            + "features,images,bedroomCount,bathroomCount,createdAt,updatedAt,version,"
+            + "seller{userID,firstName,lastName,fullName,email,version},"
+            + "offers{offerId,buyerId,amount,status,createdAt,version,buyer{userID,firstName,lastName,fullName,email,budget}}";
+
+    private static final Set<String> PROPERTY_RELATIONS = Set.of("seller", "offers");
+    private static final Set<String> OFFER_RELATIONS = Set.of("buyer");
+    private static final Map<String, BiConsumer<JsonGenerator, Offer>> OFFER_FIELDS = new LinkedHashMap<>();
+    private static final Map<String, BiConsumer<JsonGenerator, User>> USER_FIELDS = new LinkedHashMap<>();
+
+    static {
+        OFFER_FIELDS.put("offerId", (json, o) -> JsonCodecs.writeUuid(json, "offerId", o.getOfferId()));
+        OFFER_FIELDS.put("propertyId", (json, o) -> JsonCodecs.writeUuid(json, "propertyId", o.getPropertyId()));
+        OFFER_FIELDS.put("buyerId", (json, o) -> JsonCodecs.writeUuid(json, "buyerId", o.getBuyerId()));
+        OFFER_FIELDS.put("amount", (json, o) -> json.write("amount", o.getAmount()));
+        OFFER_FIELDS.put("status", (json, o) -> JsonCodecs.writeString(json, "status", o.getStatus() != null ? o.getStatus().name() : null));
+        OFFER_FIELDS.put("createdAt", (json, o) -> JsonCodecs.writeTime(json, "createdAt", o.getCreatedAt()));
+        OFFER_FIELDS.put("version", (json, o) -> json.write("version", o.getVersion()));
+
+        USER_FIELDS.put("userID", (json, u) -> JsonCodecs.writeUuid(json, "userID", u.getUserID()));
+        USER_FIELDS.put("username", (json, u) -> JsonCodecs.writeString(json, "username", u.getUsername()));
+        USER_FIELDS.put("firstName", (json, u) -> JsonCodecs.writeString(json, "firstName", u.getFirstName()));
+        USER_FIELDS.put("lastName", (json, u) -> JsonCodecs.writeString(json, "lastName", u.getLastName()));
+        USER_FIELDS.put("fullName", (json, u) -> JsonCodecs.writeString(json, "fullName", u.getFullName()));
+        USER_FIELDS.put("email", (json, u) -> JsonCodecs.writeString(json, "email", u.getEmail()));
+        USER_FIELDS.put("role", (json, u) -> JsonCodecs.writeString(json, "role", u.getRole()));
+        USER_FIELDS.put("version", (json, u) -> json.write("version", u.getVersion()));
+        USER_FIELDS.put("budget", (json, u) -> {
+            if (u instanceof Buyer buyer) json.write("budget", buyer.getBudget());
+        });
+    }
+
+    private final Selection root;
+    private final PropertyJsonWriter propertyFields; // null when only relations are selected
+
+    /**
+     * Fields picked at one level; relations carry the selection of their own fields
+     */
+    private record Selection(List<String> fields, Map<String, Selection> relations) {
+        Selection relation(String name) {
+            return relations.get(name);
+        }
+    }
+
+    private CompoundQuery(Selection root) {
+        this.root = root;
+        this.propertyFields = root.fields().isEmpty() ? null : PropertyJsonWriter.forFields(String.join(",", root.fields()));
+    }
+
+    /**
+     * Parse and check a selection; null or blank selects the detail view
+     * @throws IllegalArgumentException on syntax errors or unknown fields
+     */
+    public static CompoundQuery parse(String select) {
+        String text = select == null || select.isBlank() ? DEFAULT_SELECTION : select;
+        Parser parser = new Parser(text);
+        Selection root = parser.selection(0);
+        if (parser.position < text.length()) {
+            throw new IllegalArgumentException("Unexpected '" + text.charAt(parser.position)
+                    + "' at position " + parser.position + " of select");
+        }
+        if (root.fields().isEmpty() && root.relations().isEmpty()) {
+            throw new IllegalArgumentException("select names no field");
+        }
+        check(root, "property", PROPERTY_RELATIONS, null);
+        Selection seller = root.relation("seller");
+        if (seller != null) check(seller, "seller", Set.of(), USER_FIELDS.keySet());
+        Selection offers = root.relation("offers");
+        if (offers != null) {
+            check(offers, "offer", OFFER_RELATIONS, OFFER_FIELDS.keySet());
+            Selection buyer = offers.relation("buyer");
+            if (buyer != null) check(buyer, "buyer", Set.of(), USER_FIELDS.keySet());
+        }
+        return new CompoundQuery(root);
+    }
+
+    private static void check(Selection level, String entity, Set<String> relations, Set<String> fields) {
+        for (String relation : level.relations().keySet()) {
+            if (!relations.contains(relation)) {
+                throw new IllegalArgumentException("Unknown relation '" + relation + "' on " + entity
+                        + ", expected one of " + relations);
+            }
+        }
+        if (fields == null) return; // property fields are checked by PropertyJsonWriter
+        for (String field : level.fields()) {
+            if (!fields.contains(field)) {
+                throw new IllegalArgumentException("Unknown field '" + field + "' on " + entity
+                        + ", expected one of " + fields);
+            }
+        }
+    }
+
+    /**
+     * Resolve the properties and everything selected under them, then stream
+     * {"items":[...],"missing":["id",...]}
+     */
+    public StreamingOutput execute(Set<UUID> ids, ApplicationState state) {
+        Selection sellerSelection = root.relation("seller");
+        Selection offerSelection = root.relation("offers");
+        Selection buyerSelection = offerSelection != null ? offerSelection.relation("buyer") : null;
+
+        List<Property> properties = new ArrayList<>(ids.size());
+        List<UUID> missing = new ArrayList<>();
+        Map<UUID, Property> catalog = state.getProperties();
+        for (UUID id : ids) {
+            Property property = catalog.get(id);
+            if (property != null) {
+                properties.add(property);
+            } else {
+                missing.add(id);
+            }
+        }
+
+        DataLoader<UUID, Seller> sellers = new DataLoader<>(keys -> lookup(keys, state.getSellers()));
+        DataLoader<UUID, List<Offer>> offers = new DataLoader<>(keys -> offersByProperty(keys, state.getOffers().values()));
+        DataLoader<UUID, Buyer> buyers = new DataLoader<>(keys -> lookup(keys, state.getBuyers()));
+
+        for (Property property : properties) {
+            if (sellerSelection != null) sellers.want(property.getOwnerId());
+            if (offerSelection != null) offers.want(property.getPropertyId());
+        }
+        sellers.dispatch();
+        offers.dispatch();
+        if (buyerSelection != null) {
+            for (Property property : properties) {
+                for (Offer offer : offers.get(property.getPropertyId(), List.of())) {
+                    buyers.want(offer.getBuyerId());
+                }
+            }
+            buyers.dispatch();
+        }
+
+        return out -> {
+            // Flushed rather than closed: the container owns the response stream
+            JsonGenerator json = JsonCodecs.generator(out);
+            json.writeStartObject();
+            json.writeStartArray("items");
+            for (Property property : properties) {
+                json.writeStartObject();
+                if (propertyFields != null) propertyFields.writeFields(json, property);
+                if (sellerSelection != null) {
+                    writeUser(json, "seller", sellers.get(property.getOwnerId(), null), sellerSelection);
+                }
+                if (offerSelection != null) {
+                    json.writeStartArray("offers");
+                    for (Offer offer : offers.get(property.getPropertyId(), List.of())) {
+                        json.writeStartObject();
+                        for (String field : offerSelection.fields()) {
+                            OFFER_FIELDS.get(field).accept(json, offer);
+                        }
+                        if (buyerSelection != null) {
+                            writeUser(json, "buyer", buyers.get(offer.getBuyerId(), null), buyerSelection);
+                        }
+                        json.writeEnd();
+                    }
+                    json.writeEnd();
+                }
+                json.writeEnd();
+            }
+            json.writeEnd();
+            json.writeStartArray("missing");
+            missing.forEach(id -> json.write(id.toString()));
+            json.writeEnd();
+            json.writeEnd();
+            json.flush();
+        };
+    }
+
+    private static void writeUser(JsonGenerator json, String name, User user, Selection selection) {
+        if (user == null) {
+            json.writeNull(name);
+            return;
+        }
+        json.writeStartObject(name);
+        for (String field : selection.fields()) {
+            USER_FIELDS.get(field).accept(json, user);
+        }
+        json.writeEnd();
+    }
+
+    private static <V> Map<UUID, V> lookup(Set<UUID> keys, Map<UUID, V> entities) {
+        Map<UUID, V> found = new HashMap<>();
+        for (UUID key : keys) {
+            V entity = entities.get(key);
+            if (entity != null) found.put(key, entity);
+        }
+        return found;
+    }
+
+    /**
+     * Offers have no index by property, so all requested properties share one scan
+     */
+    private static Map<UUID, List<Offer>> offersByProperty(Set<UUID> propertyIds, Collection<Offer> offers) {
+        Map<UUID, List<Offer>> byProperty = new HashMap<>();
+        for (Offer offer : offers) {
+            if (propertyIds.contains(offer.getPropertyId())) {
+                byProperty.computeIfAbsent(offer.getPropertyId(), id -> new ArrayList<>()).add(offer);
+            }
+        }
+        return byProperty;
+    }
+
+    /**
+     * Collects keys while a level is walked, then loads them all with one batch call
+     */
+    static final class DataLoader<K, V> {
+        private final Function<Set<K>, Map<K, V>> batch;
+        private final Set<K> pending = new LinkedHashSet<>();
+        private final Map<K, V> loaded = new HashMap<>();
+        private final Set<K> requested = new HashSet<>();
+
+        DataLoader(Function<Set<K>, Map<K, V>> batch) {
+            this.batch = batch;
+        }
+
+        void want(K key) {
+            if (key != null && requested.add(key)) {
+                pending.add(key);
+            }
+        }
+
+        void dispatch() {
+            if (pending.isEmpty()) return;
+            loaded.putAll(batch.apply(pending));
+            pending.clear();
+        }
+
+        V get(K key, V absent) {
+            return key == null ? absent : loaded.getOrDefault(key, absent);
+        }
+    }
+
+    /**
+     * Recursive descent over name[,name{...}]*
+     */
+    private static final class Parser {
+        private static final int MAX_DEPTH = 3;
+        private final String text;
+        private int position;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Selection selection(int depth) {
+            List<String> fields = new ArrayList<>();
+            Map<String, Selection> relations = new LinkedHashMap<>();
+            while (true) {
+                skipSpaces();
+                String name = name();
+                skipSpaces();
+                if (position < text.length() && text.charAt(position) == '{') {
+                    if (depth + 1 >= MAX_DEPTH) {
+                        throw new IllegalArgumentException("select nests deeper than " + MAX_DEPTH + " levels");
+                    }
+                    position++;
+                    Selection nested = selection(depth + 1);
+                    skipSpaces();
+                    if (position >= text.length() || text.charAt(position) != '}') {
+                        throw new IllegalArgumentException("Missing '}' after '" + name + "{' in select");
+                    }
+                    position++;
+                    relations.put(name, nested);
+                    skipSpaces();
+                } else if (!fields.contains(name)) {
+                    fields.add(name);
+                }
+                if (position < text.length() && text.charAt(position) == ',') {
+                    position++;
+                    continue;
+                }
+                return new Selection(fields, relations);
+            }
+        }
+
+        private String name() {
+            int start = position;
+            while (position < text.length() && Character.isLetterOrDigit(text.charAt(position))) {
+                position++;
+            }
+            if (start == position) {
+                throw new IllegalArgumentException("Expected a field name at position " + start + " of select");
+            }
+            return text.substring(start, position);
+        }
+
+        private void skipSpaces() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+    }
+}
@@ -4,9 +4,19 @@ import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class EmailNotificationService {
 
+    private enum SendOutcome { SENT, FAILED, REJECTED }
+
+    private record PendingEmail(String buyerEmail, String sellerEmail, String subject, String message) {}
+
     // Brevo (Sendinblue) API - FREE 300 emails/day
     private static final String BREVO_API_URL = "https://api.brevo.com/v3/smtp/email";
     
@@ -16,9 +26,30 @@ public class EmailNotificationService {
     
     // Set to false for demo (simulated), true for real emails (requires valid API key)
     private static final boolean USE_REAL_API = false;
-    
+
+    // Flow control in front of the provider (Brevo enforces a per-second quota)
+    private static final int PROVIDER_BURST = 10;
+    private static final double PROVIDER_PERMITS_PER_SECOND = 5.0;
+    private static final long SLOW_CALL_THRESHOLD_MILLIS = 2000;
+    private static final int PENDING_QUEUE_CAPACITY = 1000;
+
+    private static final TokenBucketRateLimiter RATE_LIMITER =
+            new TokenBucketRateLimiter(PROVIDER_BURST, PROVIDER_PERMITS_PER_SECOND);
+    private static final CircuitBreaker CIRCUIT_BREAKER =
+            new CircuitBreaker("brevo", 5, 30_000, 1);
+
+    // Sends rejected by the limiter or the open breaker wait here and are retried in the background
+    private static final BlockingQueue<PendingEmail> PENDING = new LinkedBlockingQueue<>(PENDING_QUEUE_CAPACITY);
+    private static final AtomicLong queuedCount = new AtomicLong();
+    private static final AtomicLong droppedCount = new AtomicLong();
+    private static final AtomicLong sentCount = new AtomicLong();
+    private static final AtomicLong failedCount = new AtomicLong();
+
+    // Retried every second by EmailQueueDrainer, which owns the thread and stops it at undeploy
+
     /**
      * Send email notification when offer status changes
+     * Returns true when the notification was sent or queued for a later retry
      */
     public static boolean sendOfferStatusNotification(String offerId, String propertyId, 
                                                        String oldStatus, String newStatus,
@@ -36,18 +67,13 @@ public class EmailNotificationService {
             System.out.println("External API: " + (USE_REAL_API ? "Brevo (REAL)" : "Brevo (simulated)"));
             System.out.println("========================");
             
-            // Send via real API or simulate
-            boolean success;
-            if (USE_REAL_API && !BREVO_API_KEY.equals("YOUR_BREVO_API_KEY_HERE")) {
-                success = sendViaBrevoAPI(buyerEmail, subject, message);
-                if (success && !buyerEmail.equals(sellerEmail)) {
-                    sendViaBrevoAPI(sellerEmail, subject, message);
-                }
-            } else {
-                success = simulateEmailAPICall(buyerEmail, sellerEmail, subject, message);
+            // Send through the limiter and breaker, queue if the provider cannot take it now
+            PendingEmail email = new PendingEmail(buyerEmail, sellerEmail, subject, message);
+            SendOutcome outcome = trySend(email, false);
+            if (outcome == SendOutcome.REJECTED) {
+                return enqueue(email);
             }
-            
-            return success;
+            return outcome == SendOutcome.SENT;
             
         } catch (Exception e) {
             System.err.println("Error sending email notification: " + e.getMessage());
@@ -55,6 +81,130 @@ public class EmailNotificationService {
         }
     }
     
+    /**
+     * Current limiter, breaker and queue counters
+     */
+    public static Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("circuitState", CIRCUIT_BREAKER.getState().toString());
+        stats.put("circuitTransitions", CIRCUIT_BREAKER.getTransitionCounts());
+        stats.put("circuitRejected", CIRCUIT_BREAKER.getRejectedCount());
+        stats.put("rateLimiterGranted", RATE_LIMITER.getGrantedCount());
+        stats.put("rateLimiterRejected", RATE_LIMITER.getRejectedCount());
+        stats.put("rateLimiterAvailableTokens", RATE_LIMITER.getAvailableTokens());
+        stats.put("queueDepth", PENDING.size());
+        stats.put("queued", queuedCount.get());
+        stats.put("dropped", droppedCount.get());
+        stats.put("sent", sentCount.get());
+        stats.put("failed", failedCount.get());
+        return stats;
+    }
+
+    public static int getQueueDepth() {
+        return PENDING.size();
+    }
+
+    /**
+     * Call the provider if both the rate limiter and the circuit breaker allow it.
+     * Slow calls count as failures so a degraded provider trips the breaker too.
+     */
+    private static SendOutcome trySend(PendingEmail email, boolean retry) {
+        EmailSendEvent event = new EmailSendEvent();
+        event.begin();
+        Tracing.Span span = Tracing.start("email dispatch");
+        SendOutcome outcome = attemptSend(email);
+        span.detail(outcome.name().toLowerCase(Locale.ROOT) + (retry ? " (retry)" : "")).end();
+        if (event.shouldCommit()) {
+            event.provider = USE_REAL_API ? "brevo" : "simulated";
+            event.outcome = outcome.name();
+            event.recipients = email.buyerEmail().equals(email.sellerEmail()) ? 1 : 2;
+            event.bytes = outcome == SendOutcome.REJECTED ? 0 : (long) event.recipients
+                    * (email.subject().getBytes(StandardCharsets.UTF_8).length
+                    + email.message().getBytes(StandardCharsets.UTF_8).length);
+            event.retry = retry;
+            event.commit();
+        }
+        return outcome;
+    }
+
+    private static SendOutcome attemptSend(PendingEmail email) {
+        // Breaker first: while it is open, attempts must not use up rate-limit tokens
+        CircuitBreaker.Permit permit = CIRCUIT_BREAKER.tryAcquirePermission();
+        if (permit == null) {
+            return SendOutcome.REJECTED;
+        }
+        if (!RATE_LIMITER.tryAcquire()) {
+            CIRCUIT_BREAKER.releasePermission(permit);
+            return SendOutcome.REJECTED;
+        }
+        long start = System.nanoTime();
+        boolean success;
+        try {
+            success = callProvider(email);
+        } catch (Exception e) {
+            System.err.println("Email provider call failed: " + e.getMessage());
+            success = false;
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000L;
+        if (success && elapsedMillis <= SLOW_CALL_THRESHOLD_MILLIS) {
+            CIRCUIT_BREAKER.recordSuccess(permit);
+        } else {
+            CIRCUIT_BREAKER.recordFailure(permit);
+        }
+        if (success) {
+            sentCount.incrementAndGet();
+            return SendOutcome.SENT;
+        }
+        failedCount.incrementAndGet();
+        return SendOutcome.FAILED;
+    }
+
+    /**
+     * Send via real API or simulate
+     */
+    private static boolean callProvider(PendingEmail email) {
+        if (USE_REAL_API && !BREVO_API_KEY.equals("YOUR_BREVO_API_KEY_HERE")) {
+            boolean success = sendViaBrevoAPI(email.buyerEmail(), email.subject(), email.message());
+            if (success && !email.buyerEmail().equals(email.sellerEmail())) {
+                sendViaBrevoAPI(email.sellerEmail(), email.subject(), email.message());
+            }
+            return success;
+        }
+        return simulateEmailAPICall(email.buyerEmail(), email.sellerEmail(), email.subject(), email.message());
+    }
+
+    private static boolean enqueue(PendingEmail email) {
+        if (PENDING.offer(email)) {
+            queuedCount.incrementAndGet();
+            System.out.println("Email provider unavailable (" + CIRCUIT_BREAKER.getState() + "), notification queued");
+            return true;
+        }
+        droppedCount.incrementAndGet();
+        System.err.println("Email notification queue full, notification dropped");
+        return false;
+    }
+
+    /**
+     * Retry queued notifications in order until the provider pushes back again
+     */
+    static void drainPending() {
+        try {
+            PendingEmail email;
+            while ((email = PENDING.peek()) != null) {
+                SendOutcome outcome = trySend(email, true);
+                if (outcome == SendOutcome.REJECTED) {
+                    return;
+                }
+                PENDING.poll();
+                if (outcome == SendOutcome.FAILED) {
+                    System.err.println("Queued email notification could not be delivered to " + email.buyerEmail());
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Error draining email notification queue: " + e.getMessage());
+        }
+    }
+
     /**
      * Build email message content
      */
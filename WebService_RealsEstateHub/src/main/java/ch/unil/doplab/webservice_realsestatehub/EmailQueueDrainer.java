@@ -0,0 +1,41 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EmailQueueDrainer - Retries queued email notifications in the background
+ * Owns the drain thread so it starts with the application and stops at
+ * undeploy instead of outliving the application's class loader.
+ */
+@ApplicationScoped
+public class EmailQueueDrainer {
+
+    private static final long DRAIN_INTERVAL_MILLIS = 1000;
+
+    private ScheduledExecutorService drainer;
+
+    public void onStart(@Observes @Initialized(ApplicationScoped.class) Object init) {
+        if (drainer != null) return;
+        drainer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "email-notification-drainer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        drainer.scheduleWithFixedDelay(EmailNotificationService::drainPending,
+                DRAIN_INTERVAL_MILLIS, DRAIN_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (drainer != null) {
+            drainer.shutdownNow();
+        }
+    }
+}
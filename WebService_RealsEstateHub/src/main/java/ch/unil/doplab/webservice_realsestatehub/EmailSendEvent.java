@@ -0,0 +1,37 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one attempt to hand a notification to the email provider
+ */
+@Name("ch.unil.doplab.EmailSend")
+@Label("Email Send")
+@Category({"RealEstateHub", "Notifications"})
+@Description("An email send attempt through the rate limiter and circuit breaker")
+@StackTrace(false)
+class EmailSendEvent extends jdk.jfr.Event {
+
+    @Label("Provider")
+    String provider;
+
+    @Label("Outcome")
+    @Description("SENT, FAILED or REJECTED by the limiter or breaker")
+    String outcome;
+
+    @Label("Recipients")
+    int recipients;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Retry")
+    @Description("Sent from the retry queue")
+    boolean retry;
+}
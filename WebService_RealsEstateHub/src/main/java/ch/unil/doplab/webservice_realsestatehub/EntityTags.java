@@ -0,0 +1,47 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.ext.RuntimeDelegate;
+
+/**
+ * Strong ETags derived from CatalogVersion values.
+ * Entity versions come from one global clock, so a tag never repeats for
+ * different content; collections use the catalog version at read time.
+ */
+public final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    public static EntityTag forVersion(long version) {
+        return new EntityTag("v" + version);
+    }
+
+    public static EntityTag forCatalog(long catalogVersion) {
+        return new EntityTag(catalogValue(catalogVersion, null));
+    }
+
+    /**
+     * Collection tag for one representation of the catalog, such as a field projection
+     */
+    public static EntityTag forCatalog(long catalogVersion, String variant) {
+        return new EntityTag(catalogValue(catalogVersion, variant));
+    }
+
+    static String catalogValue(long catalogVersion, String variant) {
+        // No commas inside the tag, some parsers split If-None-Match lists on them
+        return variant == null || variant.isEmpty()
+                ? "c" + catalogVersion
+                : "c" + catalogVersion + "-" + variant.replace(',', '.');
+    }
+
+    /**
+     * The ETag response header as set by a resource, either an EntityTag or its text; null if absent
+     */
+    public static EntityTag fromHeader(Object etag) {
+        if (etag == null || etag instanceof EntityTag) {
+            return (EntityTag) etag;
+        }
+        return RuntimeDelegate.getInstance().createHeaderDelegate(EntityTag.class).fromString(etag.toString());
+    }
+}
@@ -0,0 +1,223 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+
+import java.util.*;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * EventBroadcaster - Pushes offer and message events to subscribed users over SSE
+ * Each connection has a small bounded buffer and at most one send in flight;
+ * when a slow consumer falls behind, events with the same key are coalesced
+ * and the oldest events are dropped.
+ * A periodic heartbeat comment makes the container notice dead connections
+ * even for users who receive no events.
+ */
+@ApplicationScoped
+public class EventBroadcaster {
+
+    private static final int BUFFER_CAPACITY = 256;
+    private static final long HEARTBEAT_INTERVAL_MILLIS = 15000;
+    private static final String HEARTBEAT = "heartbeat";
+
+    private final Map<UUID, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong disconnected = new AtomicLong();
+
+    private ScheduledExecutorService heartbeat;
+
+    /**
+     * An event without payload is sent as an SSE comment, which clients ignore
+     */
+    private record PushEvent(long id, String type, String key, Object payload) {}
+
+    /**
+     * Start the heartbeat with the application
+     */
+    public void onStart(@Observes @Initialized(ApplicationScoped.class) Object init) {
+        if (heartbeat != null) return;
+        heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "sse-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleWithFixedDelay(this::heartbeat, HEARTBEAT_INTERVAL_MILLIS, HEARTBEAT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+        }
+    }
+
+    /**
+     * Write a comment to every connection; a send to a closed client fails and
+     * drops the subscription. Keyed, so it never piles up behind a slow consumer.
+     */
+    void heartbeat() {
+        PushEvent ping = new PushEvent(0, HEARTBEAT, HEARTBEAT, null);
+        for (Set<Subscription> set : subscriptions.values()) {
+            for (Subscription subscription : set) {
+                subscription.offer(ping);
+            }
+        }
+    }
+
+    /**
+     * Register an SSE connection for a user
+     */
+    public void subscribe(UUID userId, SseEventSink sink, Sse sse) {
+        Subscription subscription = new Subscription(userId, sink, sse);
+        subscriptions.computeIfAbsent(userId, id -> new CopyOnWriteArraySet<>()).add(subscription);
+        subscription.offer(new PushEvent(sequence.incrementAndGet(), "connected", null, Map.of("userId", userId)));
+    }
+
+    /**
+     * Push an event to every connection of a user.
+     * Events sharing a non-null key replace each other while still buffered.
+     */
+    public void publish(UUID userId, String type, String key, Object payload) {
+        if (userId == null) return;
+        Set<Subscription> targets = subscriptions.get(userId);
+        if (targets == null || targets.isEmpty()) return;
+        PushEvent event = new PushEvent(sequence.incrementAndGet(), type, key, payload);
+        published.incrementAndGet();
+        for (Subscription subscription : targets) {
+            subscription.offer(event);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("subscribedUsers", subscriptions.size());
+        stats.put("connections", subscriptions.values().stream().mapToInt(Set::size).sum());
+        stats.put("published", published.get());
+        stats.put("coalesced", coalesced.get());
+        stats.put("dropped", dropped.get());
+        stats.put("disconnected", disconnected.get());
+        return stats;
+    }
+
+    private void remove(Subscription subscription) {
+        subscriptions.computeIfPresent(subscription.userId, (id, set) -> {
+            set.remove(subscription);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private final class Subscription {
+        private final UUID userId;
+        private final SseEventSink sink;
+        private final Sse sse;
+        private final ArrayDeque<PushEvent> buffer = new ArrayDeque<>();
+        private boolean sending;
+        private boolean closed;
+
+        Subscription(UUID userId, SseEventSink sink, Sse sse) {
+            this.userId = userId;
+            this.sink = sink;
+            this.sse = sse;
+        }
+
+        void offer(PushEvent event) {
+            synchronized (this) {
+                if (closed) return;
+                if (event.key() != null && replaceBuffered(event)) {
+                    coalesced.incrementAndGet();
+                } else {
+                    if (buffer.size() >= BUFFER_CAPACITY) {
+                        buffer.pollFirst();
+                        dropped.incrementAndGet();
+                    }
+                    buffer.addLast(event);
+                }
+            }
+            pump();
+        }
+
+        private boolean replaceBuffered(PushEvent event) {
+            for (Iterator<PushEvent> it = buffer.iterator(); it.hasNext(); ) {
+                if (event.key().equals(it.next().key())) {
+                    it.remove();
+                    buffer.addLast(event);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void pump() {
+            PushEvent next;
+            synchronized (this) {
+                if (sending || closed) return;
+                if (sink.isClosed()) {
+                    close();
+                    return;
+                }
+                next = buffer.pollFirst();
+                if (next == null) return;
+                sending = true;
+            }
+            OutboundSseEvent outbound = next.payload() == null
+                    ? sse.newEventBuilder().comment(next.type()).build()
+                    : sse.newEventBuilder()
+                    .id(Long.toString(next.id()))
+                    .name(next.type())
+                    .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                    .data(next.payload().getClass(), next.payload())
+                    .build();
+            CompletionStage<?> sent;
+            try {
+                sent = sink.send(outbound);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    sending = false;
+                }
+                close();
+                return;
+            }
+            sent.whenComplete((result, error) -> {
+                synchronized (this) {
+                    sending = false;
+                }
+                if (error != null) {
+                    close();
+                } else {
+                    pump();
+                }
+            });
+        }
+
+        private void close() {
+            synchronized (this) {
+                if (closed) return;
+                closed = true;
+                buffer.clear();
+            }
+            remove(this);
+            disconnected.incrementAndGet();
+            try {
+                sink.close();
+            } catch (Exception e) {
+                // Connection already gone
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+
+import java.util.UUID;
+
+/**
+ * EventResource - Server-Sent Events stream of offer and message updates
+ */
+@Admission(Admission.Level.EXEMPT)
+@Path("/events")
+public class EventResource {
+
+    @Inject
+    private ApplicationState state;
+
+    @Inject
+    private EventBroadcaster broadcaster;
+
+    /**
+     * Subscribe to events for a buyer or seller
+     * GET /api/events/{userId}  (text/event-stream)
+     * Event names: offer-created, offer-status, message
+     */
+    @GET
+    @Path("/{userId}")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public void subscribe(@PathParam("userId") String userId,
+                          @Context SseEventSink sink,
+                          @Context Sse sse) {
+        UUID id;
+        try {
+            id = UUID.fromString(userId);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid user ID");
+        }
+        if (state.getUserById(id) == null) {
+            throw new NotFoundException("User not found");
+        }
+        broadcaster.subscribe(id, sink, sse);
+    }
+
+    /**
+     * Connection and delivery counters
+     * GET /api/events/stats
+     */
+    @GET
+    @Path("/stats")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getStats() {
+        return Response.ok(broadcaster.getStats()).build();
+    }
+}
@@ -0,0 +1,30 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * ExecutorResource - Observability for the bulkhead lanes of async resource methods
+ */
+@Admission(Admission.Level.EXEMPT)
+@Path("/executors")
+@Produces(MediaType.APPLICATION_JSON)
+public class ExecutorResource {
+
+    @Inject
+    private ResourceExecutors executors;
+
+    /**
+     * Threads, queue depth, saturation and rejections per lane
+     * GET /api/executors/stats
+     */
+    @GET
+    @Path("/stats")
+    public Response getStats() {
+        return Response.ok(executors.getStats()).build();
+    }
+}
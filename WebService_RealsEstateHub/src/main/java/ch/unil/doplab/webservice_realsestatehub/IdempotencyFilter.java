@@ -0,0 +1,157 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * IdempotencyFilter - Executes {@link Idempotent} requests once per Idempotency-Key
+ * A retry with the same key and body gets the stored response back with
+ * Idempotent-Replayed: true; the same key with another body is refused
+ * with 422. A duplicate that cannot get the first response in time gets
+ * 409 with Retry-After.
+ */
+@Provider
+@Idempotent
+public class IdempotencyFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+    public static final String HEADER = "Idempotency-Key";
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long WAIT_MILLIS = 10_000;
+    private static final String KEY = IdempotencyFilter.class.getName() + ".key";
+    private static final String ENTRY = IdempotencyFilter.class.getName() + ".entry";
+    private static final String STATUS = IdempotencyFilter.class.getName() + ".status";
+
+    @Inject
+    private IdempotencyStore store;
+
+    @Override
+    public void filter(ContainerRequestContext request) throws IOException {
+        String key = request.getHeaderString(HEADER);
+        if (key == null) return;
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            request.abortWith(error(Response.Status.BAD_REQUEST.getStatusCode(),
+                    HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters").build());
+            return;
+        }
+        byte[] body = request.hasEntity() ? request.getEntityStream().readAllBytes() : new byte[0];
+        request.setEntityStream(new ByteArrayInputStream(body));
+        byte[] fingerprint = sha256(body);
+        String scoped = request.getMethod() + " /" + request.getUriInfo().getPath() + "|" + key;
+
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            IdempotencyStore.Claim claim = store.claim(scoped, fingerprint);
+            IdempotencyStore.Entry entry = claim.entry();
+            if (!entry.matches(fingerprint)) {
+                request.abortWith(error(422, HEADER + " was already used with a different request body").build());
+                return;
+            }
+            if (claim.owner()) {
+                request.setProperty(KEY, scoped);
+                request.setProperty(ENTRY, entry);
+                return;
+            }
+            try {
+                IdempotencyStore.Stored stored =
+                        store.await(entry, Math.max(0, deadline - System.currentTimeMillis()));
+                if (stored != null) {
+                    request.abortWith(replay(stored));
+                    return;
+                }
+            } catch (TimeoutException e) {
+                break;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        request.abortWith(error(Response.Status.CONFLICT.getStatusCode(),
+                "A request with this " + HEADER + " is still being processed")
+                .header("Retry-After", 1)
+                .build());
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        if (!(request.getProperty(ENTRY) instanceof IdempotencyStore.Entry entry)) return;
+        String key = (String) request.getProperty(KEY);
+        if (response.getStatus() >= 500) {
+            request.removeProperty(ENTRY);
+            store.abandon(key, entry);
+        } else if (!response.hasEntity()) {
+            request.removeProperty(ENTRY);
+            store.complete(entry, new IdempotencyStore.Stored(response.getStatus(), null,
+                    response.getEntityTag(), new byte[0]));
+        } else {
+            request.setProperty(STATUS, response.getStatus());
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        if (!(context.getProperty(ENTRY) instanceof IdempotencyStore.Entry entry)) {
+            context.proceed();
+            return;
+        }
+        String key = (String) context.getProperty(KEY);
+        ResponseCacheFilter.CapturingStream capture =
+                new ResponseCacheFilter.CapturingStream(context.getOutputStream(), IdempotencyStore.MAX_BODY_BYTES);
+        context.setOutputStream(capture);
+        try {
+            context.proceed();
+        } catch (IOException | RuntimeException e) {
+            store.abandon(key, entry);
+            throw e;
+        }
+        if (capture.overflowed()) {
+            store.abandon(key, entry);
+            return;
+        }
+        EntityTag tag = EntityTags.fromHeader(context.getHeaders().getFirst(HttpHeaders.ETAG));
+        MediaType mediaType = context.getMediaType();
+        store.complete(entry, new IdempotencyStore.Stored((Integer) context.getProperty(STATUS),
+                mediaType != null ? mediaType.toString() : MediaType.APPLICATION_JSON, tag, capture.toByteArray()));
+    }
+
+    private static Response replay(IdempotencyStore.Stored stored) {
+        Response.ResponseBuilder builder = Response.status(stored.getStatus())
+                .tag(stored.getTag())
+                .header("Idempotent-Replayed", "true");
+        if (stored.getContentType() != null) {
+            builder.entity(stored.getBody()).type(stored.getContentType());
+        }
+        return builder.build();
+    }
+
+    private static Response.ResponseBuilder error(int status, String message) {
+        return Response.status(status)
+                .type(MediaType.APPLICATION_JSON)
+                .entity(Map.of("error", message));
+    }
+
+    private static byte[] sha256(byte[] body) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(body);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * IdempotencyResource - Observability for the Idempotency-Key store
+ */
+@Admission(Admission.Level.EXEMPT)
+@Path("/idempotency")
+@Produces(MediaType.APPLICATION_JSON)
+public class IdempotencyResource {
+
+    @Inject
+    private IdempotencyStore store;
+
+    /**
+     * Stored keys, in-flight executions, replays and evictions
+     * GET /api/idempotency/stats
+     */
+    @GET
+    @Path("/stats")
+    public Response getStats() {
+        return Response.ok(store.getStats()).build();
+    }
+}
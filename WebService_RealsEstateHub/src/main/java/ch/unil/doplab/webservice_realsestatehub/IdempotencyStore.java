@@ -0,0 +1,186 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.core.EntityTag;
+
+import java.security.MessageDigest;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * IdempotencyStore - Responses of {@link Idempotent} requests by Idempotency-Key
+ * The first request with a key executes and its response is kept for a day;
+ * retries replay it, and duplicates arriving while it runs wait for it.
+ * A response that failed with 5xx is forgotten so the next retry executes
+ * again. Running and completed keys are kept apart: a running key is only
+ * dropped once it has run for a minute, and at most MAX_ENTRIES completed
+ * keys are kept, oldest first out.
+ */
+@ApplicationScoped
+public class IdempotencyStore {
+
+    static final int MAX_ENTRIES = 10_000;
+    static final int MAX_BODY_BYTES = 256 * 1024;
+    private static final long TTL_MILLIS = TimeUnit.HOURS.toMillis(24);
+    private static final long IN_FLIGHT_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
+    // Both in insertion order, which is also expiry order within each map
+    private final LinkedHashMap<String, Entry> running = new LinkedHashMap<>();
+    private final LinkedHashMap<String, Entry> completed = new LinkedHashMap<>();
+    private long executed;
+    private long replayed;
+    private long mismatches;
+    private long abandoned;
+    private long evictions;
+
+    /**
+     * Response kept for replay
+     */
+    public static final class Stored {
+        private final int status;
+        private final String contentType;
+        private final EntityTag tag;
+        private final byte[] body;
+
+        public Stored(int status, String contentType, EntityTag tag, byte[] body) {
+            this.status = status;
+            this.contentType = contentType;
+            this.tag = tag;
+            this.body = body;
+        }
+
+        public int getStatus() { return status; }
+        public String getContentType() { return contentType; }
+        public EntityTag getTag() { return tag; }
+        public byte[] getBody() { return body; }
+    }
+
+    /**
+     * One key: the request it was first used with and its (pending) response;
+     * the result is null when the first execution was abandoned
+     */
+    public static final class Entry {
+        private final String key;
+        private final byte[] fingerprint;
+        private final long createdAt = System.currentTimeMillis();
+        private long completedAt; // guarded by the store
+        private final CompletableFuture<Stored> result = new CompletableFuture<>();
+
+        private Entry(String key, byte[] fingerprint) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+        }
+
+        public boolean matches(byte[] fingerprint) {
+            return MessageDigest.isEqual(this.fingerprint, fingerprint);
+        }
+
+        private boolean expired(long now) {
+            return completedAt > 0 ? now - completedAt > TTL_MILLIS : now - createdAt > IN_FLIGHT_MILLIS;
+        }
+    }
+
+    public record Claim(Entry entry, boolean owner) {
+    }
+
+    /**
+     * Existing entry for the key, or a new in-flight one owned by the caller
+     */
+    public synchronized Claim claim(String key, byte[] fingerprint) {
+        long now = System.currentTimeMillis();
+        evictExpired(running, now);
+        evictExpired(completed, now);
+        Entry existing = completed.get(key);
+        if (existing == null) {
+            existing = running.get(key);
+        }
+        if (existing != null) {
+            if (!existing.matches(fingerprint)) {
+                mismatches++;
+            }
+            return new Claim(existing, false);
+        }
+        Entry entry = new Entry(key, fingerprint);
+        running.put(key, entry);
+        executed++;
+        return new Claim(entry, true);
+    }
+
+    /**
+     * Wait for the first execution; null when it was abandoned
+     */
+    public Stored await(Entry entry, long timeoutMillis) throws TimeoutException, InterruptedException {
+        try {
+            Stored stored = entry.result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            if (stored != null) {
+                synchronized (this) {
+                    replayed++;
+                }
+            }
+            return stored;
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    public void complete(Entry entry, Stored stored) {
+        synchronized (this) {
+            if (running.remove(entry.key, entry)) {
+                entry.completedAt = System.currentTimeMillis();
+                completed.put(entry.key, entry);
+                while (completed.size() > MAX_ENTRIES) {
+                    Iterator<Entry> oldest = completed.values().iterator();
+                    oldest.next();
+                    oldest.remove();
+                    evictions++;
+                }
+            }
+        }
+        entry.result.complete(stored);
+    }
+
+    /**
+     * Forget the key so the next request with it executes again
+     */
+    public void abandon(String key, Entry entry) {
+        synchronized (this) {
+            if (running.remove(key, entry) || completed.remove(key, entry)) {
+                abandoned++;
+            }
+        }
+        entry.result.complete(null);
+    }
+
+    /**
+     * Drop expired entries from the head of one map; a running entry only
+     * expires after IN_FLIGHT_MILLIS, its waiters then execute again
+     */
+    private void evictExpired(LinkedHashMap<String, Entry> entries, long now) {
+        Iterator<Entry> oldest = entries.values().iterator();
+        while (oldest.hasNext()) {
+            Entry entry = oldest.next();
+            if (!entry.expired(now)) break;
+            oldest.remove();
+            entry.result.complete(null);
+            evictions++;
+        }
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("keys", completed.size());
+        stats.put("inFlight", running.size());
+        stats.put("maxKeys", MAX_ENTRIES);
+        stats.put("executed", executed);
+        stats.put("replayed", replayed);
+        stats.put("mismatches", mismatches);
+        stats.put("abandoned", abandoned);
+        stats.put("evictions", evictions);
+        return stats;
+    }
+}
@@ -0,0 +1,12 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+/**
+ * Thrown when a username or email is already registered to another user
+ */
+public class IdentityConflictException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public IdentityConflictException(String message) {
+        super(message);
+    }
+}
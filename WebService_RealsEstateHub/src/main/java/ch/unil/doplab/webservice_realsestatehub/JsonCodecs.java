@@ -0,0 +1,255 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import ch.unil.doplab.Buyer;
+import ch.unil.doplab.Message;
+import ch.unil.doplab.Offer;
+import ch.unil.doplab.Property;
+import ch.unil.doplab.Seller;
+import ch.unil.doplab.User;
+import jakarta.json.Json;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.json.stream.JsonGeneratorFactory;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Hand-written JSON codecs for the domain entities, no reflection involved.
+ * The UTF-8 bytes of each entity are cached together with the version they
+ * were encoded from and reused until the entity's version changes.
+ * Output has the same properties JSON-B produces for these classes.
+ */
+public final class JsonCodecs {
+
+    private static final byte[] OPEN = {'['};
+    private static final byte[] COMMA = {','};
+    private static final byte[] CLOSE = {']'};
+
+    private static final Map<UUID, Encoded> CACHE = new ConcurrentHashMap<>();
+    // Json.createGenerator looks the provider up on every call
+    private static final JsonGeneratorFactory GENERATORS = Json.createGeneratorFactory(Map.of());
+
+    private record Encoded(long version, byte[] bytes) {
+    }
+
+    private interface Codec<T> {
+        void write(JsonGenerator json, T entity);
+    }
+
+    private JsonCodecs() {
+    }
+
+    public static boolean supports(Class<?> type) {
+        return Property.class.isAssignableFrom(type) || Offer.class.isAssignableFrom(type)
+                || Buyer.class.isAssignableFrom(type) || Seller.class.isAssignableFrom(type);
+    }
+
+    /**
+     * Encoded bytes of a supported entity
+     * @throws IllegalArgumentException for any other type
+     */
+    public static byte[] encode(Object entity) {
+        if (entity instanceof Property property) {
+            return cached(property.getPropertyId(), property::getVersion, property, JsonCodecs::writeProperty);
+        }
+        if (entity instanceof Offer offer) {
+            return cached(offer.getOfferId(), offer::getVersion, offer, JsonCodecs::writeOffer);
+        }
+        if (entity instanceof Buyer buyer) {
+            return cached(buyer.getUserID(), buyer::getVersion, buyer, JsonCodecs::writeBuyer);
+        }
+        if (entity instanceof Seller seller) {
+            return cached(seller.getUserID(), seller::getVersion, seller, JsonCodecs::writeSeller);
+        }
+        throw new IllegalArgumentException("No JSON codec for " + (entity == null ? "null" : entity.getClass()));
+    }
+
+    /**
+     * Stream a JSON array of supported entities from their cached bytes
+     */
+    public static StreamingOutput array(Collection<?> entities) {
+        return out -> {
+            out.write(OPEN);
+            boolean first = true;
+            for (Object entity : entities) {
+                if (!first) out.write(COMMA);
+                out.write(encode(entity));
+                first = false;
+            }
+            out.write(CLOSE);
+        };
+    }
+
+    /**
+     * Encoded bytes of a property, reused from the cache when current but never
+     * stored in it, so a one-off pass over the catalog does not fill the cache
+     */
+    public static byte[] encodeTransient(Property property) {
+        Encoded encoded = CACHE.get(property.getPropertyId());
+        if (encoded != null && encoded.version == property.getVersion()) {
+            return encoded.bytes;
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(512);
+        try (JsonGenerator json = GENERATORS.createGenerator(buffer)) {
+            writeProperty(json, property);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Generator over a response stream, from the shared factory
+     */
+    static JsonGenerator generator(OutputStream out) {
+        return GENERATORS.createGenerator(out);
+    }
+
+    /**
+     * Drop the cached bytes of a removed entity
+     */
+    public static void evict(UUID id) {
+        if (id != null) {
+            CACHE.remove(id);
+        }
+    }
+
+    private static <T> byte[] cached(UUID id, LongSupplier version, T entity, Codec<T> codec) {
+        long before = version.getAsLong();
+        Encoded encoded = CACHE.get(id);
+        if (encoded != null && encoded.version == before) {
+            return encoded.bytes;
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(512);
+        try (JsonGenerator json = GENERATORS.createGenerator(buffer)) {
+            codec.write(json, entity);
+        }
+        byte[] bytes = buffer.toByteArray();
+        // Only cache if nothing changed while encoding, the bytes may mix two versions otherwise
+        if (version.getAsLong() == before) {
+            CACHE.put(id, new Encoded(before, bytes));
+        }
+        return bytes;
+    }
+
+    static void writeProperty(JsonGenerator json, Property property) {
+        PropertyJsonWriter.forFields(null).write(json, property);
+    }
+
+    private static void writeOffer(JsonGenerator json, Offer offer) {
+        json.writeStartObject();
+        writeUuid(json, "offerId", offer.getOfferId());
+        writeUuid(json, "propertyId", offer.getPropertyId());
+        writeUuid(json, "buyerId", offer.getBuyerId());
+        json.write("amount", offer.getAmount());
+        writeTime(json, "createdAt", offer.getCreatedAt());
+        if (offer.getStatus() != null) json.write("status", offer.getStatus().name());
+        json.write("version", offer.getVersion());
+        json.writeEnd();
+    }
+
+    private static void writeBuyer(JsonGenerator json, Buyer buyer) {
+        json.writeStartObject();
+        writeUserFields(json, buyer);
+        json.write("budget", buyer.getBudget());
+        writeStrings(json, "propertyTypesOfInterest", buyer.getPropertyTypesOfInterest());
+        writeStrings(json, "propertyTypeOfInterest", buyer.getPropertyTypeOfInterest());
+        writeStrings(json, "documents", buyer.getDocuments());
+        json.writeEnd();
+    }
+
+    private static void writeSeller(JsonGenerator json, Seller seller) {
+        json.writeStartObject();
+        writeUserFields(json, seller);
+        json.writeStartArray("ownedProperties");
+        for (Property property : seller.getOwnedProperties()) {
+            writeProperty(json, property);
+        }
+        json.writeEnd();
+        json.writeStartArray("receivedOffers");
+        for (Offer offer : seller.getReceivedOffers()) {
+            writeOffer(json, offer);
+        }
+        json.writeEnd();
+        json.writeEnd();
+    }
+
+    private static void writeUserFields(JsonGenerator json, User user) {
+        writeUuid(json, "userID", user.getUserID());
+        writeString(json, "username", user.getUsername());
+        writeString(json, "password", user.getPassword());
+        writeString(json, "firstName", user.getFirstName());
+        writeString(json, "lastName", user.getLastName());
+        writeString(json, "fullName", user.getFullName());
+        writeString(json, "email", user.getEmail());
+        writeString(json, "role", user.getRole());
+        writeStrings(json, "preferredLocations", user.getPreferredLocations());
+        writeStrings(json, "savedProperties", user.getSavedProperties());
+        json.writeStartArray("savedPropertyIds");
+        for (UUID id : user.getSavedPropertyIds()) {
+            json.write(id.toString());
+        }
+        json.writeEnd();
+        json.write("savedPropertyCount", user.getSavedPropertyCount());
+        json.writeStartArray("messages");
+        // Read flags come from this user's mailbox, whose changes advance its version;
+        // the message's own isRead is the recipient's and would go stale in the sender's bytes
+        List<Message> messages = user.getMessages();
+        for (int i = 0; i < messages.size(); i++) {
+            writeMessage(json, messages.get(i), user.isMessageRead(i));
+        }
+        json.writeEnd();
+        json.write("unreadCount", user.getUnreadCount());
+        json.write("version", user.getVersion());
+    }
+
+    private static void writeMessage(JsonGenerator json, Message message, boolean read) {
+        json.writeStartObject();
+        writeUuid(json, "messageId", message.getMessageId());
+        writeUuid(json, "senderId", message.getSenderId());
+        writeUuid(json, "recipientId", message.getRecipientId());
+        writeString(json, "subject", message.getSubject());
+        writeString(json, "content", message.getContent());
+        writeTime(json, "sentAt", message.getSentAt());
+        writeUuid(json, "conversationId", message.getConversationId());
+        writeUuid(json, "propertyId", message.getPropertyId());
+        writeUuid(json, "offerId", message.getOfferId());
+        json.write("read", read);
+        json.writeEnd();
+    }
+
+    private static void writeStrings(JsonGenerator json, String name, List<String> values) {
+        if (values == null) return;
+        json.writeStartArray(name);
+        for (String value : values) {
+            if (value == null) json.writeNull();
+            else json.write(value);
+        }
+        json.writeEnd();
+    }
+
+    static void writeString(JsonGenerator json, String name, String value) {
+        if (value != null) {
+            json.write(name, value);
+        }
+    }
+
+    static void writeUuid(JsonGenerator json, String name, UUID value) {
+        if (value != null) {
+            json.write(name, value.toString());
+        }
+    }
+
+    static void writeTime(JsonGenerator json, String name, LocalDateTime value) {
+        if (value != null) {
+            json.write(name, DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(value));
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import ch.unil.doplab.ConversationSummary;
+import ch.unil.doplab.Message;
+import ch.unil.doplab.MessagePage;
+import ch.unil.doplab.User;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import java.util.*;
+
+/**
+ * MessageResource - Messaging between buyers and sellers
+ * Inbox and conversation pages are served newest-first with an opaque cursor
+ */
+@Path("/users/{userId}")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public class MessageResource {
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+
+    @Inject
+    private ApplicationState state;
+
+    @Inject
+    private EventBroadcaster events;
+
+    /**
+     * Send a message to another user
+     * POST /api/users/{userId}/messages
+     */
+    @POST
+    @Path("/messages")
+    public Response sendMessage(@PathParam("userId") String userId, MessageDTO dto) {
+        try {
+            User sender = state.getUserById(UUID.fromString(userId));
+            if (sender == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity(new ErrorResponse("User not found"))
+                        .build();
+            }
+            User recipient = dto.getRecipientId() != null ? state.getUserById(dto.getRecipientId()) : null;
+            if (recipient == null) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse("Recipient not found"))
+                        .build();
+            }
+
+            Message message = sender.sendMessage(recipient, dto.getSubject(), dto.getContent(),
+                    dto.getPropertyId(), dto.getOfferId());
+            events.publish(recipient.getUserID(), "message", null, message);
+
+            return Response.status(Response.Status.CREATED)
+                    .entity(message)
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse("Invalid user ID"))
+                    .build();
+        }
+    }
+
+    /**
+     * Get one page of received messages, newest first
+     * GET /api/users/{userId}/inbox?cursor=&limit=20
+     */
+    @GET
+    @Path("/inbox")
+    public Response getInbox(@PathParam("userId") String userId,
+                             @QueryParam("cursor") Integer cursor,
+                             @QueryParam("limit") @DefaultValue("20") int limit) {
+        try {
+            User user = state.getUserById(UUID.fromString(userId));
+            if (user == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity(new ErrorResponse("User not found"))
+                        .build();
+            }
+
+            int pageSize = limit <= 0 ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+            MessagePage page = user.getInboxPage(cursor, pageSize);
+
+            return Response.ok(page).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse("Invalid user ID or cursor"))
+                    .build();
+        }
+    }
+
+    /**
+     * List conversations by latest message, newest first
+     * GET /api/users/{userId}/conversations?cursor=&limit=20
+     */
+    @GET
+    @Path("/conversations")
+    public Response getConversations(@PathParam("userId") String userId,
+                                     @QueryParam("cursor") Integer cursor,
+                                     @QueryParam("limit") @DefaultValue("20") int limit) {
+        try {
+            User user = state.getUserById(UUID.fromString(userId));
+            if (user == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity(new ErrorResponse("User not found"))
+                        .build();
+            }
+
+            int pageSize = limit <= 0 ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+            List<ConversationSummary> conversations = user.getConversations(cursor, pageSize);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("conversations", conversations);
+            response.put("nextCursor", conversations.size() == pageSize
+                    ? conversations.get(conversations.size() - 1).getActivity()
+                    : null);
+            return Response.ok(response).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse("Invalid user ID"))
+                    .build();
+        }
+    }
+
+    /**
+     * Get one page of a conversation, newest first
+     * GET /api/users/{userId}/conversations/{conversationId}?cursor=&limit=20
+     */
+    @GET
+    @Path("/conversations/{conversationId}")
+    public Response getConversation(@PathParam("userId") String userId,
+                                    @PathParam("conversationId") String conversationId,
+                                    @QueryParam("cursor") Integer cursor,
+                                    @QueryParam("limit") @DefaultValue("20") int limit) {
+        try {
+            User user = state.getUserById(UUID.fromString(userId));
+            if (user == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity(new ErrorResponse("User not found"))
+                        .build();
+            }
+
+            int pageSize = limit <= 0 ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+            MessagePage page = user.getConversationPage(UUID.fromString(conversationId), cursor, pageSize);
+
+            return Response.ok(page).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse("Invalid user ID, conversation ID or cursor"))
+                    .build();
+        }
+    }
+
+    /**
+     * Get the unread badge count
+     * GET /api/users/{userId}/inbox/unread-count
+     */
+    @GET
+    @Path("/inbox/unread-count")
+    public Response getUnreadCount(@PathParam("userId") String userId) {
+        try {
+            User user = state.getUserById(UUID.fromString(userId));
+            if (user == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity(new ErrorResponse("User not found"))
+                        .build();
+            }
+
+            return Response.ok(Map.of("unreadCount", user.getUnreadCount())).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse("Invalid user ID"))
+                    .build();
+        }
+    }
+
+    /**
+     * Mark several (or all) received messages as read
+     * POST /api/users/{userId}/inbox/read
+     */
+    @POST
+    @Path("/inbox/read")
+    public Response markAsRead(@PathParam("userId") String userId, MarkReadDTO dto) {
+        try {
+            User user = state.getUserById(UUID.fromString(userId));
+            if (user == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity(new ErrorResponse("User not found"))
+                        .build();
+            }
+
+            int marked;
+            if (dto != null && dto.isAll()) {
+                marked = user.markAllMessagesAsRead();
+            } else if (dto != null && dto.getMessageIds() != null) {
+                marked = user.markMessagesAsRead(dto.getMessageIds());
+            } else {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse("Provide messageIds or all=true"))
+                        .build();
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("marked", marked);
+            response.put("unreadCount", user.getUnreadCount());
+            return Response.ok(response).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse("Invalid user ID"))
+                    .build();
+        }
+    }
+
+    // DTOs
+    public static class MessageDTO {
+        private UUID recipientId;
+        private String subject;
+        private String content;
+        private UUID propertyId; // optional conversation context
+        private UUID offerId;    // optional conversation context
+
+        public UUID getRecipientId() { return recipientId; }
+        public void setRecipientId(UUID recipientId) { this.recipientId = recipientId; }
+
+        public String getSubject() { return subject; }
+        public void setSubject(String subject) { this.subject = subject; }
+
+        public String getContent() { return content; }
+        public void setContent(String content) { this.content = content; }
+
+        public UUID getPropertyId() { return propertyId; }
+        public void setPropertyId(UUID propertyId) { this.propertyId = propertyId; }
+
+        public UUID getOfferId() { return offerId; }
+        public void setOfferId(UUID offerId) { this.offerId = offerId; }
+    }
+
+    public static class MarkReadDTO {
+        private List<UUID> messageIds;
+        private boolean all;
+
+        public List<UUID> getMessageIds() { return messageIds; }
+        public void setMessageIds(List<UUID> messageIds) { this.messageIds = messageIds; }
+
+        public boolean isAll() { return all; }
+        public void setAll(boolean all) { this.all = all; }
+    }
+
+    public static class ErrorResponse {
+        private String error;
+        public ErrorResponse(String error) { this.error = error; }
+        public String getError() { return error; }
+    }
+}
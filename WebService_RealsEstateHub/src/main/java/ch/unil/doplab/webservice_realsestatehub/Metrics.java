@@ -0,0 +1,164 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics - Request latency and counters per resource method, in Prometheus text format
+ * Quantiles cover the last one to two minutes (two rotating histograms);
+ * counts and sums are totals since start.
+ */
+@ApplicationScoped
+public class Metrics {
+
+    private static final long WINDOW_NANOS = 60_000_000_000L;
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    @Inject
+    private ApplicationState state;
+
+    @Inject
+    private ResourceExecutors executors;
+
+    @Inject
+    private AdmissionController admission;
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * Counters of one resource method
+     */
+    public static final class Endpoint {
+        private volatile LatencyHistogram current = new LatencyHistogram();
+        private volatile LatencyHistogram previous;
+        private volatile long rotatedAt = System.nanoTime();
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sumNanos = new LongAdder();
+        private final AtomicLongArray statusClasses = new AtomicLongArray(6); // index 1..5 for 1xx..5xx
+
+        public void record(long nanos, int status) {
+            current.record(nanos);
+            count.increment();
+            sumNanos.add(nanos);
+            int statusClass = status / 100;
+            if (statusClass >= 1 && statusClass <= 5) {
+                statusClasses.incrementAndGet(statusClass);
+            }
+        }
+
+        private synchronized LatencyHistogram[] window(long now) {
+            if (now - rotatedAt >= WINDOW_NANOS) {
+                previous = current;
+                current = new LatencyHistogram();
+                rotatedAt = now;
+            }
+            return new LatencyHistogram[]{current, previous};
+        }
+    }
+
+    public Endpoint endpoint(String name) {
+        Endpoint endpoint = endpoints.get(name);
+        return endpoint != null ? endpoint : endpoints.computeIfAbsent(name, n -> new Endpoint());
+    }
+
+    public String renderPrometheus() {
+        StringBuilder out = new StringBuilder(4096);
+        long now = System.nanoTime();
+        Map<String, Endpoint> sorted = new TreeMap<>(endpoints);
+
+        out.append("# HELP realestatehub_request_duration_seconds Resource method latency until the response is ready\n");
+        out.append("# TYPE realestatehub_request_duration_seconds summary\n");
+        for (Map.Entry<String, Endpoint> entry : sorted.entrySet()) {
+            String label = "endpoint=\"" + entry.getKey() + "\"";
+            Endpoint endpoint = entry.getValue();
+            long[] values = LatencyHistogram.quantiles(QUANTILES, endpoint.window(now));
+            for (int i = 0; i < QUANTILES.length; i++) {
+                out.append("realestatehub_request_duration_seconds{").append(label)
+                        .append(",quantile=\"").append(QUANTILES[i]).append("\"} ")
+                        .append(seconds(values[i])).append('\n');
+            }
+            out.append("realestatehub_request_duration_seconds_sum{").append(label).append("} ")
+                    .append(seconds(endpoint.sumNanos.sum())).append('\n');
+            out.append("realestatehub_request_duration_seconds_count{").append(label).append("} ")
+                    .append(endpoint.count.sum()).append('\n');
+        }
+
+        out.append("# HELP realestatehub_responses_total Responses by resource method and status class\n");
+        out.append("# TYPE realestatehub_responses_total counter\n");
+        for (Map.Entry<String, Endpoint> entry : sorted.entrySet()) {
+            for (int statusClass = 1; statusClass <= 5; statusClass++) {
+                long count = entry.getValue().statusClasses.get(statusClass);
+                if (count == 0) continue;
+                out.append("realestatehub_responses_total{endpoint=\"").append(entry.getKey())
+                        .append("\",status=\"").append(statusClass).append("xx\"} ").append(count).append('\n');
+            }
+        }
+
+        out.append("# HELP realestatehub_entities Entities held in ApplicationState\n");
+        out.append("# TYPE realestatehub_entities gauge\n");
+        gauge(out, "realestatehub_entities{type=\"property\"}", state.getProperties().size());
+        gauge(out, "realestatehub_entities{type=\"offer\"}", state.getOffers().size());
+        gauge(out, "realestatehub_entities{type=\"buyer\"}", state.getBuyers().size());
+        gauge(out, "realestatehub_entities{type=\"seller\"}", state.getSellers().size());
+
+        out.append("# HELP realestatehub_catalog_version Current catalog version\n");
+        out.append("# TYPE realestatehub_catalog_version gauge\n");
+        gauge(out, "realestatehub_catalog_version", state.getCatalogVersion());
+
+        out.append("# HELP realestatehub_email_queue_depth Email notifications waiting for a retry\n");
+        out.append("# TYPE realestatehub_email_queue_depth gauge\n");
+        gauge(out, "realestatehub_email_queue_depth", EmailNotificationService.getQueueDepth());
+
+        out.append("# HELP realestatehub_executor_active Tasks running in each bulkhead lane\n");
+        out.append("# TYPE realestatehub_executor_active gauge\n");
+        for (ResourceExecutors.Lane lane : ResourceExecutors.Lane.values()) {
+            gauge(out, "realestatehub_executor_active{lane=\"" + lane.label() + "\"}", executors.getActive(lane));
+        }
+        out.append("# HELP realestatehub_executor_queued Tasks waiting in each bulkhead lane\n");
+        out.append("# TYPE realestatehub_executor_queued gauge\n");
+        for (ResourceExecutors.Lane lane : ResourceExecutors.Lane.values()) {
+            gauge(out, "realestatehub_executor_queued{lane=\"" + lane.label() + "\"}", executors.getQueued(lane));
+        }
+        out.append("# HELP realestatehub_executor_saturation Share of a lane's threads and queue in use\n");
+        out.append("# TYPE realestatehub_executor_saturation gauge\n");
+        for (ResourceExecutors.Lane lane : ResourceExecutors.Lane.values()) {
+            out.append("realestatehub_executor_saturation{lane=\"").append(lane.label()).append("\"} ")
+                    .append(String.format(Locale.ROOT, "%.4f", executors.getSaturation(lane))).append('\n');
+        }
+        out.append("# HELP realestatehub_executor_rejected_total Tasks refused because their lane was full\n");
+        out.append("# TYPE realestatehub_executor_rejected_total counter\n");
+        for (ResourceExecutors.Lane lane : ResourceExecutors.Lane.values()) {
+            gauge(out, "realestatehub_executor_rejected_total{lane=\"" + lane.label() + "\"}", executors.getRejected(lane));
+        }
+
+        out.append("# HELP realestatehub_admission_limit Adaptive limit on requests in flight\n");
+        out.append("# TYPE realestatehub_admission_limit gauge\n");
+        gauge(out, "realestatehub_admission_limit", admission.getLimit());
+        out.append("# HELP realestatehub_admission_in_flight Admitted requests still running\n");
+        out.append("# TYPE realestatehub_admission_in_flight gauge\n");
+        gauge(out, "realestatehub_admission_in_flight", admission.getInFlight());
+        out.append("# HELP realestatehub_admission_rejected_total Requests refused with 503 by priority class\n");
+        out.append("# TYPE realestatehub_admission_rejected_total counter\n");
+        for (Admission.Level level : Admission.Level.values()) {
+            if (level == Admission.Level.EXEMPT) continue;
+            gauge(out, "realestatehub_admission_rejected_total{priority=\"" + level.name().toLowerCase(Locale.ROOT) + "\"}",
+                    admission.getRejected(level));
+        }
+        return out.toString();
+    }
+
+    private static void gauge(StringBuilder out, String name, long value) {
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+}
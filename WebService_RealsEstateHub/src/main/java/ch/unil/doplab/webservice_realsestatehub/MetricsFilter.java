@@ -0,0 +1,53 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.ext.Provider;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Times every matched resource method into {@link Metrics}.
+ * Runs first on the way in and last on the way out, so cache hits and
+ * other aborted requests are counted too.
+ */
+@Provider
+@Priority(100)
+public class MetricsFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    private static final String START = MetricsFilter.class.getName() + ".start";
+
+    @Inject
+    private Metrics metrics;
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    private final Map<Method, Metrics.Endpoint> byMethod = new ConcurrentHashMap<>();
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        request.setProperty(START, System.nanoTime());
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        Object start = request.getProperty(START);
+        if (!(start instanceof Long started)) return;
+        long elapsed = System.nanoTime() - started;
+        Method method = resourceInfo.getResourceMethod();
+        Metrics.Endpoint endpoint = method == null
+                ? metrics.endpoint("unmatched")
+                : byMethod.computeIfAbsent(method, m ->
+                        metrics.endpoint(resourceInfo.getResourceClass().getSimpleName() + "." + m.getName()));
+        endpoint.record(elapsed, response.getStatus());
+    }
+}
@@ -0,0 +1,30 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * MetricsResource - Prometheus scrape endpoint
+ */
+@Admission(Admission.Level.EXEMPT)
+@Path("/metrics")
+public class MetricsResource {
+
+    private static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4; charset=utf-8";
+
+    @Inject
+    private Metrics metrics;
+
+    /**
+     * Latency summaries, response counters and gauges
+     * GET /api/metrics
+     */
+    @GET
+    @Produces(PROMETHEUS_TEXT)
+    public Response scrape() {
+        return Response.ok(metrics.renderPrometheus()).build();
+    }
+}
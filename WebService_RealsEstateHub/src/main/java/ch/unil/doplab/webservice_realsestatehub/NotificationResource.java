@@ -0,0 +1,26 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * NotificationResource - Observability for outbound email notifications
+ */
+@Admission(Admission.Level.EXEMPT)
+@Path("/notifications")
+@Produces(MediaType.APPLICATION_JSON)
+public class NotificationResource {
+
+    /**
+     * Rate limiter, circuit breaker and retry queue counters
+     * GET /api/notifications/stats
+     */
+    @GET
+    @Path("/stats")
+    public Response getStats() {
+        return Response.ok(EmailNotificationService.getStats()).build();
+    }
+}
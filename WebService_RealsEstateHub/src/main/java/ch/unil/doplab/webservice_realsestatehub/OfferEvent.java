@@ -0,0 +1,56 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import ch.unil.doplab.Offer;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for offer creation and status transitions in OfferResource
+ */
+@Name("ch.unil.doplab.Offer")
+@Label("Offer")
+@Category({"RealEstateHub", "Offers"})
+@Description("An offer created or moved to another status")
+@StackTrace(false)
+class OfferEvent extends jdk.jfr.Event {
+
+    @Label("Action")
+    @Description("create or transition")
+    String action;
+
+    @Label("Offer ID")
+    String offerId;
+
+    @Label("Property ID")
+    String propertyId;
+
+    @Label("From Status")
+    String fromStatus;
+
+    @Label("To Status")
+    String toStatus;
+
+    @Label("Amount")
+    double amount;
+
+    static OfferEvent start() {
+        OfferEvent event = new OfferEvent();
+        event.begin();
+        return event;
+    }
+
+    void end(String action, Offer offer, Offer.Status from) {
+        if (shouldCommit()) {
+            this.action = action;
+            this.offerId = String.valueOf(offer.getOfferId());
+            this.propertyId = String.valueOf(offer.getPropertyId());
+            this.fromStatus = from != null ? from.name() : null;
+            this.toStatus = offer.getStatus() != null ? offer.getStatus().name() : null;
+            this.amount = offer.getAmount();
+            commit();
+        }
+    }
+}
@@ -2,12 +2,18 @@ package ch.unil.doplab.webservice_realsestatehub;
 
 import ch.unil.doplab.Offer;
 import ch.unil.doplab.Buyer;
+import ch.unil.doplab.Property;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 @Path("/offers")
 @Produces(MediaType.APPLICATION_JSON)
@@ -17,11 +23,18 @@ public class OfferResource {
     @Inject
     private ApplicationState state;
 
+    @Inject
+    private EventBroadcaster events;
+
+    @Inject
+    private ResourceExecutors executors;
+
     /**
      * Create a new offer
-     * POST /api/offers
+     * POST /api/offers (retries may repeat the Idempotency-Key header)
      */
     @POST
+    @Idempotent
     public Response createOffer(OfferDTO dto) {
         try {
             if (dto.getAmount() <= 0) {
@@ -30,16 +43,20 @@ public class OfferResource {
                         .build();
             }
             
+            OfferEvent event = OfferEvent.start();
             Offer offer = new Offer(
                     dto.getPropertyId(),
                     dto.getBuyerId(),
                     dto.getAmount()
             );
             
-            state.getOffers().put(offer.getOfferId(), offer);
+            state.addOffer(offer);
+            publishOfferEvent(offer, "offer-created", null);
+            event.end("create", offer, null);
             
             return Response.status(Response.Status.CREATED)
                     .entity(offer)
+                    .tag(EntityTags.forVersion(offer.getVersion()))
                     .build();
         } catch (Exception e) {
             return Response.status(Response.Status.BAD_REQUEST)
@@ -53,8 +70,31 @@ public class OfferResource {
      * GET /api/offers
      */
     @GET
-    public Response getAllOffers() {
-        return Response.ok(new ArrayList<>(state.getOffers().values())).build();
+    @Admission(Admission.Level.BULK)
+    public Response getAllOffers(@Context Request request) {
+        EntityTag tag = EntityTags.forCatalog(state.getCatalogVersion());
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null) {
+            return notModified.build();
+        }
+        return Response.ok(JsonCodecs.array(state.getOffers().values())).tag(tag).build();
+    }
+
+    /**
+     * Get many offers in one call, hits and missing ids
+     * POST /api/offers/batch-get
+     */
+    @POST
+    @Path("/batch-get")
+    @Admission(Admission.Level.BULK)
+    public Response batchGet(BatchGet.IdsDTO dto) {
+        try {
+            return Response.ok(BatchGet.resolve(BatchGet.parse(dto), state.getOffers())).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse(e.getMessage()))
+                    .build();
+        }
     }
 
     /**
@@ -63,7 +103,7 @@ public class OfferResource {
      */
     @GET
     @Path("/{id}")
-    public Response getOfferById(@PathParam("id") String id) {
+    public Response getOfferById(@PathParam("id") String id, @Context Request request) {
         try {
             UUID offerId = UUID.fromString(id);
             Offer offer = state.getOfferById(offerId);
@@ -74,7 +114,12 @@ public class OfferResource {
                         .build();
             }
             
-            return Response.ok(offer).build();
+            EntityTag tag = EntityTags.forVersion(offer.getVersion());
+            Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+            if (notModified != null) {
+                return notModified.build();
+            }
+            return Response.ok(offer).tag(tag).build();
         } catch (IllegalArgumentException e) {
             return Response.status(Response.Status.BAD_REQUEST)
                     .entity(new ErrorResponse("Invalid offer ID"))
@@ -83,61 +128,86 @@ public class OfferResource {
     }
 
     /**
-     * Update offer status (accept/reject)
+     * Update offer status (accept/reject); with If-Match only if the offer is still at that version
      * PUT /api/offers/{id}/status
      */
     @PUT
     @Path("/{id}/status")
-    public Response updateOfferStatus(@PathParam("id") String id, StatusDTO statusDto) {
+    public CompletionStage<Response> updateOfferStatus(@PathParam("id") String id, StatusDTO statusDto,
+                                                       @Context Request request) {
         try {
             UUID offerId = UUID.fromString(id);
-            Offer offer = state.getOfferById(offerId);
-            
-            if (offer == null) {
-                return Response.status(Response.Status.NOT_FOUND)
-                        .entity(new ErrorResponse("Offer not found"))
-                        .build();
-            }
-            
-            // Store old status for email notification
-            Offer.Status oldStatus = offer.getStatus();
             Offer.Status newStatus = Offer.Status.valueOf(statusDto.getStatus());
-            offer.setStatus(newStatus);
-            
-            // Get buyer's email from ApplicationState
-            String buyerEmail = "nikhilesh.acharya@unil.ch"; // Default fallback
-            try {
-                Buyer buyer = state.getBuyerById(offer.getBuyerId());
-                if (buyer != null && buyer.getEmail() != null) {
-                    buyerEmail = buyer.getEmail();
-                }
-            } catch (Exception e) {
-                System.out.println("Could not fetch buyer email, using default");
-            }
-            
-            boolean emailSent = EmailNotificationService.sendOfferStatusNotification(
-                offerId.toString(),
-                offer.getPropertyId().toString(),
-                oldStatus.toString(),
-                newStatus.toString(),
-                buyerEmail,
-                "seller@realestatehub.com" // Default seller email
-            );
-            
-            // Add email status to response
-            Map<String, Object> response = new HashMap<>();
-            response.put("offer", offer);
-            response.put("emailNotificationSent", emailSent);
-            response.put("message", emailSent ? 
-                "Offer status updated and email notifications sent via external API" : 
-                "Offer status updated but email notification failed");
-            
-            return Response.ok(response).build();
+            return executors.submit(ResourceExecutors.Lane.WRITE,
+                            () -> transitionOffer(offerId, newStatus, request),
+                            () -> CompletableFuture.completedFuture(ResourceExecutors.busy()))
+                    .thenCompose(response -> response);
         } catch (IllegalArgumentException e) {
-            return Response.status(Response.Status.BAD_REQUEST)
+            return CompletableFuture.completedFuture(Response.status(Response.Status.BAD_REQUEST)
                     .entity(new ErrorResponse("Invalid status. Use: PENDING, ACCEPTED, REJECTED, WITHDRAWN"))
-                    .build();
+                    .build());
+        }
+    }
+
+    private CompletionStage<Response> transitionOffer(UUID offerId, Offer.Status newStatus, Request request) {
+        Offer offer = state.getOfferById(offerId);
+        
+        if (offer == null) {
+            return CompletableFuture.completedFuture(Response.status(Response.Status.NOT_FOUND)
+                    .entity(new ErrorResponse("Offer not found"))
+                    .build());
+        }
+        
+        // Store old status for email notification
+        Offer.Status oldStatus;
+        OfferEvent event = OfferEvent.start();
+        synchronized (offer) {
+            Response.ResponseBuilder conflict =
+                    request.evaluatePreconditions(EntityTags.forVersion(offer.getVersion()));
+            if (conflict != null) {
+                return CompletableFuture.completedFuture(
+                        conflict.entity(new ErrorResponse("Offer was modified, reload it and retry")).build());
+            }
+            oldStatus = offer.getStatus();
+            offer.setStatus(newStatus);
+        }
+        publishOfferEvent(offer, "offer-status", "offer:" + offer.getOfferId());
+        event.end("transition", offer, oldStatus);
+        
+        // Get buyer's email from ApplicationState
+        String buyerEmail = "nikhilesh.acharya@unil.ch"; // Default fallback
+        try {
+            Buyer buyer = state.getBuyerById(offer.getBuyerId());
+            if (buyer != null && buyer.getEmail() != null) {
+                buyerEmail = buyer.getEmail();
+            }
+        } catch (Exception e) {
+            System.out.println("Could not fetch buyer email, using default");
         }
+        
+        // The provider call blocks, so it runs on the notification lane; a full lane counts as not sent
+        String recipient = buyerEmail;
+        return executors.submit(ResourceExecutors.Lane.NOTIFICATION,
+                () -> EmailNotificationService.sendOfferStatusNotification(
+                    offerId.toString(),
+                    offer.getPropertyId().toString(),
+                    oldStatus.toString(),
+                    newStatus.toString(),
+                    recipient,
+                    "seller@realestatehub.com" // Default seller email
+                ),
+                () -> false)
+                .thenApply(emailSent -> {
+                    // Add email status to response
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("offer", offer);
+                    response.put("emailNotificationSent", emailSent);
+                    response.put("message", emailSent ? 
+                        "Offer status updated and email notifications sent via external API" : 
+                        "Offer status updated but email notification failed");
+                    
+                    return Response.ok(response).tag(EntityTags.forVersion(offer.getVersion())).build();
+                });
     }
 
     /**
@@ -149,7 +219,7 @@ public class OfferResource {
     public Response deleteOffer(@PathParam("id") String id) {
         try {
             UUID offerId = UUID.fromString(id);
-            Offer removed = state.getOffers().remove(offerId);
+            Offer removed = state.removeOffer(offerId);
             
             if (removed == null) {
                 return Response.status(Response.Status.NOT_FOUND)
@@ -173,18 +243,38 @@ public class OfferResource {
      */
     @GET
     @Path("/property/{propertyId}")
-    public Response getOffersByProperty(@PathParam("propertyId") String propertyId) {
+    @CachedResponse
+    @Admission(Admission.Level.BULK)
+    public CompletionStage<Response> getOffersByProperty(@PathParam("propertyId") String propertyId,
+                                                         @Context Request request) {
         try {
             UUID propId = UUID.fromString(propertyId);
-            List<Offer> propertyOffers = state.getOffers().values().stream()
-                    .filter(o -> o.getPropertyId().equals(propId))
-                    .toList();
-            
-            return Response.ok(propertyOffers).build();
+            EntityTag tag = EntityTags.forCatalog(state.getCatalogVersion());
+            Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+            if (notModified != null) {
+                return CompletableFuture.completedFuture(notModified.build());
+            }
+            return executors.submit(ResourceExecutors.Lane.READ, () -> {
+                List<Offer> propertyOffers = state.getOffers().values().stream()
+                        .filter(o -> o.getPropertyId().equals(propId))
+                        .toList();
+                return Response.ok(JsonCodecs.array(propertyOffers)).tag(tag).build();
+            });
         } catch (IllegalArgumentException e) {
-            return Response.status(Response.Status.BAD_REQUEST)
+            return CompletableFuture.completedFuture(Response.status(Response.Status.BAD_REQUEST)
                     .entity(new ErrorResponse("Invalid property ID"))
-                    .build();
+                    .build());
+        }
+    }
+
+    /**
+     * Push an offer event to the buyer and to the owner of the property
+     */
+    private void publishOfferEvent(Offer offer, String type, String key) {
+        events.publish(offer.getBuyerId(), type, key, offer);
+        Property property = state.getPropertyById(offer.getPropertyId());
+        if (property != null && property.getOwnerId() != null) {
+            events.publish(property.getOwnerId(), type, key, offer);
         }
     }
 
@@ -0,0 +1,85 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import java.util.*;
+
+/**
+ * PriceAlertResource - Price-drop alert settings and history for saved properties
+ */
+@Path("/users/{userId}/price-alerts")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public class PriceAlertResource {
+
+    @Inject
+    private ApplicationState state;
+
+    @Inject
+    private PriceDropWatcher watcher;
+
+    /**
+     * Get the alert threshold and the most recent alerts
+     * GET /api/users/{userId}/price-alerts
+     */
+    @GET
+    public Response getAlerts(@PathParam("userId") String userId) {
+        try {
+            UUID id = UUID.fromString(userId);
+            if (state.getUserById(id) == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity(new ErrorResponse("User not found"))
+                        .build();
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("minDropPercent", watcher.getThreshold(id));
+            response.put("alerts", watcher.getRecentAlerts(id));
+            return Response.ok(response).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse("Invalid user ID"))
+                    .build();
+        }
+    }
+
+    /**
+     * Set the minimum price drop (in percent) that triggers an alert
+     * PUT /api/users/{userId}/price-alerts
+     */
+    @PUT
+    public Response setThreshold(@PathParam("userId") String userId, ThresholdDTO dto) {
+        try {
+            UUID id = UUID.fromString(userId);
+            if (state.getUserById(id) == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity(new ErrorResponse("User not found"))
+                        .build();
+            }
+
+            watcher.setThreshold(id, dto.getMinDropPercent());
+
+            return Response.ok(Map.of("minDropPercent", watcher.getThreshold(id))).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse("Invalid data: " + e.getMessage()))
+                    .build();
+        }
+    }
+
+    public static class ThresholdDTO {
+        private double minDropPercent;
+
+        public double getMinDropPercent() { return minDropPercent; }
+        public void setMinDropPercent(double minDropPercent) { this.minDropPercent = minDropPercent; }
+    }
+
+    public static class ErrorResponse {
+        private String error;
+        public ErrorResponse(String error) { this.error = error; }
+        public String getError() { return error; }
+    }
+}
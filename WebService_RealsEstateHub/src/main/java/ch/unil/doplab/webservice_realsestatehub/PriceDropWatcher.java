@@ -0,0 +1,188 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import ch.unil.doplab.PriceChangeEvent;
+import ch.unil.doplab.PriceChangeListener;
+import ch.unil.doplab.Property;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PriceDropWatcher - Alerts users when a property they saved gets cheaper
+ * Price changes are collected per property and flushed in batches; each flush
+ * only visits the savers of the changed listings (reverse saved-by index).
+ */
+@ApplicationScoped
+public class PriceDropWatcher {
+
+    private static final long FLUSH_INTERVAL_MILLIS = 2000;
+    private static final int RECENT_ALERTS_PER_USER = 50;
+
+    @Inject
+    private ApplicationState state;
+
+    @Inject
+    private EventBroadcaster events;
+
+    private final Map<UUID, PriceChangeEvent> pending = new HashMap<>();
+    private final Map<UUID, Double> thresholds = new ConcurrentHashMap<>();
+    private final Map<UUID, Deque<PriceDropAlert>> recentAlerts = new ConcurrentHashMap<>();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong alertsSent = new AtomicLong();
+
+    private ScheduledExecutorService flusher;
+    private final PriceChangeListener listener = this::onPriceChange;
+
+    public PriceDropWatcher() {
+    }
+
+    PriceDropWatcher(ApplicationState state, EventBroadcaster events) {
+        this.state = state;
+        this.events = events;
+    }
+
+    /**
+     * Start with the application so price changes are observed from the first request
+     */
+    public void onStart(@Observes @Initialized(ApplicationScoped.class) Object init) {
+        if (flusher != null) return;
+        Property.addPriceChangeListener(listener);
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "price-drop-watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        Property.removePriceChangeListener(listener);
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+    }
+
+    /**
+     * Minimum drop (in percent) a user wants to be alerted about; 0 means any drop
+     */
+    public void setThreshold(UUID userId, double minDropPercent) {
+        if (minDropPercent < 0 || minDropPercent > 100) {
+            throw new IllegalArgumentException("minDropPercent must be between 0 and 100");
+        }
+        thresholds.put(userId, minDropPercent);
+    }
+
+    public double getThreshold(UUID userId) {
+        return thresholds.getOrDefault(userId, 0.0);
+    }
+
+    public List<PriceDropAlert> getRecentAlerts(UUID userId) {
+        Deque<PriceDropAlert> alerts = recentAlerts.get(userId);
+        if (alerts == null) return List.of();
+        synchronized (alerts) {
+            return new ArrayList<>(alerts);
+        }
+    }
+
+    public void forgetUser(UUID userId) {
+        thresholds.remove(userId);
+        recentAlerts.remove(userId);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("batches", batches.get());
+        stats.put("alertsSent", alertsSent.get());
+        synchronized (pending) {
+            stats.put("pendingListings", pending.size());
+        }
+        return stats;
+    }
+
+    /**
+     * Collect a change; several changes of one listing within a batch collapse into one
+     */
+    void onPriceChange(PriceChangeEvent event) {
+        synchronized (pending) {
+            pending.merge(event.getPropertyId(), event, (first, latest) ->
+                    new PriceChangeEvent(first.getPropertyId(), first.getOldPrice(),
+                            latest.getNewPrice(), latest.getChangedAt()));
+        }
+    }
+
+    void flush() {
+        try {
+            List<PriceChangeEvent> batch;
+            synchronized (pending) {
+                if (pending.isEmpty()) return;
+                batch = new ArrayList<>(pending.values());
+                pending.clear();
+            }
+            batches.incrementAndGet();
+
+            Map<UUID, List<PriceDropAlert>> alertsByUser = new HashMap<>();
+            for (PriceChangeEvent change : batch) {
+                if (!change.isDrop()) continue;
+                Property property = state.getPropertyById(change.getPropertyId());
+                if (property == null) continue;
+                PriceDropAlert alert = new PriceDropAlert(property.getPropertyId(), property.getTitle(),
+                        change.getOldPrice(), change.getNewPrice(), change.getDropPercent());
+                for (UUID saverId : state.getSaverIds(change.getPropertyId())) {
+                    if (change.getDropPercent() >= getThreshold(saverId)) {
+                        alertsByUser.computeIfAbsent(saverId, id -> new ArrayList<>()).add(alert);
+                    }
+                }
+            }
+
+            alertsByUser.forEach(this::deliver);
+        } catch (Exception e) {
+            System.err.println("Error flushing price-drop alerts: " + e.getMessage());
+        }
+    }
+
+    private void deliver(UUID userId, List<PriceDropAlert> alerts) {
+        Deque<PriceDropAlert> recent = recentAlerts.computeIfAbsent(userId, id -> new ArrayDeque<>());
+        synchronized (recent) {
+            for (PriceDropAlert alert : alerts) {
+                if (recent.size() == RECENT_ALERTS_PER_USER) {
+                    recent.pollLast();
+                }
+                recent.addFirst(alert);
+            }
+        }
+        events.publish(userId, "price-drop", null, alerts);
+        alertsSent.addAndGet(alerts.size());
+    }
+
+    public static class PriceDropAlert {
+        private final UUID propertyId;
+        private final String title;
+        private final double oldPrice;
+        private final double newPrice;
+        private final double dropPercent;
+
+        public PriceDropAlert(UUID propertyId, String title, double oldPrice, double newPrice, double dropPercent) {
+            this.propertyId = propertyId;
+            this.title = title;
+            this.oldPrice = oldPrice;
+            this.newPrice = newPrice;
+            this.dropPercent = dropPercent;
+        }
+
+        public UUID getPropertyId() { return propertyId; }
+        public String getTitle() { return title; }
+        public double getOldPrice() { return oldPrice; }
+        public double getNewPrice() { return newPrice; }
+        public double getDropPercent() { return dropPercent; }
+    }
+}
@@ -0,0 +1,235 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import ch.unil.doplab.Property;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * PropertyExporter - Streams the whole catalog in NDJSON or columnar form
+ * The export is pinned to the catalog version at start: listings created
+ * later are left out, each row is read once and written from that copy.
+ * Rows go out as they are read, in blocks for the columnar format, so memory
+ * stays the same whatever the catalog size.
+ */
+public final class PropertyExporter {
+
+    public static final String NDJSON = "application/x-ndjson";
+    public static final String COLUMNAR = "application/vnd.realestatehub.columnar";
+
+    /** Rows per columnar block, dictionaries are rebuilt for every block */
+    static final int BLOCK_ROWS = 4096;
+    private static final int MAGIC = 0x52454843; // "REHC"
+    private static final int FORMAT_VERSION = 1;
+    private static final int FLUSH_EVERY = 1024;
+
+    private final Iterable<Property> properties;
+    private final Predicate<Property> filter;
+    private final long snapshotVersion;
+
+    public PropertyExporter(Iterable<Property> properties, Predicate<Property> filter, long snapshotVersion) {
+        this.properties = properties;
+        this.filter = filter;
+        this.snapshotVersion = snapshotVersion;
+    }
+
+    public static String mediaTypeFor(String format) {
+        if (format == null || format.isBlank() || format.equalsIgnoreCase("ndjson")) {
+            return NDJSON;
+        }
+        if (format.equalsIgnoreCase("columnar")) {
+            return COLUMNAR;
+        }
+        throw new IllegalArgumentException("Unknown format '" + format + "', expected ndjson or columnar");
+    }
+
+    public StreamingOutput write(String mediaType) {
+        return COLUMNAR.equals(mediaType) ? this::writeColumnar : this::writeNdjson;
+    }
+
+    private boolean included(Property property) {
+        return property.getCreatedVersion() <= snapshotVersion && filter.test(property);
+    }
+
+    // ===== NDJSON =====
+
+    private void writeNdjson(OutputStream out) throws IOException {
+        int rows = 0;
+        for (Property property : properties) {
+            if (!included(property)) continue;
+            out.write(JsonCodecs.encodeTransient(property));
+            out.write('\n');
+            if (++rows % FLUSH_EVERY == 0) {
+                out.flush();
+            }
+        }
+        out.flush();
+    }
+
+    // ===== Columnar =====
+
+    /*
+     * Layout, big-endian:
+     *   int magic, int formatVersion, long snapshotVersion
+     *   blocks: int rowCount (> 0), then one column after the other
+     *     propertyId           rowCount x (long msb, long lsb)
+     *     ownerId              dictionary of UUIDs (boolean present, long msb, long lsb)
+     *     title, description   rowCount x string
+     *     location, type, status  dictionary of strings
+     *     price, size          rowCount x double
+     *     createdAt, updatedAt rowCount x long epoch millis, Long.MIN_VALUE for null
+     *     version              rowCount x long
+     *   int 0 ends the stream
+     * A string is an int byte length (-1 for null) followed by UTF-8 bytes.
+     * A dictionary is int size, the distinct values, then rowCount int codes.
+     * Columns are stored whole, without run-length encoding.
+     * Features and images are only in the NDJSON export.
+     */
+    private void writeColumnar(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(snapshotVersion);
+        Block block = new Block();
+        for (Property property : properties) {
+            if (!included(property)) continue;
+            block.add(property);
+            if (block.rows == BLOCK_ROWS) {
+                block.writeTo(out);
+                out.flush();
+                block.clear();
+            }
+        }
+        if (block.rows > 0) {
+            block.writeTo(out);
+        }
+        out.writeInt(0);
+        // Flushed rather than closed: the container owns the response stream
+        out.flush();
+    }
+
+    /**
+     * One block of rows, copied out of the properties as they are read
+     */
+    private static final class Block {
+        private int rows;
+        private final UUID[] ids = new UUID[BLOCK_ROWS];
+        private final UUID[] owners = new UUID[BLOCK_ROWS];
+        private final String[] titles = new String[BLOCK_ROWS];
+        private final String[] descriptions = new String[BLOCK_ROWS];
+        private final String[] locations = new String[BLOCK_ROWS];
+        private final String[] types = new String[BLOCK_ROWS];
+        private final String[] statuses = new String[BLOCK_ROWS];
+        private final double[] prices = new double[BLOCK_ROWS];
+        private final double[] sizes = new double[BLOCK_ROWS];
+        private final long[] created = new long[BLOCK_ROWS];
+        private final long[] updated = new long[BLOCK_ROWS];
+        private final long[] versions = new long[BLOCK_ROWS];
+
+        void add(Property property) {
+            int row = rows++;
+            ids[row] = property.getPropertyId();
+            owners[row] = property.getOwnerId();
+            titles[row] = property.getTitle();
+            descriptions[row] = property.getDescription();
+            locations[row] = property.getLocation();
+            types[row] = property.getType() != null ? property.getType().name() : null;
+            statuses[row] = property.getStatus() != null ? property.getStatus().name() : null;
+            prices[row] = property.getPrice();
+            sizes[row] = property.getSize();
+            created[row] = epochMillis(property.getCreatedAt());
+            updated[row] = epochMillis(property.getUpdatedAt());
+            versions[row] = property.getVersion();
+        }
+
+        void clear() {
+            rows = 0;
+            // Drop the references so the block does not keep old values alive
+            Arrays.fill(ids, null);
+            Arrays.fill(owners, null);
+            Arrays.fill(titles, null);
+            Arrays.fill(descriptions, null);
+            Arrays.fill(locations, null);
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(rows);
+            for (int i = 0; i < rows; i++) {
+                out.writeLong(ids[i].getMostSignificantBits());
+                out.writeLong(ids[i].getLeastSignificantBits());
+            }
+            writeDictionary(out, owners, rows, PropertyExporter::writeUuid);
+            for (int i = 0; i < rows; i++) writeString(out, titles[i]);
+            for (int i = 0; i < rows; i++) writeString(out, descriptions[i]);
+            writeDictionary(out, locations, rows, PropertyExporter::writeString);
+            writeDictionary(out, types, rows, PropertyExporter::writeString);
+            writeDictionary(out, statuses, rows, PropertyExporter::writeString);
+            for (int i = 0; i < rows; i++) out.writeDouble(prices[i]);
+            for (int i = 0; i < rows; i++) out.writeDouble(sizes[i]);
+            for (int i = 0; i < rows; i++) out.writeLong(created[i]);
+            for (int i = 0; i < rows; i++) out.writeLong(updated[i]);
+            for (int i = 0; i < rows; i++) out.writeLong(versions[i]);
+        }
+    }
+
+    private interface ValueWriter<T> {
+        void write(DataOutputStream out, T value) throws IOException;
+    }
+
+    private static <T> void writeDictionary(DataOutputStream out, T[] values, int rows,
+                                            ValueWriter<T> writer) throws IOException {
+        Map<T, Integer> codes = new HashMap<>();
+        List<T> distinct = new ArrayList<>();
+        int[] row = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            Integer code = codes.get(values[i]);
+            if (code == null) {
+                code = distinct.size();
+                distinct.add(values[i]);
+                codes.put(values[i], code);
+            }
+            row[i] = code;
+        }
+        out.writeInt(distinct.size());
+        for (T value : distinct) writer.write(out, value);
+        for (int i = 0; i < rows; i++) out.writeInt(row[i]);
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.getMostSignificantBits());
+            out.writeLong(value.getLeastSignificantBits());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Timestamps are taken with LocalDateTime.now(), so they are local to the server's zone
+     */
+    private static long epochMillis(LocalDateTime time) {
+        return time == null ? Long.MIN_VALUE : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
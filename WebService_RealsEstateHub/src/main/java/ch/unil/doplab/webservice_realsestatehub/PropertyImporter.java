@@ -0,0 +1,375 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import ch.unil.doplab.Property;
+import jakarta.json.Json;
+import jakarta.json.JsonNumber;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonReaderFactory;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * PropertyImporter - Bulk load of properties from NDJSON or CSV
+ * The body is read as a stream and cut into chunks of lines that are parsed
+ * and validated in parallel on the parse lane of {@link ResourceExecutors};
+ * when that lane is full the reading thread parses the chunk itself. Chunks are merged back in line order, so
+ * deduplication and the error report are deterministic, and each chunk is
+ * inserted into ApplicationState as one batch.
+ * Listings are duplicates when owner, title, location and type match
+ * (case-insensitive), within the file or against the current catalog.
+ */
+public final class PropertyImporter {
+
+    private static final int CHUNK_LINES = 4096;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final int PARALLELISM = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+    // Json.createReader looks the provider up on every call
+    private static final JsonReaderFactory JSON = Json.createReaderFactory(Map.of());
+
+    private static final Set<String> CSV_COLUMNS =
+            Set.of("title", "ownerId", "description", "location", "price", "size", "type", "status");
+
+    public enum Format {
+        NDJSON, CSV;
+
+        public static Format fromContentType(String contentType) {
+            return contentType != null && contentType.toLowerCase(Locale.ROOT).contains("csv") ? CSV : NDJSON;
+        }
+    }
+
+    private record Parsed(long line, Property property, String error) {
+    }
+
+    private PropertyImporter() {
+    }
+
+    /**
+     * @throws IllegalStateException when a chunk could not be parsed at all; batches
+     *         merged before it stay imported
+     */
+    public static ImportReport importFrom(InputStream body, Format format, ApplicationState state,
+                                          ResourceExecutors executors) throws IOException {
+        long started = System.nanoTime();
+        ImportReport report = new ImportReport();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8), 1 << 16);
+
+        long lineNumber = 0;
+        String[] columns = null;
+        if (format == Format.CSV) {
+            String header = reader.readLine();
+            lineNumber++;
+            if (header == null) {
+                report.finish(started);
+                return report;
+            }
+            columns = splitCsv(header).stream().map(String::trim).toArray(String[]::new);
+        }
+
+        Set<String> seen = new HashSet<>();
+        for (Property existing : state.getProperties().values()) {
+            seen.add(dedupKey(existing));
+        }
+
+        Deque<CompletableFuture<List<Parsed>>> inFlight = new ArrayDeque<>();
+        List<String> lines = new ArrayList<>(CHUNK_LINES);
+        long[] numbers = new long[CHUNK_LINES];
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) continue;
+            numbers[lines.size()] = lineNumber;
+            lines.add(line);
+            if (lines.size() == CHUNK_LINES) {
+                inFlight.add(submit(executors, lines, numbers, format, columns));
+                lines = new ArrayList<>(CHUNK_LINES);
+                numbers = new long[CHUNK_LINES];
+                // Bound the number of parsed chunks held in memory
+                if (inFlight.size() >= PARALLELISM * 2) {
+                    merge(inFlight.poll(), seen, report, state);
+                }
+            }
+        }
+        if (!lines.isEmpty()) {
+            inFlight.add(submit(executors, lines, numbers, format, columns));
+        }
+        while (!inFlight.isEmpty()) {
+            merge(inFlight.poll(), seen, report, state);
+        }
+        report.finish(started);
+        return report;
+    }
+
+    private static CompletableFuture<List<Parsed>> submit(ResourceExecutors executors, List<String> lines,
+                                                          long[] numbers, Format format, String[] columns) {
+        Supplier<List<Parsed>> parse = () -> {
+            List<Parsed> parsed = new ArrayList<>(lines.size());
+            for (int i = 0; i < lines.size(); i++) {
+                try {
+                    Property property = format == Format.CSV
+                            ? parseCsv(lines.get(i), columns)
+                            : parseJson(lines.get(i));
+                    parsed.add(new Parsed(numbers[i], property, null));
+                } catch (RuntimeException e) {
+                    parsed.add(new Parsed(numbers[i], null, e.getMessage() != null ? e.getMessage() : e.toString()));
+                }
+            }
+            return parsed;
+        };
+        return executors.submit(ResourceExecutors.Lane.PARSE, parse, parse).toCompletableFuture();
+    }
+
+    private static void merge(CompletableFuture<List<Parsed>> chunk, Set<String> seen, ImportReport report,
+                              ApplicationState state) {
+        List<Parsed> parsed;
+        try {
+            parsed = chunk.join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Import failed: " + e.getCause().getMessage(), e.getCause());
+        }
+        List<Property> batch = new ArrayList<>(parsed.size());
+        for (Parsed result : parsed) {
+            report.received++;
+            if (result.error != null) {
+                report.failed++;
+                report.addError(result.line, result.error);
+            } else if (!seen.add(dedupKey(result.property))) {
+                report.duplicates++;
+                report.addError(result.line, "Duplicate listing");
+            } else {
+                batch.add(result.property);
+            }
+        }
+        state.addProperties(batch);
+        report.imported += batch.size();
+    }
+
+    private static String dedupKey(Property property) {
+        return property.getOwnerId() + "|" + lower(property.getTitle()) + "|"
+                + lower(property.getLocation()) + "|" + property.getType();
+    }
+
+    private static String lower(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // ===== NDJSON =====
+
+    private static Property parseJson(String line) {
+        JsonObject json;
+        try (JsonReader reader = JSON.createReader(new StringReader(line))) {
+            json = reader.readObject();
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid JSON: " + e.getMessage());
+        }
+        Map<String, Object> features = new LinkedHashMap<>();
+        JsonValue featureValue = json.get("features");
+        if (featureValue instanceof JsonObject featureObject) {
+            featureObject.forEach((key, value) -> features.put(key, toJava(value)));
+        }
+        return build(text(json, "title"), text(json, "ownerId"), text(json, "description"),
+                text(json, "location"), number(json, "price"), number(json, "size"),
+                text(json, "type"), text(json, "status"), features);
+    }
+
+    private static String text(JsonObject json, String name) {
+        JsonValue value = json.get(name);
+        if (value == null || value == JsonValue.NULL) return null;
+        return value instanceof JsonString string ? string.getString() : value.toString();
+    }
+
+    private static Double number(JsonObject json, String name) {
+        JsonValue value = json.get(name);
+        if (value == null || value == JsonValue.NULL) return null;
+        if (value instanceof JsonNumber number) return number.doubleValue();
+        throw new IllegalArgumentException("Field '" + name + "' must be a number");
+    }
+
+    private static Object toJava(JsonValue value) {
+        if (value instanceof JsonNumber number) {
+            return number.isIntegral() ? (Object) number.intValue() : (Object) number.doubleValue();
+        }
+        if (value instanceof JsonString string) return string.getString();
+        if (value == JsonValue.TRUE) return Boolean.TRUE;
+        if (value == JsonValue.FALSE) return Boolean.FALSE;
+        if (value == JsonValue.NULL) return null;
+        return value.toString();
+    }
+
+    // ===== CSV =====
+
+    private static Property parseCsv(String line, String[] columns) {
+        List<String> cells = splitCsv(line);
+        if (cells.size() != columns.length) {
+            throw new IllegalArgumentException("Expected " + columns.length + " columns but found " + cells.size());
+        }
+        Map<String, String> row = new HashMap<>();
+        Map<String, Object> features = new LinkedHashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            String cell = cells.get(i);
+            if (CSV_COLUMNS.contains(columns[i])) {
+                row.put(columns[i], cell.isEmpty() ? null : cell);
+            } else if (!cell.isEmpty()) {
+                features.put(columns[i], featureValue(cell));
+            }
+        }
+        return build(row.get("title"), row.get("ownerId"), row.get("description"), row.get("location"),
+                csvNumber(row, "price"), csvNumber(row, "size"), row.get("type"), row.get("status"), features);
+    }
+
+    private static Double csvNumber(Map<String, String> row, String name) {
+        String value = row.get(name);
+        if (value == null) return null;
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Field '" + name + "' must be a number");
+        }
+    }
+
+    private static Object featureValue(String cell) {
+        String value = cell.trim();
+        if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) {
+            return Boolean.parseBoolean(value);
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ignored) {
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException ignored) {
+        }
+        return cell;
+    }
+
+    /**
+     * Split one CSV record; fields may be quoted and use "" for a literal quote
+     */
+    static List<String> splitCsv(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        cell.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    cell.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        if (quoted) throw new IllegalArgumentException("Unterminated quoted field");
+        cells.add(cell.toString());
+        return cells;
+    }
+
+    // ===== Validation =====
+
+    private static Property build(String title, String ownerId, String description, String location,
+                                  Double price, Double size, String type, String status,
+                                  Map<String, Object> features) {
+        if (title == null || title.isBlank()) throw new IllegalArgumentException("Title is required");
+        if (type == null) throw new IllegalArgumentException("Type is required");
+        if (price != null && price < 0) throw new IllegalArgumentException("Price must not be negative");
+        if (size != null && size < 0) throw new IllegalArgumentException("Size must not be negative");
+        Property.PropertyType propertyType;
+        try {
+            propertyType = Property.PropertyType.valueOf(type.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown type: " + type);
+        }
+        UUID owner = null;
+        if (ownerId != null) {
+            try {
+                owner = UUID.fromString(ownerId.trim());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Owner ID must be a UUID: " + ownerId);
+            }
+        }
+        Property.PropertyStatus propertyStatus = null;
+        if (status != null) {
+            try {
+                propertyStatus = Property.PropertyStatus.valueOf(status.trim());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown status: " + status);
+            }
+        }
+
+        Property property = new Property(title.trim(), owner, description, location,
+                price != null ? price : 0, size != null ? size : 0, propertyType);
+        if (propertyStatus != null) {
+            property.setStatus(propertyStatus);
+        }
+        features.forEach(property::addFeature);
+        return property;
+    }
+
+    /**
+     * Outcome of an import; only the first errors are listed
+     */
+    public static final class ImportReport {
+        private long received;
+        private long imported;
+        private long duplicates;
+        private long failed;
+        private long elapsedMillis;
+        private final List<LineError> errors = new ArrayList<>();
+
+        void addError(long line, String error) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new LineError(line, error));
+            }
+        }
+
+        void finish(long startedNanos) {
+            elapsedMillis = (System.nanoTime() - startedNanos) / 1_000_000;
+        }
+
+        public long getReceived() { return received; }
+        public long getImported() { return imported; }
+        public long getDuplicates() { return duplicates; }
+        public long getFailed() { return failed; }
+        public long getElapsedMillis() { return elapsedMillis; }
+        public boolean isErrorsTruncated() { return failed + duplicates > errors.size(); }
+        public List<LineError> getErrors() { return errors; }
+    }
+
+    public static final class LineError {
+        private final long line;
+        private final String error;
+
+        LineError(long line, String error) {
+            this.line = line;
+            this.error = error;
+        }
+
+        public long getLine() { return line; }
+        public String getError() { return error; }
+    }
+}
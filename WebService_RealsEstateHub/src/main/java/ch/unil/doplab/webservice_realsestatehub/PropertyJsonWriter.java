@@ -0,0 +1,140 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import ch.unil.doplab.Property;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Writes properties straight to the response stream with a JSON-P generator,
+ * one at a time and limited to the requested fields.
+ * Field names match what JSON-B produces for {@link Property}.
+ */
+public final class PropertyJsonWriter {
+
+    private static final Map<String, BiConsumer<JsonGenerator, Property>> FIELDS = new LinkedHashMap<>();
+
+    static {
+        FIELDS.put("propertyId", (json, p) -> JsonCodecs.writeUuid(json, "propertyId", p.getPropertyId()));
+        FIELDS.put("ownerId", (json, p) -> JsonCodecs.writeUuid(json, "ownerId", p.getOwnerId()));
+        FIELDS.put("title", (json, p) -> JsonCodecs.writeString(json, "title", p.getTitle()));
+        FIELDS.put("description", (json, p) -> JsonCodecs.writeString(json, "description", p.getDescription()));
+        FIELDS.put("location", (json, p) -> JsonCodecs.writeString(json, "location", p.getLocation()));
+        FIELDS.put("price", (json, p) -> json.write("price", p.getPrice()));
+        FIELDS.put("size", (json, p) -> json.write("size", p.getSize()));
+        FIELDS.put("type", (json, p) -> JsonCodecs.writeString(json, "type", p.getType() != null ? p.getType().name() : null));
+        FIELDS.put("status", (json, p) -> JsonCodecs.writeString(json, "status", p.getStatus() != null ? p.getStatus().name() : null));
+        FIELDS.put("features", PropertyJsonWriter::writeFeatures);
+        FIELDS.put("images", (json, p) -> {
+            json.writeStartArray("images");
+            p.getImages().forEach(json::write);
+            json.writeEnd();
+        });
+        FIELDS.put("bedroomCount", (json, p) -> json.write("bedroomCount", p.getBedroomCount()));
+        FIELDS.put("bathroomCount", (json, p) -> json.write("bathroomCount", p.getBathroomCount()));
+        FIELDS.put("availableForSale", (json, p) -> json.write("availableForSale", p.isAvailableForSale()));
+        FIELDS.put("createdAt", (json, p) -> JsonCodecs.writeTime(json, "createdAt", p.getCreatedAt()));
+        FIELDS.put("updatedAt", (json, p) -> JsonCodecs.writeTime(json, "updatedAt", p.getUpdatedAt()));
+        FIELDS.put("version", (json, p) -> json.write("version", p.getVersion()));
+        FIELDS.put("createdVersion", (json, p) -> json.write("createdVersion", p.getCreatedVersion()));
+    }
+
+    private static final PropertyJsonWriter ALL = new PropertyJsonWriter(new ArrayList<>(FIELDS.values()), "");
+
+    private final List<BiConsumer<JsonGenerator, Property>> writers;
+    private final String fields; // normalized selection, empty for every field
+
+    private PropertyJsonWriter(List<BiConsumer<JsonGenerator, Property>> writers, String fields) {
+        this.writers = writers;
+        this.fields = fields;
+    }
+
+    /**
+     * Parse a comma-separated field list; null or blank selects every field
+     */
+    public static PropertyJsonWriter forFields(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        List<BiConsumer<JsonGenerator, Property>> writers = new ArrayList<>();
+        List<String> seen = new ArrayList<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty() || seen.contains(name)) continue;
+            BiConsumer<JsonGenerator, Property> writer = FIELDS.get(name);
+            if (writer == null) {
+                throw new IllegalArgumentException("Unknown field '" + name + "', expected one of " + FIELDS.keySet());
+            }
+            seen.add(name);
+            writers.add(writer);
+        }
+        return new PropertyJsonWriter(writers, String.join(",", seen));
+    }
+
+    /**
+     * The selected field names, trimmed, without duplicates and in the order
+     * they are written; empty when every field is written
+     */
+    public String getFields() {
+        return fields;
+    }
+
+    /**
+     * Stream the properties as a JSON array; full representations come from the codec cache
+     */
+    public StreamingOutput array(Collection<Property> properties) {
+        if (this == ALL) {
+            return JsonCodecs.array(properties);
+        }
+        return out -> {
+            // Flushed rather than closed: the container owns the response stream
+            JsonGenerator json = JsonCodecs.generator(out);
+            json.writeStartArray();
+            for (Property property : properties) {
+                write(json, property);
+            }
+            json.writeEnd();
+            json.flush();
+        };
+    }
+
+    public void write(JsonGenerator json, Property property) {
+        json.writeStartObject();
+        writeFields(json, property);
+        json.writeEnd();
+    }
+
+    /**
+     * The selected fields only, into an object the caller has opened
+     */
+    public void writeFields(JsonGenerator json, Property property) {
+        for (BiConsumer<JsonGenerator, Property> writer : writers) {
+            writer.accept(json, property);
+        }
+    }
+
+    private static void writeFeatures(JsonGenerator json, Property property) {
+        json.writeStartObject("features");
+        for (Map.Entry<String, Object> feature : property.getFeatures().entrySet()) {
+            Object value = feature.getValue();
+            if (value == null) {
+                json.writeNull(feature.getKey());
+            } else if (value instanceof Integer || value instanceof Long || value instanceof Short) {
+                json.write(feature.getKey(), ((Number) value).longValue());
+            } else if (value instanceof Number) {
+                json.write(feature.getKey(), ((Number) value).doubleValue());
+            } else if (value instanceof Boolean) {
+                json.write(feature.getKey(), (Boolean) value);
+            } else {
+                json.write(feature.getKey(), value.toString());
+            }
+        }
+        json.writeEnd();
+    }
+}
@@ -1,12 +1,22 @@
 package ch.unil.doplab.webservice_realsestatehub;
 
 import ch.unil.doplab.Property;
+import ch.unil.doplab.PropertySearchCriteria;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 @Path("/properties")
 @Produces(MediaType.APPLICATION_JSON)
@@ -16,12 +26,16 @@ public class PropertyResource {
     @Inject
     private ApplicationState state;
 
+    @Inject
+    private ResourceExecutors executors;
+
 
     /**
      * Create a new property
-     * POST /api/properties
+     * POST /api/properties (retries may repeat the Idempotency-Key header)
      */
     @POST
+    @Idempotent
     public Response createProperty(PropertyDTO dto) {
         try {
             Property property = new Property(
@@ -29,8 +43,8 @@ public class PropertyResource {
                     dto.getOwnerId(),
                     dto.getDescription(),
                     dto.getLocation(),
-                    dto.getPrice(),
-                    dto.getSize(),
+                    dto.getPrice() != null ? dto.getPrice() : 0,
+                    dto.getSize() != null ? dto.getSize() : 0,
                     Property.PropertyType.valueOf(dto.getType())
             );
             
@@ -44,10 +58,11 @@ public class PropertyResource {
                 dto.getFeatures().forEach(property::addFeature);
             }
             
-            state.getProperties().put(property.getPropertyId(), property);
+            state.addProperty(property);
             
             return Response.status(Response.Status.CREATED)
                     .entity(property)
+                    .tag(EntityTags.forVersion(property.getVersion()))
                     .build();
         } catch (Exception e) {
             return Response.status(Response.Status.BAD_REQUEST)
@@ -57,12 +72,140 @@ public class PropertyResource {
     }
 
     /**
-     * Get all properties
-     * GET /api/properties
+     * Bulk import of properties, one listing per NDJSON line or CSV row (header first)
+     * POST /api/properties/import
+     */
+    @POST
+    @Path("/import")
+    @Consumes({"application/x-ndjson", "text/csv", MediaType.TEXT_PLAIN})
+    @Admission(Admission.Level.BULK)
+    public CompletionStage<Response> importProperties(InputStream body,
+                                                      @HeaderParam(HttpHeaders.CONTENT_TYPE) String contentType) {
+        return executors.submit(ResourceExecutors.Lane.BULK, () -> {
+            try {
+                PropertyImporter.ImportReport report =
+                        PropertyImporter.importFrom(body, PropertyImporter.Format.fromContentType(contentType),
+                                state, executors);
+                return Response.ok(report).build();
+            } catch (IOException | IllegalArgumentException e) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(new ErrorResponse("Invalid import data: " + e.getMessage()))
+                        .build();
+            } catch (IllegalStateException e) {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                        .entity(new ErrorResponse(e.getMessage()))
+                        .build();
+            }
+        });
+    }
+
+    /**
+     * Get all properties, streamed one by one; fields limits the attributes written
+     * GET /api/properties?fields=title,location,price
+     */
+    @GET
+    @CachedResponse
+    @Admission(Admission.Level.BULK)
+    public Response getAllProperties(@QueryParam("fields") String fields, @Context Request request) {
+        try {
+            PropertyJsonWriter writer = PropertyJsonWriter.forFields(fields);
+            // A projection is a different representation of the same catalog version
+            EntityTag tag = EntityTags.forCatalog(state.getCatalogVersion(), writer.getFields());
+            Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+            if (notModified != null) {
+                return notModified.build();
+            }
+            return Response.ok(writer.array(state.getProperties().values())).tag(tag).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse(e.getMessage()))
+                    .build();
+        }
+    }
+
+    /**
+     * Stream the catalog as NDJSON or columnar binary, optionally filtered like a search
+     * GET /api/properties/export?format=columnar&location=Lausanne&type=HOUSE&minPrice=500000
+     */
+    @GET
+    @Path("/export")
+    @Produces({PropertyExporter.NDJSON, PropertyExporter.COLUMNAR, MediaType.APPLICATION_JSON})
+    @Admission(Admission.Level.BULK)
+    public Response exportProperties(@QueryParam("format") String format,
+                                     @QueryParam("location") List<String> locations,
+                                     @QueryParam("type") List<String> types,
+                                     @QueryParam("minPrice") Double minPrice,
+                                     @QueryParam("maxPrice") Double maxPrice) {
+        try {
+            String mediaType = PropertyExporter.mediaTypeFor(format);
+            PropertySearchCriteria.Builder criteria = PropertySearchCriteria.builder();
+            locations.forEach(criteria::addLocation);
+            types.forEach(criteria::addPropertyType);
+            if (minPrice != null) criteria.minPrice(minPrice);
+            if (maxPrice != null) criteria.maxPrice(maxPrice);
+
+            long snapshot = state.getCatalogVersion();
+            PropertyExporter exporter = new PropertyExporter(
+                    state.getProperties().values(), criteria.build().toPredicate(), snapshot);
+            StreamingOutput stream = executors.bulkStream(exporter.write(mediaType));
+            if (stream == null) {
+                return ResourceExecutors.busy();
+            }
+            return Response.ok(stream, mediaType)
+                    .header("X-Catalog-Version", snapshot)
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .type(MediaType.APPLICATION_JSON)
+                    .entity(new ErrorResponse(e.getMessage()))
+                    .build();
+        }
+    }
+
+    /**
+     * Get many properties in one call, hits and missing ids
+     * POST /api/properties/batch-get
+     */
+    @POST
+    @Path("/batch-get")
+    @Admission(Admission.Level.BULK)
+    public Response batchGet(BatchGet.IdsDTO dto) {
+        try {
+            return Response.ok(BatchGet.resolve(BatchGet.parse(dto), state.getProperties())).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse(e.getMessage()))
+                    .build();
+        }
+    }
+
+    /**
+     * Properties with the selected fields of their seller, offers and buyers in one round trip
+     * GET /api/properties/detail?id=...&id=...&select=title,price,seller{fullName,email},offers{amount,buyer{fullName}}
      */
     @GET
-    public Response getAllProperties() {
-        return Response.ok(new ArrayList<>(state.getProperties().values())).build();
+    @Path("/detail")
+    @Admission(Admission.Level.BULK)
+    public CompletionStage<Response> getPropertyDetails(@QueryParam("id") List<String> ids,
+                                                        @QueryParam("select") String select) {
+        Set<UUID> propertyIds;
+        CompoundQuery query;
+        try {
+            BatchGet.IdsDTO dto = new BatchGet.IdsDTO();
+            dto.setIds(ids);
+            propertyIds = BatchGet.parse(dto);
+            if (propertyIds.size() > CompoundQuery.MAX_IDS) {
+                throw new IllegalArgumentException("At most " + CompoundQuery.MAX_IDS + " ids per request");
+            }
+            query = CompoundQuery.parse(select);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse(e.getMessage()))
+                    .build());
+        }
+        // Offers have no index by property, so the lookups run on the read lane
+        return executors.submit(ResourceExecutors.Lane.READ,
+                () -> Response.ok(query.execute(propertyIds, state), MediaType.APPLICATION_JSON).build());
     }
 
     /**
@@ -71,7 +214,8 @@ public class PropertyResource {
      */
     @GET
     @Path("/{id}")
-    public Response getPropertyById(@PathParam("id") String id) {
+    @CachedResponse
+    public Response getPropertyById(@PathParam("id") String id, @Context Request request) {
         try {
             UUID propertyId = UUID.fromString(id);
             Property property = state.getPropertyById(propertyId);
@@ -82,7 +226,12 @@ public class PropertyResource {
                         .build();
             }
             
-            return Response.ok(property).build();
+            EntityTag tag = EntityTags.forVersion(property.getVersion());
+            Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+            if (notModified != null) {
+                return notModified.build();
+            }
+            return Response.ok(property).tag(tag).build();
         } catch (IllegalArgumentException e) {
             return Response.status(Response.Status.BAD_REQUEST)
                     .entity(new ErrorResponse("Invalid property ID"))
@@ -91,12 +240,12 @@ public class PropertyResource {
     }
 
     /**
-     * Update property
+     * Update property; with If-Match only if it is still at that version
      * PUT /api/properties/{id}
      */
     @PUT
     @Path("/{id}")
-    public Response updateProperty(@PathParam("id") String id, PropertyDTO dto) {
+    public Response updateProperty(@PathParam("id") String id, PropertyDTO dto, @Context Request request) {
         try {
             UUID propertyId = UUID.fromString(id);
             Property property = state.getPropertyById(propertyId);
@@ -107,17 +256,25 @@ public class PropertyResource {
                         .build();
             }
             
-            // Update property fields
-            property.updatePropertyDetails(
-                    dto.getTitle(),
-                    dto.getDescription(),
-                    dto.getLocation(),
-                    dto.getPrice(),
-                    dto.getSize(),
-                    dto.getType() != null ? Property.PropertyType.valueOf(dto.getType()) : null
-            );
+            synchronized (property) {
+                Response.ResponseBuilder conflict =
+                        request.evaluatePreconditions(EntityTags.forVersion(property.getVersion()));
+                if (conflict != null) {
+                    return conflict.entity(new ErrorResponse("Property was modified, reload it and retry")).build();
+                }
+
+                // Update property fields; a price or size left out stays as it is
+                property.updatePropertyDetails(
+                        dto.getTitle(),
+                        dto.getDescription(),
+                        dto.getLocation(),
+                        dto.getPrice() != null ? dto.getPrice() : -1,
+                        dto.getSize() != null ? dto.getSize() : -1,
+                        dto.getType() != null ? Property.PropertyType.valueOf(dto.getType()) : null
+                );
+            }
             
-            return Response.ok(property).build();
+            return Response.ok(property).tag(EntityTags.forVersion(property.getVersion())).build();
         } catch (Exception e) {
             return Response.status(Response.Status.BAD_REQUEST)
                     .entity(new ErrorResponse("Invalid data: " + e.getMessage()))
@@ -134,7 +291,7 @@ public class PropertyResource {
     public Response deleteProperty(@PathParam("id") String id) {
         try {
             UUID propertyId = UUID.fromString(id);
-            Property removed = state.getProperties().remove(propertyId);
+            Property removed = state.removeProperty(propertyId);
             
             if (removed == null) {
                 return Response.status(Response.Status.NOT_FOUND)
@@ -152,19 +309,54 @@ public class PropertyResource {
         }
     }
 
+    /**
+     * Number of users who saved a property
+     * GET /api/properties/{id}/savers
+     */
+    @GET
+    @Path("/{id}/savers")
+    public Response getSaverCount(@PathParam("id") String id) {
+        try {
+            UUID propertyId = UUID.fromString(id);
+            if (state.getPropertyById(propertyId) == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity(new ErrorResponse("Property not found"))
+                        .build();
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("propertyId", propertyId);
+            response.put("saverCount", state.getSaverCount(propertyId));
+            return Response.ok(response).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse("Invalid property ID"))
+                    .build();
+        }
+    }
+
     /**
      * Search properties by location
      * GET /api/properties/search?location=Zurich
      */
     @GET
     @Path("/search")
-    public Response searchProperties(@QueryParam("location") String location) {
-        List<Property> results = state.getProperties().values().stream()
-                .filter(p -> location == null || 
-                        (p.getLocation() != null && p.getLocation().equalsIgnoreCase(location)))
-                .toList();
-        
-        return Response.ok(results).build();
+    @Admission(Admission.Level.BULK)
+    public CompletionStage<Response> searchProperties(@QueryParam("location") String location,
+                                                      @Context Request request) {
+        EntityTag tag = EntityTags.forCatalog(state.getCatalogVersion());
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null) {
+            return CompletableFuture.completedFuture(notModified.build());
+        }
+        // Full catalog scan, kept on the read lane
+        return executors.submit(ResourceExecutors.Lane.READ, () -> {
+            List<Property> results = state.getProperties().values().stream()
+                    .filter(p -> location == null || 
+                            (p.getLocation() != null && p.getLocation().equalsIgnoreCase(location)))
+                    .toList();
+            return Response.ok(JsonCodecs.array(results)).tag(tag).build();
+        });
     }
 
     // DTO for creating/updating properties
@@ -173,8 +365,8 @@ public class PropertyResource {
         private UUID ownerId;
         private String description;
         private String location;
-        private double price;
-        private double size;
+        private Double price; // null when left out, so an update does not reset it to 0
+        private Double size;
         private String type; // APARTMENT, HOUSE, etc.
         private String status; // FOR_SALE, PENDING, SOLD, OFF_MARKET
         private Map<String, Object> features; // bedrooms, bathrooms, etc.
@@ -192,11 +384,11 @@ public class PropertyResource {
         public String getLocation() { return location; }
         public void setLocation(String location) { this.location = location; }
         
-        public double getPrice() { return price; }
-        public void setPrice(double price) { this.price = price; }
+        public Double getPrice() { return price; }
+        public void setPrice(Double price) { this.price = price; }
         
-        public double getSize() { return size; }
-        public void setSize(double size) { this.size = size; }
+        public Double getSize() { return size; }
+        public void setSize(Double size) { this.size = size; }
         
         public String getType() { return type; }
         public void setType(String type) { this.type = type; }
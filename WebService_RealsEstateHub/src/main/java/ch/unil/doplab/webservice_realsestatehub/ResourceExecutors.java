@@ -0,0 +1,210 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * ResourceExecutors - Bulkhead lanes for async resource methods
+ * Read queries, entity mutations, bulk import/export and notification
+ * dispatch each get their own bounded pool and queue, so a slow email
+ * provider or a burst of catalog scans only fills its own lane. A full
+ * lane answers 503 with Retry-After instead of holding the container thread.
+ */
+@ApplicationScoped
+public class ResourceExecutors {
+
+    private static final int CORES = Math.max(1, Runtime.getRuntime().availableProcessors());
+    private static final int RETRY_AFTER_SECONDS = 1;
+
+    public enum Lane {
+        /** Searches and scans over the catalog, CPU-bound */
+        READ(CORES, 256),
+        /** Entity mutations */
+        WRITE(CORES, 256),
+        /** Imports and exports; few at a time, each is long */
+        BULK(Math.max(2, CORES / 2), 8),
+        /** Chunks of an import parsed in parallel for a bulk request, CPU-bound */
+        PARSE(CORES, 64),
+        /** Email sends, blocked on the provider most of the time */
+        NOTIFICATION(64, 1024);
+
+        private final int threads;
+        private final int queue;
+
+        Lane(int threads, int queue) {
+            this.threads = threads;
+            this.queue = queue;
+        }
+
+        public String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        int threads() {
+            return threads;
+        }
+
+        int queue() {
+            return queue;
+        }
+    }
+
+    private final Map<Lane, ThreadPoolExecutor> pools = new EnumMap<>(Lane.class);
+    private final Map<Lane, AtomicLong> rejected = new EnumMap<>(Lane.class);
+    private final AtomicInteger streams = new AtomicInteger();
+
+    public ResourceExecutors() {
+        for (Lane lane : Lane.values()) {
+            pools.put(lane, pool(lane));
+            rejected.put(lane, new AtomicLong());
+        }
+    }
+
+    private static ThreadPoolExecutor pool(Lane lane) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(lane.threads, lane.threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(lane.queue), r -> {
+            Thread thread = new Thread(r, "resource-" + lane.label() + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Run the resource method body on the lane, 503 when the lane is full
+     */
+    public CompletionStage<Response> submit(Lane lane, Supplier<Response> work) {
+        return submit(lane, work, ResourceExecutors::busy);
+    }
+
+    /**
+     * Run work on the lane, completing with the fallback when the lane is full
+     */
+    public <T> CompletionStage<T> submit(Lane lane, Supplier<T> work, Supplier<T> whenFull) {
+        try {
+            return CompletableFuture.supplyAsync(Tracing.wrap(work), pools.get(lane));
+        } catch (RejectedExecutionException e) {
+            rejected.get(lane).incrementAndGet();
+            return CompletableFuture.completedFuture(whenFull.get());
+        }
+    }
+
+    /**
+     * Streamed bulk output is written by the container thread, so instead of
+     * a pool thread it takes one of the bulk lane's thread slots from now
+     * until it has been written; null when the lane has no slot left
+     */
+    public StreamingOutput bulkStream(StreamingOutput output) {
+        int open;
+        do {
+            open = streams.get();
+            if (open >= Lane.BULK.threads) {
+                rejected.get(Lane.BULK).incrementAndGet();
+                return null;
+            }
+        } while (!streams.compareAndSet(open, open + 1));
+        return new BulkStream(output, streams);
+    }
+
+    /**
+     * Bulk output holding a lane slot, given back once after writing or,
+     * through {@link BulkStreamFilter}, when the entity is never written
+     */
+    public static final class BulkStream implements StreamingOutput {
+        private final StreamingOutput output;
+        private final AtomicInteger streams;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private BulkStream(StreamingOutput output, AtomicInteger streams) {
+            this.output = output;
+            this.streams = streams;
+        }
+
+        @Override
+        public void write(OutputStream out) throws IOException {
+            try {
+                output.write(out);
+            } finally {
+                release();
+            }
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                streams.decrementAndGet();
+            }
+        }
+    }
+
+    public static Response busy() {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header("Retry-After", RETRY_AFTER_SECONDS)
+                .entity(Map.of("error", "Server busy, retry later"))
+                .build();
+    }
+
+    @PreDestroy
+    public void stop() {
+        pools.values().forEach(ThreadPoolExecutor::shutdown);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (Lane lane : Lane.values()) {
+            ThreadPoolExecutor executor = pools.get(lane);
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("maxThreads", executor.getMaximumPoolSize());
+            values.put("threads", executor.getPoolSize());
+            values.put("active", getActive(lane));
+            values.put("queued", executor.getQueue().size());
+            values.put("queueCapacity", lane.queue);
+            values.put("completed", executor.getCompletedTaskCount());
+            values.put("rejected", rejected.get(lane).get());
+            values.put("saturation", getSaturation(lane));
+            stats.put(lane.label(), values);
+        }
+        return stats;
+    }
+
+    public int getActive(Lane lane) {
+        int active = pools.get(lane).getActiveCount();
+        return lane == Lane.BULK ? active + streams.get() : active;
+    }
+
+    public int getQueued(Lane lane) {
+        return pools.get(lane).getQueue().size();
+    }
+
+    public long getRejected(Lane lane) {
+        return rejected.get(lane).get();
+    }
+
+    /**
+     * Share of the lane's threads and queue slots in use; at 1.0 the next task is refused
+     */
+    public double getSaturation(Lane lane) {
+        double used = getActive(lane) + pools.get(lane).getQueue().size();
+        return Math.min(1.0, used / (lane.threads + lane.queue));
+    }
+}
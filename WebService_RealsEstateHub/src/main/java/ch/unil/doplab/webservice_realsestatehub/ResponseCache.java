@@ -0,0 +1,109 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.core.EntityTag;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ResponseCache - Serialized bodies of hot GET endpoints, see {@link CachedResponse}
+ * Entries remember the catalog version they were produced at and are dropped
+ * as soon as any property, offer or user changes. Memory is bounded by the
+ * total size of cached bodies, least recently used entries are evicted first.
+ */
+@ApplicationScoped
+public class ResponseCache {
+
+    static final long MAX_BYTES = 16L * 1024 * 1024;
+    static final int MAX_ENTRY_BYTES = 1024 * 1024;
+    private static final int ENTRY_OVERHEAD = 128; // key, headers and map node, roughly
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long invalidations;
+    private long evictions;
+
+    public static final class Entry {
+        private final long catalogVersion;
+        private final byte[] body;
+        private final String contentType;
+        private final EntityTag tag;
+        private final String cacheControl;
+
+        public Entry(long catalogVersion, byte[] body, String contentType, EntityTag tag, String cacheControl) {
+            this.catalogVersion = catalogVersion;
+            this.body = body;
+            this.contentType = contentType;
+            this.tag = tag;
+            this.cacheControl = cacheControl;
+        }
+
+        public byte[] getBody() { return body; }
+        public String getContentType() { return contentType; }
+        public EntityTag getTag() { return tag; }
+        public String getCacheControl() { return cacheControl; }
+
+        long size(String key) {
+            return body.length + 2L * key.length() + ENTRY_OVERHEAD;
+        }
+    }
+
+    /**
+     * Entry for the key if it was produced at the current catalog version
+     */
+    public synchronized Entry get(String key, long catalogVersion) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (entry.catalogVersion != catalogVersion) {
+            entries.remove(key);
+            bytes -= entry.size(key);
+            invalidations++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry;
+    }
+
+    public synchronized void put(String key, Entry entry) {
+        if (entry.body.length > MAX_ENTRY_BYTES) return;
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            bytes -= previous.size(key);
+        }
+        bytes += entry.size(key);
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (bytes > MAX_BYTES && eldest.hasNext()) {
+            Map.Entry<String, Entry> victim = eldest.next();
+            bytes -= victim.getValue().size(victim.getKey());
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized void clear() {
+        invalidations += entries.size();
+        entries.clear();
+        bytes = 0;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", entries.size());
+        stats.put("bytes", bytes);
+        stats.put("maxBytes", MAX_BYTES);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        stats.put("invalidations", invalidations);
+        stats.put("evictions", evictions);
+        return stats;
+    }
+}
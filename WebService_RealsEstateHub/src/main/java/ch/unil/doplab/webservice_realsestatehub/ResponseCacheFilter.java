@@ -0,0 +1,177 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import ch.unil.doplab.CatalogVersion;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.util.List;
+
+/**
+ * ResponseCacheFilter - Serves {@link CachedResponse} endpoints from the {@link ResponseCache}
+ * On a hit the resource method is skipped; on a miss the body is captured
+ * while it is written to the client and stored under the request URI plus
+ * the accepted representation, which is why responses carry Vary: Accept.
+ */
+@Provider
+@CachedResponse
+public class ResponseCacheFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+    private static final String KEY = ResponseCacheFilter.class.getName() + ".key";
+    private static final String VERSION = ResponseCacheFilter.class.getName() + ".version";
+    private static final String CACHE_CONTROL = ResponseCacheFilter.class.getName() + ".cacheControl";
+
+    @Inject
+    private ResponseCache cache;
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    public ResponseCacheFilter() {
+    }
+
+    ResponseCacheFilter(ResponseCache cache, ResourceInfo resourceInfo) {
+        this.cache = cache;
+        this.resourceInfo = resourceInfo;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        if (!HttpMethod.GET.equals(request.getMethod())) return;
+        long version = CatalogVersion.current();
+        String key = key(request.getUriInfo().getRequestUri(), request.getAcceptableMediaTypes());
+        ResponseCache.Entry entry = cache.get(key, version);
+        if (entry != null) {
+            Response.ResponseBuilder notModified = entry.getTag() != null
+                    ? request.getRequest().evaluatePreconditions(entry.getTag())
+                    : null;
+            Response.ResponseBuilder hit = notModified != null
+                    ? notModified
+                    : Response.ok(entry.getBody(), entry.getContentType()).tag(entry.getTag());
+            request.abortWith(hit.header(HttpHeaders.CACHE_CONTROL, entry.getCacheControl())
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                    .header("X-Cache", "HIT")
+                    .build());
+            return;
+        }
+        request.setProperty(KEY, key);
+        request.setProperty(VERSION, version);
+        request.setProperty(CACHE_CONTROL, cacheControl(resourceInfo != null ? resourceInfo.getResourceMethod() : null));
+    }
+
+    /**
+     * Request URI plus the accepted media types in preference order
+     */
+    static String key(URI uri, List<MediaType> accepted) {
+        StringBuilder key = new StringBuilder(uri.toString()).append('|');
+        for (MediaType type : accepted) {
+            key.append(type.getType()).append('/').append(type.getSubtype());
+            type.getParameters().forEach((name, value) -> key.append(';').append(name).append('=').append(value));
+            key.append(',');
+        }
+        return key.toString();
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        Object cacheControl = request.getProperty(CACHE_CONTROL);
+        if (cacheControl == null) return;
+        response.getHeaders().putSingle(HttpHeaders.CACHE_CONTROL, cacheControl);
+        response.getHeaders().putSingle(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (response.getStatus() == Response.Status.OK.getStatusCode() && response.hasEntity()) {
+            response.getHeaders().putSingle("X-Cache", "MISS");
+        } else {
+            request.removeProperty(KEY);
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        String key = (String) context.getProperty(KEY);
+        if (key == null) {
+            context.proceed();
+            return;
+        }
+        CapturingStream capture = new CapturingStream(context.getOutputStream(), ResponseCache.MAX_ENTRY_BYTES);
+        context.setOutputStream(capture);
+        context.proceed();
+        if (capture.overflowed) return;
+
+        EntityTag tag = EntityTags.fromHeader(context.getHeaders().getFirst(HttpHeaders.ETAG));
+        MediaType mediaType = context.getMediaType();
+        cache.put(key, new ResponseCache.Entry((Long) context.getProperty(VERSION), capture.buffer.toByteArray(),
+                mediaType != null ? mediaType.toString() : MediaType.APPLICATION_JSON,
+                tag, (String) context.getProperty(CACHE_CONTROL)));
+    }
+
+    static String cacheControl(Method resourceMethod) {
+        CachedResponse cached = resourceMethod != null ? resourceMethod.getAnnotation(CachedResponse.class) : null;
+        int maxAge = cached != null ? cached.maxAge() : 0;
+        return maxAge > 0 ? "public, max-age=" + maxAge : "no-cache";
+    }
+
+    /**
+     * Copies what is written to the client, giving up past a size limit
+     */
+    static final class CapturingStream extends FilterOutputStream {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final int limit;
+        private boolean overflowed;
+
+        CapturingStream(OutputStream out, int limit) {
+            super(out);
+            this.limit = limit;
+        }
+
+        boolean overflowed() {
+            return overflowed;
+        }
+
+        byte[] toByteArray() {
+            return buffer.toByteArray();
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            if (!overflowed) {
+                buffer.write(b);
+                checkSize();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            if (!overflowed) {
+                buffer.write(b, off, len);
+                checkSize();
+            }
+        }
+
+        private void checkSize() {
+            if (buffer.size() > limit) {
+                overflowed = true;
+                buffer.reset();
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import ch.unil.doplab.User;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import java.util.*;
+
+/**
+ * SavedPropertyResource - Properties a buyer or seller has saved
+ */
+@Path("/users/{userId}/saved-properties")
+@Produces(MediaType.APPLICATION_JSON)
+public class SavedPropertyResource {
+
+    @Inject
+    private ApplicationState state;
+
+    /**
+     * List saved property IDs
+     * GET /api/users/{userId}/saved-properties
+     */
+    @GET
+    public Response getSavedProperties(@PathParam("userId") String userId) {
+        try {
+            User user = state.getUserById(UUID.fromString(userId));
+            if (user == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity(new ErrorResponse("User not found"))
+                        .build();
+            }
+
+            return Response.ok(user.getSavedPropertyIds()).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse("Invalid user ID"))
+                    .build();
+        }
+    }
+
+    /**
+     * Save a property
+     * PUT /api/users/{userId}/saved-properties/{propertyId}
+     */
+    @PUT
+    @Path("/{propertyId}")
+    public Response saveProperty(@PathParam("userId") String userId, @PathParam("propertyId") String propertyId) {
+        try {
+            User user = state.getUserById(UUID.fromString(userId));
+            UUID propId = UUID.fromString(propertyId);
+            if (user == null || state.getPropertyById(propId) == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity(new ErrorResponse(user == null ? "User not found" : "Property not found"))
+                        .build();
+            }
+
+            boolean added = state.saveProperty(user, propId);
+            if (!added && state.getPropertyById(propId) == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity(new ErrorResponse("Property not found"))
+                        .build();
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("saved", true);
+            response.put("alreadySaved", !added);
+            response.put("saverCount", state.getSaverCount(propId));
+            return Response.ok(response).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse("Invalid user or property ID"))
+                    .build();
+        }
+    }
+
+    /**
+     * Remove a saved property
+     * DELETE /api/users/{userId}/saved-properties/{propertyId}
+     */
+    @DELETE
+    @Path("/{propertyId}")
+    public Response removeSavedProperty(@PathParam("userId") String userId, @PathParam("propertyId") String propertyId) {
+        try {
+            User user = state.getUserById(UUID.fromString(userId));
+            if (user == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity(new ErrorResponse("User not found"))
+                        .build();
+            }
+
+            if (!state.unsaveProperty(user, UUID.fromString(propertyId))) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity(new ErrorResponse("Property not saved"))
+                        .build();
+            }
+
+            return Response.status(Response.Status.NO_CONTENT).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse("Invalid user or property ID"))
+                    .build();
+        }
+    }
+
+    public static class ErrorResponse {
+        private String error;
+        public ErrorResponse(String error) { this.error = error; }
+        public String getError() { return error; }
+    }
+}
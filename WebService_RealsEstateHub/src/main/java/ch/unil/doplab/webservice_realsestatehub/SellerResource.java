@@ -4,10 +4,15 @@ import ch.unil.doplab.Property;
 import ch.unil.doplab.Seller;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.stream.Collectors;
 
 /**
@@ -22,6 +27,12 @@ public class SellerResource {
     @Inject
     private ApplicationState state;
 
+    @Inject
+    private PriceDropWatcher priceDropWatcher;
+
+    @Inject
+    private ResourceExecutors executors;
+
     // ===== CREATE =====
     @POST
     public Response createSeller(SellerDTO sellerDTO) {
@@ -39,7 +50,13 @@ public class SellerResource {
                 sellerDTO.password
         );
 
-        state.getSellers().put(seller.getUserID(), seller);
+        try {
+            state.registerSeller(seller);
+        } catch (IdentityConflictException e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(new ErrorResponse(e.getMessage()))
+                    .build();
+        }
 
         return Response.status(Response.Status.CREATED)
                 .entity(seller)
@@ -48,15 +65,20 @@ public class SellerResource {
 
     // ===== READ ALL =====
     @GET
-    public Response getAllSellers() {
-        List<Seller> sellerList = new ArrayList<>(state.getSellers().values());
-        return Response.ok(sellerList).build();
+    @Admission(Admission.Level.BULK)
+    public Response getAllSellers(@Context Request request) {
+        EntityTag tag = EntityTags.forCatalog(state.getCatalogVersion());
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null) {
+            return notModified.build();
+        }
+        return Response.ok(JsonCodecs.array(state.getSellers().values())).tag(tag).build();
     }
 
     // ===== READ ONE =====
     @GET
     @Path("/{id}")
-    public Response getSellerById(@PathParam("id") String id) {
+    public Response getSellerById(@PathParam("id") String id, @Context Request request) {
         try {
             UUID sellerId = UUID.fromString(id);
             Seller seller = state.getSellerById(sellerId);
@@ -67,7 +89,12 @@ public class SellerResource {
                         .build();
             }
 
-            return Response.ok(seller).build();
+            EntityTag tag = EntityTags.forVersion(seller.getVersion());
+            Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+            if (notModified != null) {
+                return notModified.build();
+            }
+            return Response.ok(seller).tag(tag).build();
         } catch (IllegalArgumentException e) {
             return Response.status(Response.Status.BAD_REQUEST)
                     .entity(new ErrorResponse("Invalid seller ID format"))
@@ -89,14 +116,19 @@ public class SellerResource {
                         .build();
             }
 
+            // Username and email go through the unique index first
+            state.changeIdentity(seller, sellerDTO.username, sellerDTO.email);
+
             // Update fields
             if (sellerDTO.firstName != null) seller.setFirstName(sellerDTO.firstName);
             if (sellerDTO.lastName != null) seller.setLastName(sellerDTO.lastName);
-            if (sellerDTO.email != null) seller.setEmail(sellerDTO.email);
-            if (sellerDTO.username != null) seller.setUsername(sellerDTO.username);
             if (sellerDTO.password != null) seller.setPassword(sellerDTO.password);
 
             return Response.ok(seller).build();
+        } catch (IdentityConflictException e) {
+            return Response.status(Response.Status.CONFLICT)
+                    .entity(new ErrorResponse(e.getMessage()))
+                    .build();
         } catch (IllegalArgumentException e) {
             return Response.status(Response.Status.BAD_REQUEST)
                     .entity(new ErrorResponse("Invalid seller ID format"))
@@ -110,13 +142,14 @@ public class SellerResource {
     public Response deleteSeller(@PathParam("id") String id) {
         try {
             UUID sellerId = UUID.fromString(id);
-            Seller removed = state.getSellers().remove(sellerId);
+            Seller removed = state.removeSeller(sellerId);
 
             if (removed == null) {
                 return Response.status(Response.Status.NOT_FOUND)
                         .entity(new ErrorResponse("Seller not found"))
                         .build();
             }
+            priceDropWatcher.forgetUser(sellerId);
 
             return Response.status(Response.Status.NO_CONTENT).build();
         } catch (IllegalArgumentException e) {
@@ -129,26 +162,29 @@ public class SellerResource {
     // ===== GET SELLER'S PROPERTIES =====
     @GET
     @Path("/{id}/properties")
-    public Response getSellerProperties(@PathParam("id") String id) {
+    @CachedResponse
+    @Admission(Admission.Level.BULK)
+    public CompletionStage<Response> getSellerProperties(@PathParam("id") String id) {
         try {
             UUID sellerId = UUID.fromString(id);
             Seller seller = state.getSellerById(sellerId);
 
             if (seller == null) {
-                return Response.status(Response.Status.NOT_FOUND)
+                return CompletableFuture.completedFuture(Response.status(Response.Status.NOT_FOUND)
                         .entity(new ErrorResponse("Seller not found"))
-                        .build();
+                        .build());
             }
 
-            List<Property> ownedProperties = state.getProperties().values().stream()
-                    .filter(p -> p.getOwnerId() != null && p.getOwnerId().equals(sellerId))
-                    .collect(Collectors.toList());
-
-            return Response.ok(ownedProperties).build();
+            return executors.submit(ResourceExecutors.Lane.READ, () -> {
+                List<Property> ownedProperties = state.getProperties().values().stream()
+                        .filter(p -> p.getOwnerId() != null && p.getOwnerId().equals(sellerId))
+                        .collect(Collectors.toList());
+                return Response.ok(JsonCodecs.array(ownedProperties)).build();
+            });
         } catch (IllegalArgumentException e) {
-            return Response.status(Response.Status.BAD_REQUEST)
+            return CompletableFuture.completedFuture(Response.status(Response.Status.BAD_REQUEST)
                     .entity(new ErrorResponse("Invalid seller ID format"))
-                    .build();
+                    .build());
         }
     }
 
@@ -0,0 +1,45 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JFR event for changes to the ApplicationState maps and indexes
+ */
+@Name("ch.unil.doplab.StateMutation")
+@Label("State Mutation")
+@Category({"RealEstateHub", "State"})
+@Description("An addition, removal or index change in ApplicationState")
+@StackTrace(false)
+@Threshold("100 us")
+class StateMutationEvent extends jdk.jfr.Event {
+
+    @Label("Entity")
+    String entity;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Count")
+    @Description("Entities affected, more than one for batches")
+    int count;
+
+    static StateMutationEvent start() {
+        StateMutationEvent event = new StateMutationEvent();
+        event.begin();
+        return event;
+    }
+
+    void end(String entity, String operation, int count) {
+        if (shouldCommit()) {
+            this.entity = entity;
+            this.operation = operation;
+            this.count = count;
+            commit();
+        }
+    }
+}
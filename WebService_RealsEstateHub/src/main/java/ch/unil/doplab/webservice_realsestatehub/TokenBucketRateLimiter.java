@@ -0,0 +1,74 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TokenBucketRateLimiter - Flow control in front of an external provider
+ * Refills continuously up to the bucket capacity and never blocks the caller
+ */
+public class TokenBucketRateLimiter {
+
+    private final double capacity;
+    private final double refillPerNano;
+    private double tokens;
+    private long lastRefill;
+
+    private final AtomicLong granted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public TokenBucketRateLimiter(int capacity, double permitsPerSecond) {
+        this(capacity, permitsPerSecond, System.nanoTime());
+    }
+
+    TokenBucketRateLimiter(int capacity, double permitsPerSecond, long now) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        if (permitsPerSecond <= 0) throw new IllegalArgumentException("permitsPerSecond must be positive");
+        this.capacity = capacity;
+        this.refillPerNano = permitsPerSecond / 1_000_000_000.0;
+        this.tokens = capacity;
+        this.lastRefill = now;
+    }
+
+    /**
+     * Take one token if available, otherwise count a rejection
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(System.nanoTime());
+    }
+
+    synchronized boolean tryAcquire(long now) {
+        refill(now);
+        if (tokens >= 1.0) {
+            tokens -= 1.0;
+            granted.incrementAndGet();
+            return true;
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    public double getAvailableTokens() {
+        return getAvailableTokens(System.nanoTime());
+    }
+
+    synchronized double getAvailableTokens(long now) {
+        refill(now);
+        return tokens;
+    }
+
+    public long getGrantedCount() {
+        return granted.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    private void refill(long now) {
+        long elapsed = now - lastRefill;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * refillPerNano);
+            lastRefill = now;
+        }
+    }
+}
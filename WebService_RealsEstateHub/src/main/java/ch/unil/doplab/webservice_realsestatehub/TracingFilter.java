@@ -0,0 +1,69 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import jakarta.annotation.Priority;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+
+import java.io.IOException;
+
+/**
+ * Continues the caller's trace, or starts one, for every request.
+ * The handler span covers filters and the resource method, the
+ * serialization span the entity writer; both hang off the caller's span.
+ * Spans started while the method runs (email dispatch) become children
+ * of the handler span.
+ */
+@Provider
+@Priority(90)
+public class TracingFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+    public static final String TRACE_ID_HEADER = "X-Trace-Id";
+    private static final String SPAN = TracingFilter.class.getName() + ".span";
+    private static final String CONTEXT = TracingFilter.class.getName() + ".context";
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        Tracing.TraceContext incoming = Tracing.parse(request.getHeaderString(Tracing.HEADER));
+        Tracing.TraceContext trace = incoming != null ? incoming : Tracing.newRoot();
+        request.setProperty(CONTEXT, trace);
+        Tracing.Span span = Tracing.start(trace, "server handler");
+        if (span.isRecording()) {
+            request.setProperty(SPAN, span);
+            Tracing.setCurrent(span.context());
+        } else {
+            Tracing.setCurrent(null);
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        Object trace = request.getProperty(CONTEXT);
+        if (trace instanceof Tracing.TraceContext context) {
+            response.getHeaders().putSingle(TRACE_ID_HEADER, context.traceId());
+        }
+        if (request.getProperty(SPAN) instanceof Tracing.Span span) {
+            span.detail(request.getMethod() + " /" + request.getUriInfo().getPath()
+                    + " -> " + response.getStatus()).end();
+        }
+        Tracing.setCurrent(null);
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        if (!(context.getProperty(CONTEXT) instanceof Tracing.TraceContext trace) || !trace.sampled()) {
+            context.proceed();
+            return;
+        }
+        Tracing.Span span = Tracing.start(trace, "serialization");
+        try {
+            context.proceed();
+        } finally {
+            span.detail(context.getType().getSimpleName()).end();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+
+/**
+ * UnhandledExceptionMapper - Turns exceptions no resource caught into a 500
+ * Without a response the container skips the response filters, so the
+ * admission slot, the metrics sample and the trace span of the request
+ * would never be closed.
+ */
+@Provider
+public class UnhandledExceptionMapper implements ExceptionMapper<Throwable> {
+
+    @Override
+    public Response toResponse(Throwable exception) {
+        Throwable cause = exception instanceof CompletionException && exception.getCause() != null
+                ? exception.getCause()
+                : exception;
+        if (cause instanceof WebApplicationException webException) {
+            return webException.getResponse();
+        }
+        System.err.println("Unhandled error in resource method: " + cause);
+        return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                .type(MediaType.APPLICATION_JSON)
+                .entity(Map.of("error", "Internal server error"))
+                .build();
+    }
+}
@@ -0,0 +1,195 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the AdmissionController class.
+ * Tests the class shares, the AIMD limit and, in a simulated overload,
+ * that latency of admitted requests stays bounded while excess bulk work is shed.
+ */
+class AdmissionControllerTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void testLowerClassesOnlyFillTheirShareOfTheLimit() {
+        AdmissionController controller = new AdmissionController();
+        int bulkShare = (int) (AdmissionController.INITIAL_LIMIT * Admission.Level.BULK.getShare());
+        for (int i = 0; i < bulkShare; i++) {
+            assertTrue(controller.tryAcquire(Admission.Level.BULK));
+        }
+        assertFalse(controller.tryAcquire(Admission.Level.BULK));
+        assertTrue(controller.tryAcquire(Admission.Level.NORMAL));
+        assertTrue(controller.tryAcquire(Admission.Level.CRITICAL));
+        assertEquals(bulkShare + 2, controller.getInFlight());
+        assertEquals(1, controller.getRejected(Admission.Level.BULK));
+    }
+
+    @Test
+    void testReleaseReturnsTheSlot() {
+        AdmissionController controller = new AdmissionController();
+        AdmissionController.Baseline baseline = new AdmissionController.Baseline();
+        assertTrue(controller.tryAcquire(Admission.Level.CRITICAL));
+        controller.release(baseline, MILLIS, false);
+        assertEquals(0, controller.getInFlight());
+        assertEquals(AdmissionController.INITIAL_LIMIT, controller.getLimit());
+    }
+
+    @Test
+    void testSheddingBacksOffAtMostOncePerInterval() {
+        AdmissionController controller = new AdmissionController();
+        AdmissionController.Baseline baseline = new AdmissionController.Baseline();
+        long now = System.nanoTime();
+        controller.tryAcquire(Admission.Level.CRITICAL);
+        controller.tryAcquire(Admission.Level.CRITICAL);
+        controller.release(baseline, MILLIS, true, now);
+        controller.release(baseline, MILLIS, true, now + 10 * MILLIS);
+        assertEquals((int) (AdmissionController.INITIAL_LIMIT * 0.9), controller.getLimit());
+        assertEquals(0, controller.getInFlight());
+    }
+
+    @Test
+    void testLimitNeverDropsBelowMinimum() {
+        AdmissionController controller = new AdmissionController();
+        AdmissionController.Baseline baseline = new AdmissionController.Baseline();
+        long now = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            controller.tryAcquire(Admission.Level.CRITICAL);
+            now += 200 * MILLIS;
+            controller.release(baseline, MILLIS, true, now);
+        }
+        assertEquals(AdmissionController.MIN_LIMIT, controller.getLimit());
+    }
+
+    @Test
+    void testSlowRequestCountsAsQueueing() {
+        AdmissionController controller = new AdmissionController();
+        AdmissionController.Baseline baseline = new AdmissionController.Baseline();
+        long now = System.nanoTime();
+        controller.tryAcquire(Admission.Level.CRITICAL);
+        controller.release(baseline, MILLIS, false, now);
+        controller.tryAcquire(Admission.Level.CRITICAL);
+        controller.release(baseline, 7 * MILLIS, false, now + MILLIS); // 1 ms * 2 + 5 ms slack
+        assertEquals(AdmissionController.INITIAL_LIMIT, controller.getLimit());
+        controller.tryAcquire(Admission.Level.CRITICAL);
+        controller.release(baseline, 20 * MILLIS, false, now + 2 * MILLIS);
+        assertTrue(controller.getLimit() < AdmissionController.INITIAL_LIMIT);
+    }
+
+    @Test
+    void testLimitGrowsWhileBusyAndFast() {
+        AdmissionController controller = new AdmissionController();
+        AdmissionController.Baseline baseline = new AdmissionController.Baseline();
+        for (int i = 0; i < AdmissionController.INITIAL_LIMIT; i++) {
+            controller.tryAcquire(Admission.Level.CRITICAL);
+        }
+        for (int i = 0; i < 2 * AdmissionController.INITIAL_LIMIT; i++) {
+            controller.release(baseline, MILLIS, false);
+            controller.tryAcquire(Admission.Level.CRITICAL);
+        }
+        assertTrue(controller.getLimit() > AdmissionController.INITIAL_LIMIT);
+    }
+
+    @Test
+    void testBaselineKeepsTheLowestLatencyOfTwoWindows() {
+        AdmissionController.Baseline baseline = new AdmissionController.Baseline();
+        long now = System.nanoTime();
+        assertEquals(5, baseline.update(5, now));
+        assertEquals(5, baseline.update(9, now + 1));
+        long nextWindow = now + TimeUnit.SECONDS.toNanos(31);
+        assertEquals(5, baseline.update(9, nextWindow));
+        assertEquals(9, baseline.update(9, nextWindow + TimeUnit.SECONDS.toNanos(31)));
+    }
+
+    /**
+     * Four workers serve writes (1 ms) and bulk listings (4 ms, 70% of the
+     * traffic) offered at twice their capacity, in virtual time. Unlimited,
+     * the queue grows for the whole run; with admission, writes keep a p99
+     * close to their service time and bulk work absorbs the shedding.
+     */
+    @Test
+    void testOverloadKeepsP99StableByShedding() {
+        Simulation unlimited = Simulation.run(false);
+        Simulation limited = Simulation.run(true);
+
+        assertTrue(unlimited.p99(false) > 1_000 * MILLIS, "unlimited write p99 " + unlimited.p99(false));
+        assertTrue(limited.p99(false) < 50 * MILLIS, "limited write p99 " + limited.p99(false));
+        assertTrue(limited.p99(true) < 50 * MILLIS, "limited bulk p99 " + limited.p99(true));
+        assertEquals(0, limited.rejectedWrites);
+        assertTrue(limited.rejectedBulk > 0);
+        assertTrue(limited.controller.getLimit() >= AdmissionController.MIN_LIMIT);
+    }
+
+    private static final class Simulation {
+        private static final int WORKERS = 4;
+        private static final long WRITE_NANOS = MILLIS;
+        private static final long BULK_NANOS = 4 * MILLIS;
+        private static final long INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1) / 2600; // ~2x capacity
+        private static final long DURATION_NANOS = TimeUnit.SECONDS.toNanos(20);
+
+        private final AdmissionController controller = new AdmissionController();
+        private final List<Long> writeLatencies = new ArrayList<>();
+        private final List<Long> bulkLatencies = new ArrayList<>();
+        private int rejectedWrites;
+        private int rejectedBulk;
+
+        private record Completion(long at, long arrival, boolean bulk) {
+        }
+
+        static Simulation run(boolean limited) {
+            Simulation simulation = new Simulation();
+            AdmissionController.Baseline writes = new AdmissionController.Baseline();
+            AdmissionController.Baseline bulk = new AdmissionController.Baseline();
+            PriorityQueue<Completion> pending = new PriorityQueue<>((a, b) -> Long.compare(a.at(), b.at()));
+            PriorityQueue<Long> freeAt = new PriorityQueue<>();
+            Random random = new Random(1);
+            long start = System.nanoTime();
+            for (int i = 0; i < WORKERS; i++) {
+                freeAt.add(start);
+            }
+            for (long now = start; now - start < DURATION_NANOS; now += INTERVAL_NANOS) {
+                while (!pending.isEmpty() && pending.peek().at() <= now) {
+                    Completion done = pending.poll();
+                    long latency = done.at() - done.arrival();
+                    if (limited) {
+                        simulation.controller.release(done.bulk() ? bulk : writes, latency, false, done.at());
+                    }
+                    if (done.arrival() - start >= DURATION_NANOS / 2) {
+                        (done.bulk() ? simulation.bulkLatencies : simulation.writeLatencies).add(latency);
+                    }
+                }
+                boolean isBulk = random.nextDouble() < 0.7;
+                if (limited && !simulation.controller.tryAcquire(isBulk ? Admission.Level.BULK : Admission.Level.CRITICAL)) {
+                    if (isBulk) simulation.rejectedBulk++;
+                    else simulation.rejectedWrites++;
+                    continue;
+                }
+                long begin = Math.max(now, freeAt.poll());
+                long end = begin + (isBulk ? BULK_NANOS : WRITE_NANOS);
+                freeAt.add(end);
+                pending.add(new Completion(end, now, isBulk));
+            }
+            for (Completion done : pending) {
+                if (done.arrival() - start >= DURATION_NANOS / 2) {
+                    (done.bulk() ? simulation.bulkLatencies : simulation.writeLatencies).add(done.at() - done.arrival());
+                }
+            }
+            return simulation;
+        }
+
+        long p99(boolean bulk) {
+            long[] sorted = (bulk ? bulkLatencies : writeLatencies).stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+            return sorted[(int) (sorted.length * 0.99)];
+        }
+    }
+}
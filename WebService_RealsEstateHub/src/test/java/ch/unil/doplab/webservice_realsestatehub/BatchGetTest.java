@@ -0,0 +1,106 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import ch.unil.doplab.Property;
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonString;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the BatchGet class.
+ * Tests the id cap, that duplicates are resolved once in request order and
+ * that ids without an entity are listed as missing.
+ */
+class BatchGetTest {
+
+    private static BatchGet.IdsDTO ids(List<String> ids) {
+        BatchGet.IdsDTO dto = new BatchGet.IdsDTO();
+        dto.setIds(ids);
+        return dto;
+    }
+
+    private static List<String> randomIds(int count) {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(UUID.randomUUID().toString());
+        }
+        return ids;
+    }
+
+    private static JsonObject resolve(Set<UUID> ids, Map<UUID, ?> entities) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BatchGet.resolve(ids, entities).write(out);
+        return Json.createReader(new StringReader(out.toString(StandardCharsets.UTF_8))).readObject();
+    }
+
+    private static Property property(String title) {
+        return new Property(title, null, "", "Lausanne", 400000, 70, Property.PropertyType.LOFT);
+    }
+
+    @Test
+    void testAtMostMaxIdsPerRequest() {
+        assertEquals(BatchGet.MAX_IDS, BatchGet.parse(ids(randomIds(BatchGet.MAX_IDS))).size());
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> BatchGet.parse(ids(randomIds(BatchGet.MAX_IDS + 1))));
+        assertTrue(e.getMessage().contains(String.valueOf(BatchGet.MAX_IDS)), e.getMessage());
+    }
+
+    @Test
+    void testEmptyOrInvalidIdsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> BatchGet.parse(null));
+        assertThrows(IllegalArgumentException.class, () -> BatchGet.parse(ids(null)));
+        assertThrows(IllegalArgumentException.class, () -> BatchGet.parse(ids(List.of())));
+        assertThrows(IllegalArgumentException.class, () -> BatchGet.parse(ids(List.of("not-a-uuid"))));
+        assertThrows(IllegalArgumentException.class, () -> BatchGet.parse(ids(Arrays.asList(UUID.randomUUID().toString(), null))));
+    }
+
+    @Test
+    void testDuplicatesAreResolvedOnceInRequestOrder() throws IOException {
+        Property loft = property("Loft");
+        Property villa = property("Villa");
+        Map<UUID, Property> properties = new LinkedHashMap<>();
+        properties.put(loft.getPropertyId(), loft);
+        properties.put(villa.getPropertyId(), villa);
+
+        Set<UUID> ids = BatchGet.parse(ids(List.of(villa.getPropertyId().toString(), loft.getPropertyId().toString(),
+                villa.getPropertyId().toString())));
+        assertEquals(List.of(villa.getPropertyId(), loft.getPropertyId()), List.copyOf(ids));
+
+        JsonObject body = resolve(ids, properties);
+        assertEquals(List.of("Villa", "Loft"), body.getJsonArray("items").stream()
+                .map(item -> item.asJsonObject().getString("title"))
+                .toList());
+        assertTrue(body.getJsonArray("missing").isEmpty());
+    }
+
+    @Test
+    void testIdsWithoutEntityAreListedAsMissing() throws IOException {
+        Property loft = property("Loft");
+        UUID gone = UUID.randomUUID();
+        UUID unknown = UUID.randomUUID();
+        Set<UUID> ids = BatchGet.parse(ids(List.of(gone.toString(), loft.getPropertyId().toString(),
+                unknown.toString(), gone.toString())));
+
+        JsonObject body = resolve(ids, Map.of(loft.getPropertyId(), loft));
+        assertEquals(1, body.getJsonArray("items").size());
+        assertEquals(loft.getPropertyId().toString(), body.getJsonArray("items").getJsonObject(0).getString("propertyId"));
+        assertEquals(List.of(gone.toString(), unknown.toString()), body.getJsonArray("missing").stream()
+                .map(id -> ((JsonString) id).getString())
+                .toList());
+    }
+}
@@ -0,0 +1,133 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import ch.unil.doplab.CatalogVersion;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ChangeLog class.
+ * Tests paging, per-entity folding and the ring's wrap-around and loss detection.
+ */
+class ChangeLogTest {
+
+    private static List<Long> versions(ChangeLog.Page page) {
+        return page.getChanges().stream().map(ChangeLog.Entry::getVersion).toList();
+    }
+
+    private static void appendUpdates(ChangeLog log, long from, long to) {
+        for (long version = from; version <= to; version++) {
+            log.append(version, "property", UUID.randomUUID(), CatalogVersion.Change.UPDATED);
+        }
+    }
+
+    @Test
+    void testCapacityAndLimitMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new ChangeLog(0));
+        assertThrows(IllegalArgumentException.class, () -> new ChangeLog(4).since(0, 0));
+    }
+
+    @Test
+    void testEmptyLogHasNothingAfterAnyVersion() {
+        ChangeLog.Page page = new ChangeLog(4).since(7, 10);
+        assertTrue(page.getChanges().isEmpty());
+        assertEquals(7, page.getNext());
+        assertFalse(page.isHasMore());
+    }
+
+    @Test
+    void testPagesFollowEachOtherWithoutGaps() {
+        ChangeLog log = new ChangeLog(16);
+        appendUpdates(log, 1, 5);
+
+        ChangeLog.Page first = log.since(0, 2);
+        assertEquals(List.of(1L, 2L), versions(first));
+        assertTrue(first.isHasMore());
+        ChangeLog.Page second = log.since(first.getNext(), 2);
+        assertEquals(List.of(3L, 4L), versions(second));
+        ChangeLog.Page last = log.since(second.getNext(), 2);
+        assertEquals(List.of(5L), versions(last));
+        assertFalse(last.isHasMore());
+        assertTrue(log.since(last.getNext(), 2).getChanges().isEmpty());
+    }
+
+    @Test
+    void testChangesSharingAVersionStayOnOnePage() {
+        ChangeLog log = new ChangeLog(16);
+        log.append(1, "property", UUID.randomUUID(), CatalogVersion.Change.CREATED);
+        log.append(2, "property", UUID.randomUUID(), CatalogVersion.Change.CREATED);
+        log.append(2, "property", UUID.randomUUID(), CatalogVersion.Change.CREATED);
+        log.append(2, "property", UUID.randomUUID(), CatalogVersion.Change.CREATED);
+        log.append(3, "property", UUID.randomUUID(), CatalogVersion.Change.CREATED);
+
+        ChangeLog.Page page = log.since(0, 2);
+        assertEquals(List.of(1L, 2L, 2L, 2L), versions(page));
+        assertEquals(2, page.getNext());
+        assertEquals(List.of(3L), versions(log.since(page.getNext(), 2)));
+    }
+
+    @Test
+    void testChangesToOneEntityFoldIntoTheLatest() {
+        ChangeLog log = new ChangeLog(16);
+        UUID id = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+        log.append(1, "property", id, CatalogVersion.Change.CREATED);
+        log.append(2, "property", other, CatalogVersion.Change.UPDATED);
+        log.append(3, "property", id, CatalogVersion.Change.UPDATED);
+        log.append(4, "offer", id, CatalogVersion.Change.UPDATED);
+
+        List<ChangeLog.Entry> changes = log.since(0, 10).getChanges();
+        assertEquals(3, changes.size());
+        assertEquals(other, changes.get(0).getId());
+        assertEquals(3, changes.get(1).getVersion());
+        assertEquals(CatalogVersion.Change.CREATED, changes.get(1).getChange());
+        assertEquals("offer", changes.get(2).getEntity());
+
+        log.append(5, "property", id, CatalogVersion.Change.DELETED);
+        List<ChangeLog.Entry> deleted = log.since(2, 10).getChanges();
+        assertEquals(List.of(4L, 5L), deleted.stream().map(ChangeLog.Entry::getVersion).toList());
+        assertEquals(CatalogVersion.Change.DELETED, deleted.get(1).getChange());
+    }
+
+    @Test
+    void testWrappedRingStillSearchesInVersionOrder() {
+        ChangeLog log = new ChangeLog(4);
+        appendUpdates(log, 1, 10); // slots hold 9, 10, 7, 8
+
+        assertEquals(List.of(7L, 8L, 9L, 10L), versions(log.since(6, 10)));
+        assertEquals(List.of(9L, 10L), versions(log.since(8, 10)));
+        assertEquals(List.of(8L, 9L), versions(log.since(7, 2)));
+        assertTrue(log.since(10, 10).getChanges().isEmpty());
+    }
+
+    @Test
+    void testOverwrittenChangesForceAReload() {
+        ChangeLog log = new ChangeLog(4);
+        appendUpdates(log, 1, 4);
+        assertNotNull(log.since(0, 10));
+
+        appendUpdates(log, 5, 6);
+        assertNull(log.since(0, 10));
+        assertNull(log.since(1, 10));
+        assertEquals(List.of(3L, 4L, 5L, 6L), versions(log.since(2, 10)));
+        assertEquals(2L, log.getStats().get("retainedAfterVersion"));
+        assertEquals(4L, log.getStats().get("retained"));
+        assertEquals(6L, log.getStats().get("appended"));
+    }
+
+    @Test
+    void testPartlyOverwrittenVersionIsLost() {
+        ChangeLog log = new ChangeLog(4);
+        appendUpdates(log, 1, 1);
+        log.append(2, "property", UUID.randomUUID(), CatalogVersion.Change.CREATED);
+        log.append(2, "property", UUID.randomUUID(), CatalogVersion.Change.CREATED);
+        log.append(2, "property", UUID.randomUUID(), CatalogVersion.Change.CREATED);
+        appendUpdates(log, 3, 4); // overwrites version 1 and one change of version 2
+
+        assertNull(log.since(1, 10));
+        assertEquals(List.of(3L, 4L), versions(log.since(2, 10)));
+    }
+}
@@ -0,0 +1,113 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the CircuitBreaker class.
+ * Tests the CLOSED, OPEN and HALF_OPEN transitions on a virtual clock and
+ * that only permits granted in the current state decide the next one.
+ */
+class CircuitBreakerTest {
+
+    private static final long OPEN_MILLIS = 30_000;
+    private static final long OPEN_NANOS = TimeUnit.MILLISECONDS.toNanos(OPEN_MILLIS);
+    private static final long OPENED = 1_000;
+    private static final long AFTER_COOL_DOWN = OPENED + OPEN_NANOS;
+
+    private static CircuitBreaker openBreaker() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 2, OPEN_MILLIS, 1);
+        for (int i = 0; i < 2; i++) {
+            breaker.recordFailure(breaker.tryAcquirePermission(OPENED), OPENED);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        return breaker;
+    }
+
+    @Test
+    void testOpensAfterConsecutiveFailures() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 2, OPEN_MILLIS, 1);
+        breaker.recordFailure(breaker.tryAcquirePermission());
+        breaker.recordSuccess(breaker.tryAcquirePermission());
+        breaker.recordFailure(breaker.tryAcquirePermission());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.recordFailure(breaker.tryAcquirePermission());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void testOpenRejectsUntilCoolDownMeasuredFromTheGivenClock() {
+        CircuitBreaker breaker = openBreaker();
+        assertNull(breaker.tryAcquirePermission(AFTER_COOL_DOWN - 1));
+        assertEquals(1, breaker.getRejectedCount());
+        assertNotNull(breaker.tryAcquirePermission(AFTER_COOL_DOWN));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    void testHalfOpenLimitsProbesAndClosesOnSuccess() {
+        CircuitBreaker breaker = openBreaker();
+        CircuitBreaker.Permit probe = breaker.tryAcquirePermission(AFTER_COOL_DOWN);
+        assertNotNull(probe);
+        assertNull(breaker.tryAcquirePermission(AFTER_COOL_DOWN));
+        breaker.recordSuccess(probe, AFTER_COOL_DOWN);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertNotNull(breaker.tryAcquirePermission(AFTER_COOL_DOWN));
+    }
+
+    @Test
+    void testFailedProbeOpensAgainFromItsOwnTime() {
+        CircuitBreaker breaker = openBreaker();
+        long probeFailed = AFTER_COOL_DOWN + 500;
+        breaker.recordFailure(breaker.tryAcquirePermission(AFTER_COOL_DOWN), probeFailed);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertNull(breaker.tryAcquirePermission(probeFailed + OPEN_NANOS - 1));
+        assertNotNull(breaker.tryAcquirePermission(probeFailed + OPEN_NANOS));
+        assertEquals(2L, breaker.getTransitionCounts().get(CircuitBreaker.State.OPEN));
+    }
+
+    @Test
+    void testReleasedProbeCanBeTakenAgain() {
+        CircuitBreaker breaker = openBreaker();
+        CircuitBreaker.Permit probe = breaker.tryAcquirePermission(AFTER_COOL_DOWN);
+        breaker.releasePermission(probe);
+        breaker.releasePermission(probe);
+        assertNotNull(breaker.tryAcquirePermission(AFTER_COOL_DOWN));
+        assertNull(breaker.tryAcquirePermission(AFTER_COOL_DOWN));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    void testCallGrantedWhileClosedDoesNotDecideTheProbe() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 2, OPEN_MILLIS, 1);
+        CircuitBreaker.Permit slowCall = breaker.tryAcquirePermission(0);
+        breaker.recordFailure(breaker.tryAcquirePermission(0), 0);
+        breaker.recordFailure(breaker.tryAcquirePermission(0), OPENED);
+        CircuitBreaker.Permit probe = breaker.tryAcquirePermission(AFTER_COOL_DOWN);
+        assertNotNull(probe);
+
+        // The slow call from before the breaker opened finishes during the probe
+        breaker.recordSuccess(slowCall, AFTER_COOL_DOWN);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertNull(breaker.tryAcquirePermission(AFTER_COOL_DOWN), "the probe slot is still taken");
+
+        breaker.recordFailure(probe, AFTER_COOL_DOWN);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void testPermitsCountOnce() {
+        CircuitBreaker breaker = openBreaker();
+        CircuitBreaker.Permit probe = breaker.tryAcquirePermission(AFTER_COOL_DOWN);
+        breaker.recordSuccess(probe, AFTER_COOL_DOWN);
+
+        CircuitBreaker.Permit first = breaker.tryAcquirePermission(AFTER_COOL_DOWN);
+        breaker.recordFailure(first, AFTER_COOL_DOWN);
+        breaker.recordFailure(first, AFTER_COOL_DOWN); // the same permit twice counts once
+        breaker.recordFailure(probe, AFTER_COOL_DOWN);  // already used
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+}
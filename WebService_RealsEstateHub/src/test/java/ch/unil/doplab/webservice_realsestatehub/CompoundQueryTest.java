@@ -0,0 +1,117 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import ch.unil.doplab.Buyer;
+import ch.unil.doplab.Offer;
+import ch.unil.doplab.Property;
+import ch.unil.doplab.Seller;
+import jakarta.json.Json;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the CompoundQuery class.
+ * Tests parsing and checking of selections and the shape of the streamed result.
+ */
+class CompoundQueryTest {
+
+    private static String parseError(String select) {
+        return assertThrows(IllegalArgumentException.class, () -> CompoundQuery.parse(select)).getMessage();
+    }
+
+    private static JsonObject run(CompoundQuery query, Set<UUID> ids, ApplicationState state) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        query.execute(ids, state).write(out);
+        return Json.createReader(new StringReader(out.toString(StandardCharsets.UTF_8))).readObject();
+    }
+
+    @Test
+    void testValidSelectionsParse() {
+        assertNotNull(CompoundQuery.parse(null));
+        assertNotNull(CompoundQuery.parse("  "));
+        assertNotNull(CompoundQuery.parse("title"));
+        assertNotNull(CompoundQuery.parse(" title , price , seller { fullName } "));
+        assertNotNull(CompoundQuery.parse("offers{buyer{email}}"));
+        assertNotNull(CompoundQuery.parse("title,title"));
+    }
+
+    @Test
+    void testSyntaxErrorsNameThePosition() {
+        assertEquals("Expected a field name at position 6 of select", parseError("title,"));
+        assertEquals("Expected a field name at position 0 of select", parseError(",title"));
+        assertEquals("Expected a field name at position 7 of select", parseError("seller{}"));
+        assertEquals("Missing '}' after 'seller{' in select", parseError("seller{email"));
+        assertEquals("Unexpected '}' at position 5 of select", parseError("title}"));
+        assertEquals("Unexpected 'p' at position 6 of select", parseError("title price"));
+    }
+
+    @Test
+    void testNestingIsLimited() {
+        assertEquals("select nests deeper than 3 levels", parseError("offers{buyer{seller{email}}}"));
+    }
+
+    @Test
+    void testUnknownNamesAreRejectedPerLevel() {
+        assertTrue(parseError("owner{email}").startsWith("Unknown relation 'owner' on property"));
+        assertTrue(parseError("seller{offers{amount}}").startsWith("Unknown relation 'offers' on seller"));
+        assertTrue(parseError("seller{budgett}").startsWith("Unknown field 'budgett' on seller"));
+        assertTrue(parseError("offers{price}").startsWith("Unknown field 'price' on offer"));
+        assertTrue(parseError("offers{buyer{amount}}").startsWith("Unknown field 'amount' on buyer"));
+        assertTrue(parseError("colour").startsWith("Unknown field 'colour'"));
+    }
+
+    @Test
+    void testExecuteResolvesRelationsAndReportsMissingIds() throws IOException {
+        ApplicationState state = new ApplicationState();
+        Seller seller = new Seller("Jane", "Smith", "jane@seller.com", "janesmith", "pass456");
+        Buyer buyer = new Buyer("John", "Doe", "john@buyer.com", "johndoe", "pass123", 600000);
+        state.registerSeller(seller);
+        state.registerBuyer(buyer);
+        Property property = new Property("Loft", seller.getUserID(), "", "Lausanne", 400000, 70, Property.PropertyType.LOFT);
+        Property orphan = new Property("Orphan", UUID.randomUUID(), "", "Pully", 1, 1, Property.PropertyType.HOUSE);
+        state.addProperty(property);
+        state.addProperty(orphan);
+        state.addOffer(new Offer(property.getPropertyId(), buyer.getUserID(), 390000));
+        UUID unknown = UUID.randomUUID();
+
+        JsonObject result = run(CompoundQuery.parse("title,seller{fullName},offers{amount,buyer{email}}"),
+                new LinkedHashSet<>(List.of(property.getPropertyId(), unknown, orphan.getPropertyId())), state);
+
+        JsonArray items = result.getJsonArray("items");
+        assertEquals(2, items.size());
+        JsonObject loft = items.getJsonObject(0);
+        assertEquals("Loft", loft.getString("title"));
+        assertEquals("Jane Smith", loft.getJsonObject("seller").getString("fullName"));
+        JsonObject offer = loft.getJsonArray("offers").getJsonObject(0);
+        assertEquals(390000, offer.getJsonNumber("amount").doubleValue());
+        assertEquals("john@buyer.com", offer.getJsonObject("buyer").getString("email"));
+        assertEquals(Set.of("amount", "buyer"), offer.keySet());
+
+        JsonObject orphanItem = items.getJsonObject(1);
+        assertTrue(orphanItem.isNull("seller"));
+        assertTrue(orphanItem.getJsonArray("offers").isEmpty());
+        assertEquals(unknown.toString(), result.getJsonArray("missing").getString(0));
+    }
+
+    @Test
+    void testRelationsOnlySelectionWritesNoPropertyFields() throws IOException {
+        ApplicationState state = new ApplicationState();
+        Property property = new Property("Loft", null, "", "Lausanne", 400000, 70, Property.PropertyType.LOFT);
+        state.addProperty(property);
+
+        JsonObject item = run(CompoundQuery.parse("offers{amount}"), Set.of(property.getPropertyId()), state)
+                .getJsonArray("items").getJsonObject(0);
+        assertEquals(Set.of("offers"), item.keySet());
+    }
+}
@@ -0,0 +1,192 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import jakarta.ws.rs.core.GenericType;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseBroadcaster;
+import jakarta.ws.rs.sse.SseEventSink;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the EventBroadcaster class.
+ * Tests that the heartbeat reaches idle connections and drops the dead ones.
+ */
+class EventBroadcasterTest {
+
+    private final EventBroadcaster broadcaster = new EventBroadcaster();
+    private final Sse sse = new FakeSse();
+
+    @Test
+    void testHeartbeatIsSentAsACommentToIdleConnections() {
+        FakeSink sink = new FakeSink();
+        broadcaster.subscribe(UUID.randomUUID(), sink, sse);
+        broadcaster.heartbeat();
+
+        assertEquals(List.of("connected", "#heartbeat"), sink.sent);
+        assertEquals(1, broadcaster.getStats().get("connections"));
+    }
+
+    @Test
+    void testHeartbeatDropsConnectionsWhoseClientLeft() {
+        UUID userId = UUID.randomUUID();
+        FakeSink gone = new FakeSink();
+        FakeSink alive = new FakeSink();
+        broadcaster.subscribe(userId, gone, sse);
+        broadcaster.subscribe(userId, alive, sse);
+        gone.failSends = true;
+
+        broadcaster.heartbeat();
+
+        assertEquals(1, broadcaster.getStats().get("connections"));
+        assertEquals(1L, broadcaster.getStats().get("disconnected"));
+        assertTrue(gone.closed);
+        assertFalse(alive.closed);
+    }
+
+    @Test
+    void testHeartbeatDropsSinksClosedByTheContainer() {
+        FakeSink sink = new FakeSink();
+        broadcaster.subscribe(UUID.randomUUID(), sink, sse);
+        sink.closed = true;
+
+        broadcaster.heartbeat();
+
+        assertEquals(0, broadcaster.getStats().get("subscribedUsers"));
+        assertEquals(List.of("connected"), sink.sent);
+    }
+
+    private static final class FakeSink implements SseEventSink {
+        private final List<String> sent = new ArrayList<>();
+        private boolean closed;
+        private boolean failSends;
+
+        @Override
+        public boolean isClosed() {
+            return closed;
+        }
+
+        @Override
+        public CompletionStage<?> send(OutboundSseEvent event) {
+            if (failSends) {
+                return CompletableFuture.failedFuture(new IllegalStateException("client gone"));
+            }
+            sent.add(event.getComment() != null ? "#" + event.getComment() : event.getName());
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static final class FakeSse implements Sse {
+        @Override
+        public OutboundSseEvent.Builder newEventBuilder() {
+            return new FakeBuilder();
+        }
+
+        @Override
+        public SseBroadcaster newBroadcaster() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private record FakeEvent(String getName, String getComment) implements OutboundSseEvent {
+        @Override
+        public Class<?> getType() {
+            return Object.class;
+        }
+
+        @Override
+        public java.lang.reflect.Type getGenericType() {
+            return Object.class;
+        }
+
+        @Override
+        public MediaType getMediaType() {
+            return MediaType.APPLICATION_JSON_TYPE;
+        }
+
+        @Override
+        public Object getData() {
+            return null;
+        }
+
+        @Override
+        public String getId() {
+            return null;
+        }
+
+        @Override
+        public long getReconnectDelay() {
+            return -1;
+        }
+
+        @Override
+        public boolean isReconnectDelaySet() {
+            return false;
+        }
+    }
+
+    private static final class FakeBuilder implements OutboundSseEvent.Builder {
+        private String name;
+        private String comment;
+
+        @Override
+        public OutboundSseEvent.Builder id(String id) {
+            return this;
+        }
+
+        @Override
+        public OutboundSseEvent.Builder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        @Override
+        public OutboundSseEvent.Builder reconnectDelay(long milliseconds) {
+            return this;
+        }
+
+        @Override
+        public OutboundSseEvent.Builder mediaType(MediaType mediaType) {
+            return this;
+        }
+
+        @Override
+        public OutboundSseEvent.Builder comment(String comment) {
+            this.comment = comment;
+            return this;
+        }
+
+        @Override
+        public OutboundSseEvent.Builder data(Class type, Object data) {
+            return this;
+        }
+
+        @Override
+        public OutboundSseEvent.Builder data(GenericType type, Object data) {
+            return this;
+        }
+
+        @Override
+        public OutboundSseEvent.Builder data(Object data) {
+            return this;
+        }
+
+        @Override
+        public OutboundSseEvent build() {
+            return new FakeEvent(name, comment);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the IdempotencyStore class.
+ * Tests claiming, replay, abandonment and that running keys survive eviction.
+ */
+class IdempotencyStoreTest {
+
+    private final IdempotencyStore store = new IdempotencyStore();
+
+    private static byte[] body(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static IdempotencyStore.Stored created(String body) {
+        return new IdempotencyStore.Stored(201, "application/json", null, body(body));
+    }
+
+    @Test
+    void testFirstClaimOwnsTheKeyAndRetriesReplay() throws Exception {
+        IdempotencyStore.Claim first = store.claim("k", body("a"));
+        assertTrue(first.owner());
+        IdempotencyStore.Claim retry = store.claim("k", body("a"));
+        assertFalse(retry.owner());
+        assertSame(first.entry(), retry.entry());
+
+        store.complete(first.entry(), created("{}"));
+        IdempotencyStore.Stored stored = store.await(store.claim("k", body("a")).entry(), 0);
+        assertEquals(201, stored.getStatus());
+        assertArrayEquals(body("{}"), stored.getBody());
+        assertEquals(1L, store.getStats().get("replayed"));
+        assertEquals(1L, store.getStats().get("executed"));
+    }
+
+    @Test
+    void testDifferentBodyDoesNotMatch() {
+        store.claim("k", body("a"));
+        IdempotencyStore.Claim other = store.claim("k", body("b"));
+        assertFalse(other.owner());
+        assertFalse(other.entry().matches(body("b")));
+        assertEquals(1L, store.getStats().get("mismatches"));
+    }
+
+    @Test
+    void testDuplicateTimesOutWhileFirstRuns() {
+        IdempotencyStore.Claim first = store.claim("k", body("a"));
+        IdempotencyStore.Claim duplicate = store.claim("k", body("a"));
+        assertThrows(TimeoutException.class, () -> store.await(duplicate.entry(), 10));
+        assertSame(first.entry(), duplicate.entry());
+    }
+
+    @Test
+    void testAbandonedKeyExecutesAgain() throws Exception {
+        IdempotencyStore.Claim first = store.claim("k", body("a"));
+        IdempotencyStore.Claim waiting = store.claim("k", body("a"));
+        store.abandon("k", first.entry());
+
+        assertNull(store.await(waiting.entry(), 0));
+        assertTrue(store.claim("k", body("a")).owner());
+        assertEquals(1L, store.getStats().get("abandoned"));
+    }
+
+    @Test
+    void testRunningKeysAreNeverEvictedByCompletedOnes() throws Exception {
+        IdempotencyStore.Claim running = store.claim("running", body("a"));
+        for (int i = 0; i <= IdempotencyStore.MAX_ENTRIES; i++) {
+            IdempotencyStore.Claim claim = store.claim("done-" + i, body("a"));
+            store.complete(claim.entry(), created("{}"));
+        }
+
+        assertEquals(IdempotencyStore.MAX_ENTRIES, store.getStats().get("keys"));
+        assertEquals(1, store.getStats().get("inFlight"));
+        assertEquals(1L, store.getStats().get("evictions"));
+        assertTrue(store.claim("done-0", body("a")).owner());
+
+        IdempotencyStore.Claim duplicate = store.claim("running", body("a"));
+        assertFalse(duplicate.owner());
+        assertSame(running.entry(), duplicate.entry());
+        assertFalse(duplicate.entry().matches(body("b")));
+        assertThrows(TimeoutException.class, () -> store.await(duplicate.entry(), 0));
+    }
+}
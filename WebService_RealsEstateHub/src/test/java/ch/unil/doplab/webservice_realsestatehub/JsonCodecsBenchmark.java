@@ -0,0 +1,77 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import ch.unil.doplab.Buyer;
+import ch.unil.doplab.Property;
+import ch.unil.doplab.Seller;
+import jakarta.json.bind.Jsonb;
+import jakarta.json.bind.JsonbBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+/**
+ * Benchmark of the JSON codecs against the default JSON-B provider (Yasson).
+ * Not part of the regular test run; start it with
+ * mvn -o test -Dtest=JsonCodecsBenchmark -Dbenchmark=true
+ * or run main from the test classpath. Reports time and bytes allocated per
+ * write, warm (cached bytes reused) and cold (the entity changes every write).
+ */
+class JsonCodecsBenchmark {
+
+    private static final int WARMUP = 20_000;
+    private static final int MEASURED = 50_000;
+    private static final int MESSAGES = 50;
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void run() throws Exception {
+        main(new String[0]);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Seller seller = new Seller("Jane", "Smith", "jane@seller.com", "janesmith", "pass456");
+        Buyer buyer = new Buyer("John", "Doe", "john@buyer.com", "johndoe", "pass123", 600000);
+        for (int i = 0; i < MESSAGES; i++) {
+            buyer.sendMessage(seller, "Question " + i, "Is the listing still available? " + i);
+        }
+        Property property = new Property("Loft", seller.getUserID(), "Open space", "Lausanne", 400000, 70, Property.PropertyType.LOFT);
+        property.addFeature("bedrooms", 2);
+        property.addImage("loft.jpg");
+
+        try (Jsonb jsonb = JsonbBuilder.create()) {
+            report("property, JSON-B", () -> jsonb.toJson(property).getBytes(StandardCharsets.UTF_8));
+            report("property, codec warm", () -> JsonCodecs.encode(property));
+            report("property, codec cold", () -> {
+                property.setPrice(property.getPrice() + 1);
+                return JsonCodecs.encode(property);
+            });
+            report("buyer with " + MESSAGES + " messages, JSON-B", () -> jsonb.toJson(buyer).getBytes(StandardCharsets.UTF_8));
+            report("buyer with " + MESSAGES + " messages, codec warm", () -> JsonCodecs.encode(buyer));
+            report("buyer with " + MESSAGES + " messages, codec cold", () -> {
+                buyer.setBudget(buyer.getBudget() + 1);
+                return JsonCodecs.encode(buyer);
+            });
+        }
+    }
+
+    private static void report(String name, Supplier<byte[]> write) {
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += write.get().length;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED; i++) {
+            sink += write.get().length;
+        }
+        long nanos = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+        System.out.printf("%-45s %10.3f us/op %12d B/op   (%d)%n",
+                name, nanos / 1000.0 / MEASURED, allocated / MEASURED, sink % 10);
+    }
+}
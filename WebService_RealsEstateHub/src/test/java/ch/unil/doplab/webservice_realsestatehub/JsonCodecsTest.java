@@ -0,0 +1,175 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import ch.unil.doplab.Buyer;
+import ch.unil.doplab.Message;
+import ch.unil.doplab.Offer;
+import ch.unil.doplab.Property;
+import ch.unil.doplab.Seller;
+import ch.unil.doplab.User;
+import jakarta.json.Json;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonNumber;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonValue;
+import jakarta.json.bind.Jsonb;
+import jakarta.json.bind.JsonbBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the JsonCodecs class.
+ * Tests that each codec writes the same JSON as JSON-B, apart from message
+ * read flags, which follow the viewing user's mailbox, and that cached bytes
+ * follow the entity's version.
+ */
+class JsonCodecsTest {
+
+    private static final Jsonb JSONB = JsonbBuilder.create();
+
+    @AfterAll
+    static void closeJsonb() throws Exception {
+        JSONB.close();
+    }
+
+    private static JsonObject parse(String text) {
+        return Json.createReader(new StringReader(text)).readObject();
+    }
+
+    private static JsonObject codec(Object entity) {
+        return parse(new String(JsonCodecs.encode(entity), StandardCharsets.UTF_8));
+    }
+
+    private static JsonObject jsonb(Object entity) {
+        return parse(JSONB.toJson(entity));
+    }
+
+    /**
+     * Structural comparison; numbers compare by value since 1 and 1.0 are the same JSON number
+     */
+    private static void assertSameJson(String path, JsonValue expected, JsonValue actual) {
+        assertNotNull(actual, path + " is missing");
+        if (expected instanceof JsonNumber number) {
+            assertInstanceOf(JsonNumber.class, actual, path);
+            assertEquals(0, number.bigDecimalValue().compareTo(((JsonNumber) actual).bigDecimalValue()), path);
+        } else if (expected instanceof JsonObject object) {
+            assertInstanceOf(JsonObject.class, actual, path);
+            JsonObject other = (JsonObject) actual;
+            assertEquals(new TreeSet<>(object.keySet()), new TreeSet<>(other.keySet()), path + " keys");
+            object.forEach((key, value) -> assertSameJson(path + "." + key, value, other.get(key)));
+        } else if (expected instanceof JsonArray array) {
+            assertInstanceOf(JsonArray.class, actual, path);
+            JsonArray other = (JsonArray) actual;
+            assertEquals(array.size(), other.size(), path + " size");
+            for (int i = 0; i < array.size(); i++) {
+                assertSameJson(path + "[" + i + "]", array.get(i), other.get(i));
+            }
+        } else {
+            assertEquals(expected, actual, path);
+        }
+    }
+
+    private static JsonObject withoutReadFlags(JsonObject user) {
+        var messages = Json.createArrayBuilder();
+        for (JsonValue message : user.getJsonArray("messages")) {
+            messages.add(Json.createObjectBuilder(message.asJsonObject()).remove("read"));
+        }
+        return Json.createObjectBuilder(user).add("messages", messages).build();
+    }
+
+    private static List<Boolean> readFlags(JsonObject user) {
+        return user.getJsonArray("messages").stream()
+                .map(message -> message.asJsonObject().getBoolean("read"))
+                .toList();
+    }
+
+    private static Property property() {
+        Property property = new Property("Loft", null, "Open space", "Lausanne", 400000, 70.5, Property.PropertyType.LOFT);
+        property.addFeature("bedrooms", 2);
+        property.addFeature("garage", true);
+        property.addFeature("floor", "top");
+        property.addImage("loft.jpg");
+        return property;
+    }
+
+    @Test
+    void testPropertyMatchesJsonb() {
+        Property property = property();
+        assertSameJson("property", jsonb(property), codec(property));
+        assertTrue(codec(property).containsKey("createdVersion"));
+    }
+
+    @Test
+    void testOfferMatchesJsonb() {
+        Offer offer = new Offer(property().getPropertyId(), UUID.randomUUID(), 390000);
+        offer.setStatus(Offer.Status.ACCEPTED);
+        assertSameJson("offer", jsonb(offer), codec(offer));
+    }
+
+    @Test
+    void testBuyerAndSellerMatchJsonbWithReadFlagsPerViewer() {
+        Seller seller = new Seller("Jane", "Smith", "jane@seller.com", "janesmith", "pass456");
+        Buyer buyer = new Buyer("John", "Doe", "john@buyer.com", "johndoe", "pass123", 600000);
+        buyer.addPropertyTypeOfInterest("LOFT");
+        buyer.addDocument("payslip.pdf");
+        buyer.addPreferredLocation("Lausanne");
+        Property property = seller.createProperty("Loft", "", "Lausanne", 400000, 70, Property.PropertyType.LOFT);
+        buyer.saveProperty(property.getPropertyId().toString());
+        Offer offer = new Offer(property.getPropertyId(), buyer.getUserID(), 390000);
+        seller.respondToOffer(offer, true);
+        Message question = buyer.sendMessage(seller, "Visit", "Can I visit on Monday?");
+        seller.sendMessage(buyer, "Re: Visit", "Yes, at 10");
+        seller.markMessagesAsRead(List.of(question.getMessageId()));
+
+        // JSON-B takes read from the message, which is the recipient's flag;
+        // the codec takes it from the viewing user's own mailbox
+        assertSameJson("buyer", withoutReadFlags(jsonb(buyer)), withoutReadFlags(codec(buyer)));
+        assertSameJson("seller", withoutReadFlags(jsonb(seller)), withoutReadFlags(codec(seller)));
+        assertEquals(mailboxReadFlags(buyer), readFlags(codec(buyer)));
+        assertEquals(mailboxReadFlags(seller), readFlags(codec(seller)));
+        assertTrue(readFlags(codec(seller)).contains(true));
+    }
+
+    private static List<Boolean> mailboxReadFlags(User user) {
+        return IntStream.range(0, user.getMessages().size()).mapToObj(user::isMessageRead).toList();
+    }
+
+    @Test
+    void testReadMarkChangesTheCachedBytes() {
+        Seller seller = new Seller("Jane", "Smith", "jane2@seller.com", "janesmith2", "pass456");
+        Buyer buyer = new Buyer("John", "Doe", "john2@buyer.com", "johndoe2", "pass123", 600000);
+        Message question = buyer.sendMessage(seller, "Visit", "Can I visit on Monday?");
+
+        byte[] before = JsonCodecs.encode(seller);
+        assertSame(before, JsonCodecs.encode(seller));
+        assertEquals(List.of(false), readFlags(codec(seller)));
+        List<Boolean> senderView = readFlags(codec(buyer));
+        seller.markMessagesAsRead(List.of(question.getMessageId()));
+
+        assertEquals(List.of(true), readFlags(codec(seller)));
+        assertEquals(senderView, readFlags(codec(buyer)));
+    }
+
+    @Test
+    void testArrayStreamsEveryEntity() throws IOException {
+        Property first = property();
+        Property second = property();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonCodecs.array(List.of(first, second)).write(out);
+
+        JsonArray array = Json.createReader(new StringReader(out.toString(StandardCharsets.UTF_8))).readArray();
+        assertEquals(2, array.size());
+        assertSameJson("array[1]", jsonb(second), array.get(1));
+        assertThrows(IllegalArgumentException.class, () -> JsonCodecs.encode("text"));
+    }
+}
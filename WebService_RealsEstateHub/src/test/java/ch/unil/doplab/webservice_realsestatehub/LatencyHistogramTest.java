@@ -0,0 +1,77 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the LatencyHistogram class.
+ * Tests the bucket arithmetic at power-of-two boundaries and the quantile lookup.
+ */
+class LatencyHistogramTest {
+
+    @Test
+    void testSmallValuesHaveTheirOwnBucket() {
+        for (int value = 0; value < 64; value++) {
+            assertEquals(value, LatencyHistogram.indexOf(value));
+            assertEquals(value, LatencyHistogram.highestEquivalent(value));
+        }
+    }
+
+    @Test
+    void testBucketsDoubleInWidthAtEachPowerOfTwo() {
+        assertEquals(64, LatencyHistogram.indexOf(64));
+        assertEquals(64, LatencyHistogram.indexOf(65));
+        assertEquals(65, LatencyHistogram.indexOf(66));
+        assertEquals(95, LatencyHistogram.indexOf(127));
+        assertEquals(96, LatencyHistogram.indexOf(128));
+        assertEquals(96, LatencyHistogram.indexOf(131));
+        assertEquals(97, LatencyHistogram.indexOf(132));
+        assertEquals(65, LatencyHistogram.highestEquivalent(64));
+        assertEquals(127, LatencyHistogram.highestEquivalent(95));
+        assertEquals(131, LatencyHistogram.highestEquivalent(96));
+    }
+
+    @Test
+    void testEveryValueLandsInABucketThatCoversIt() {
+        int previous = -1;
+        for (long value = 0; value < (1L << 41); value = value < 4096 ? value + 1 : value + value / 97) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(index >= previous, "indexes grow with the value");
+            long highest = LatencyHistogram.highestEquivalent(index);
+            assertTrue(highest >= value);
+            assertTrue(index == 0 || LatencyHistogram.highestEquivalent(index - 1) < value);
+            assertTrue(highest - value <= value / 32, "within about 3% of " + value);
+            previous = index;
+        }
+    }
+
+    @Test
+    void testValuesBeyondTheRangeShareTheLastBucket() {
+        int last = LatencyHistogram.indexOf((1L << 41) - 1);
+        assertEquals(last, LatencyHistogram.indexOf(1L << 41));
+        assertEquals(last, LatencyHistogram.indexOf(Long.MAX_VALUE));
+        assertEquals((1L << 41) - 1, LatencyHistogram.highestEquivalent(last));
+    }
+
+    @Test
+    void testQuantilesAcrossHistograms() {
+        LatencyHistogram fast = new LatencyHistogram();
+        LatencyHistogram slow = new LatencyHistogram();
+        for (int i = 1; i <= 90; i++) fast.record(i);
+        for (int i = 0; i < 10; i++) slow.record(1_000_000);
+        fast.record(-5); // clamped to 0
+
+        long[] values = LatencyHistogram.quantiles(new double[]{0, 0.5, 0.9, 0.99, 1}, fast, null, slow);
+        assertEquals(0, values[0]);
+        assertEquals(50, values[1]);
+        assertEquals(91, values[2]); // 90 shares a bucket with 91 and reports its top
+        assertTrue(values[3] >= 1_000_000 && values[3] <= 1_000_000 * 33 / 32);
+        assertEquals(values[3], values[4]);
+    }
+
+    @Test
+    void testNothingRecordedGivesZeros() {
+        assertArrayEquals(new long[]{0, 0}, LatencyHistogram.quantiles(new double[]{0.5, 0.99}, new LatencyHistogram()));
+    }
+}
@@ -0,0 +1,119 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import ch.unil.doplab.Buyer;
+import ch.unil.doplab.PriceChangeListener;
+import ch.unil.doplab.Property;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the PriceDropWatcher class.
+ * Tests thresholds, coalescing of a batch into one alert per listing and
+ * that only the savers of the changed listing are alerted.
+ */
+class PriceDropWatcherTest {
+
+    private final ApplicationState state = new ApplicationState();
+    private final PriceDropWatcher watcher = new PriceDropWatcher(state, new EventBroadcaster());
+    private final PriceChangeListener listener = watcher::onPriceChange;
+
+    private Property loft;
+    private Property villa;
+    private Buyer saver;
+    private Buyer picky;
+    private Buyer other;
+
+    @BeforeEach
+    void setUp() {
+        loft = new Property("Loft", null, "", "Lausanne", 400000, 70, Property.PropertyType.LOFT);
+        villa = new Property("Villa", null, "", "Pully", 1200000, 210, Property.PropertyType.HOUSE);
+        state.addProperty(loft);
+        state.addProperty(villa);
+        saver = buyer("saver");
+        picky = buyer("picky");
+        other = buyer("other");
+        state.saveProperty(saver, loft.getPropertyId());
+        state.saveProperty(picky, loft.getPropertyId());
+        state.saveProperty(other, villa.getPropertyId());
+        Property.addPriceChangeListener(listener);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Property.removePriceChangeListener(listener);
+    }
+
+    private Buyer buyer(String name) {
+        Buyer buyer = new Buyer(name, "Doe", name + "@buyer.com", name, "pass123", 500000);
+        state.registerBuyer(buyer);
+        return buyer;
+    }
+
+    @Test
+    void testOnlySaversOfTheListingAreAlerted() {
+        loft.setPrice(360000);
+        watcher.flush();
+
+        List<PriceDropWatcher.PriceDropAlert> alerts = watcher.getRecentAlerts(saver.getUserID());
+        assertEquals(1, alerts.size());
+        assertEquals(loft.getPropertyId(), alerts.get(0).getPropertyId());
+        assertEquals(400000, alerts.get(0).getOldPrice());
+        assertEquals(360000, alerts.get(0).getNewPrice());
+        assertEquals(10.0, alerts.get(0).getDropPercent(), 1e-9);
+        assertEquals(1, watcher.getRecentAlerts(picky.getUserID()).size());
+        assertTrue(watcher.getRecentAlerts(other.getUserID()).isEmpty());
+    }
+
+    @Test
+    void testThresholdFiltersSmallDrops() {
+        watcher.setThreshold(picky.getUserID(), 15);
+        loft.setPrice(360000);
+        watcher.flush();
+        assertTrue(watcher.getRecentAlerts(picky.getUserID()).isEmpty());
+        assertEquals(1, watcher.getRecentAlerts(saver.getUserID()).size());
+
+        loft.setPrice(200000);
+        watcher.flush();
+        assertEquals(1, watcher.getRecentAlerts(picky.getUserID()).size());
+        assertThrows(IllegalArgumentException.class, () -> watcher.setThreshold(picky.getUserID(), 101));
+    }
+
+    @Test
+    void testChangesWithinABatchCoalesceIntoOneAlert() {
+        loft.setPrice(380000);
+        loft.setPrice(390000);
+        loft.setPrice(300000);
+        watcher.flush();
+
+        List<PriceDropWatcher.PriceDropAlert> alerts = watcher.getRecentAlerts(saver.getUserID());
+        assertEquals(1, alerts.size());
+        assertEquals(400000, alerts.get(0).getOldPrice());
+        assertEquals(300000, alerts.get(0).getNewPrice());
+        assertEquals(1L, watcher.getStats().get("batches"));
+        assertEquals(2L, watcher.getStats().get("alertsSent"));
+    }
+
+    @Test
+    void testDropThatIsTakenBackWithinABatchIsNotAlerted() {
+        loft.setPrice(300000);
+        loft.setPrice(450000);
+        watcher.flush();
+        assertTrue(watcher.getRecentAlerts(saver.getUserID()).isEmpty());
+    }
+
+    @Test
+    void testUpdateWithoutPriceDoesNotAlert() {
+        // What PropertyResource passes when a PUT leaves the price out
+        loft.updatePropertyDetails("Loft with view", null, null, -1, -1, null);
+        watcher.flush();
+
+        assertEquals(400000, loft.getPrice());
+        assertTrue(watcher.getRecentAlerts(saver.getUserID()).isEmpty());
+        assertEquals(0L, watcher.getStats().get("batches"));
+    }
+}
@@ -0,0 +1,104 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import ch.unil.doplab.CatalogVersion;
+import ch.unil.doplab.Property;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the PropertyExporter class.
+ * Tests the columnar layout by reading a block back column by column.
+ */
+class PropertyExporterTest {
+
+    private static byte[] columnar(List<Property> properties, long snapshot) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new PropertyExporter(properties, p -> true, snapshot).write(PropertyExporter.COLUMNAR).write(out);
+        return out.toByteArray();
+    }
+
+    private static void skipStrings(DataInputStream in, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            int length = in.readInt();
+            if (length > 0) in.skipNBytes(length);
+        }
+    }
+
+    private static String[] readStringDictionary(DataInputStream in, int rows) throws IOException {
+        String[] values = new String[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            int length = in.readInt();
+            values[i] = length < 0 ? null : new String(in.readNBytes(length), StandardCharsets.UTF_8);
+        }
+        String[] column = new String[rows];
+        for (int i = 0; i < rows; i++) column[i] = values[in.readInt()];
+        return column;
+    }
+
+    @Test
+    void testColumnarBlockRoundTripsAndTimestampsUseTheServerZone() throws IOException {
+        UUID owner = UUID.randomUUID();
+        Property loft = new Property("Loft", owner, "Open space", "Lausanne", 400000, 70, Property.PropertyType.LOFT);
+        Property villa = new Property("Villa", owner, null, "Lausanne", 1200000, 210, Property.PropertyType.HOUSE);
+        long snapshot = CatalogVersion.current();
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(columnar(List.of(loft, villa), snapshot)));
+        assertEquals(0x52454843, in.readInt());
+        assertEquals(1, in.readInt());
+        assertEquals(snapshot, in.readLong());
+
+        int rows = in.readInt();
+        assertEquals(2, rows);
+        assertEquals(loft.getPropertyId(), new UUID(in.readLong(), in.readLong()));
+        assertEquals(villa.getPropertyId(), new UUID(in.readLong(), in.readLong()));
+
+        assertEquals(1, in.readInt()); // one distinct owner
+        assertTrue(in.readBoolean());
+        assertEquals(owner, new UUID(in.readLong(), in.readLong()));
+        assertEquals(0, in.readInt());
+        assertEquals(0, in.readInt());
+
+        skipStrings(in, rows); // titles
+        assertEquals(10, in.readInt());
+        in.skipNBytes(10);
+        assertEquals(-1, in.readInt()); // null description
+
+        assertArrayEquals(new String[]{"Lausanne", "Lausanne"}, readStringDictionary(in, rows));
+        assertArrayEquals(new String[]{"LOFT", "HOUSE"}, readStringDictionary(in, rows));
+        readStringDictionary(in, rows);
+        assertEquals(400000, in.readDouble());
+        assertEquals(1200000, in.readDouble());
+        in.skipNBytes(2 * Double.BYTES);
+
+        long createdAt = in.readLong();
+        assertEquals(loft.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), createdAt);
+        in.readLong();
+        assertEquals(loft.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), in.readLong());
+        in.skipNBytes(Long.BYTES);
+        assertEquals(loft.getVersion(), in.readLong());
+        assertEquals(villa.getVersion(), in.readLong());
+        assertEquals(0, in.readInt());
+        assertEquals(0, in.available());
+    }
+
+    @Test
+    void testPropertiesCreatedAfterTheSnapshotAreLeftOut() throws IOException {
+        long snapshot = CatalogVersion.current();
+        Property later = new Property("Later", null, "", "Pully", 1, 1, Property.PropertyType.HOUSE);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(columnar(List.of(later), snapshot)));
+        in.skipNBytes(Integer.BYTES * 2 + Long.BYTES);
+        assertEquals(0, in.readInt());
+        assertEquals(0, in.available());
+    }
+}
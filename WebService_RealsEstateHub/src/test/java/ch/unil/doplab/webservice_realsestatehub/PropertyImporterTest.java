@@ -0,0 +1,145 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import ch.unil.doplab.Property;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the PropertyImporter class.
+ * Tests CSV splitting, header handling, validation, deduplication and the error report.
+ */
+class PropertyImporterTest {
+
+    private final ApplicationState state = new ApplicationState();
+    private final ResourceExecutors executors = new ResourceExecutors();
+
+    @AfterEach
+    void tearDown() {
+        executors.stop();
+    }
+
+    private PropertyImporter.ImportReport importCsv(String body) throws IOException {
+        return PropertyImporter.importFrom(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)),
+                PropertyImporter.Format.CSV, state, executors);
+    }
+
+    private PropertyImporter.ImportReport importNdjson(String body) throws IOException {
+        return PropertyImporter.importFrom(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)),
+                PropertyImporter.Format.NDJSON, state, executors);
+    }
+
+    @Test
+    void testSplitCsvHandlesQuotesAndEmptyCells() {
+        assertEquals(List.of("a", "b", "c"), PropertyImporter.splitCsv("a,b,c"));
+        assertEquals(List.of("a, b", "c"), PropertyImporter.splitCsv("\"a, b\",c"));
+        assertEquals(List.of("say \"hi\"", ""), PropertyImporter.splitCsv("\"say \"\"hi\"\"\","));
+        assertEquals(List.of("", "", ""), PropertyImporter.splitCsv(",,"));
+        assertEquals(List.of(""), PropertyImporter.splitCsv(""));
+        assertThrows(IllegalArgumentException.class, () -> PropertyImporter.splitCsv("\"open,b"));
+    }
+
+    @Test
+    void testCsvRowsFollowTheHeaderAndExtraColumnsBecomeFeatures() throws IOException {
+        PropertyImporter.ImportReport report = importCsv("""
+                title,type,price,location,garage
+                Loft,LOFT,400000,Lausanne,true
+
+                "Villa, lake view",HOUSE,1200000,Pully,
+                """);
+
+        assertEquals(2, report.getReceived());
+        assertEquals(2, report.getImported());
+        assertTrue(report.getErrors().isEmpty());
+        Property loft = state.getProperties().values().stream()
+                .filter(p -> p.getTitle().equals("Loft")).findFirst().orElseThrow();
+        assertEquals(400000, loft.getPrice());
+        assertEquals(Boolean.TRUE, loft.getFeatures().get("garage"));
+        assertTrue(state.getProperties().values().stream().anyMatch(p -> p.getTitle().equals("Villa, lake view")));
+    }
+
+    @Test
+    void testColumnCountMismatchIsReportedWithItsLine() throws IOException {
+        PropertyImporter.ImportReport report = importCsv("""
+                title,type,price
+                Loft,LOFT
+                Studio,STUDIO,100000
+                """);
+
+        assertEquals(2, report.getReceived());
+        assertEquals(1, report.getImported());
+        assertEquals(1, report.getFailed());
+        assertEquals(2, report.getErrors().get(0).getLine());
+        assertEquals("Expected 3 columns but found 2", report.getErrors().get(0).getError());
+    }
+
+    @Test
+    void testEmptyCsvImportsNothing() throws IOException {
+        PropertyImporter.ImportReport report = importCsv("");
+        assertEquals(0, report.getReceived());
+        assertTrue(state.getProperties().isEmpty());
+    }
+
+    @Test
+    void testInvalidRowsAreReportedNotImported() throws IOException {
+        PropertyImporter.ImportReport report = importNdjson("""
+                {"title":"Loft","type":"LOFT","price":400000}
+                {"title":"No type"}
+                {"title":"Castle","type":"CASTLE"}
+                {"title":"Cheap","type":"HOUSE","price":-1}
+                not json
+                """);
+
+        assertEquals(5, report.getReceived());
+        assertEquals(1, report.getImported());
+        assertEquals(4, report.getFailed());
+        assertEquals(List.of(2L, 3L, 4L, 5L), report.getErrors().stream().map(PropertyImporter.LineError::getLine).toList());
+        assertEquals("Type is required", report.getErrors().get(0).getError());
+        assertEquals("Unknown type: CASTLE", report.getErrors().get(1).getError());
+    }
+
+    @Test
+    void testDuplicatesWithinTheFileAndAgainstTheCatalog() throws IOException {
+        UUID owner = UUID.randomUUID();
+        state.addProperty(new Property("Loft", owner, "", "Lausanne", 400000, 70, Property.PropertyType.LOFT));
+
+        PropertyImporter.ImportReport report = importCsv("title,ownerId,location,type\n"
+                + " loft ," + owner + ",LAUSANNE,LOFT\n"
+                + "Villa," + owner + ",Pully,HOUSE\n"
+                + "VILLA," + owner + ",pully,HOUSE\n"
+                + "Villa,,Pully,HOUSE\n");
+
+        assertEquals(4, report.getReceived());
+        assertEquals(2, report.getImported());
+        assertEquals(2, report.getDuplicates());
+        assertEquals(List.of(2L, 4L), report.getErrors().stream().map(PropertyImporter.LineError::getLine).toList());
+        assertEquals("Duplicate listing", report.getErrors().get(0).getError());
+        assertEquals(3, state.getProperties().size());
+    }
+
+    @Test
+    void testErrorReportIsTruncatedButCountsAreComplete() throws IOException {
+        StringBuilder body = new StringBuilder("title,type\n");
+        int rows = 10_000; // several chunks, merged in line order
+        for (int i = 0; i < rows; i++) {
+            body.append(i % 2 == 0 ? "Home " + i + ",HOUSE\n" : "Bad " + i + ",\n");
+        }
+
+        PropertyImporter.ImportReport report = importCsv(body.toString());
+
+        assertEquals(rows, report.getReceived());
+        assertEquals(rows / 2, report.getImported());
+        assertEquals(rows / 2, report.getFailed());
+        assertEquals(1000, report.getErrors().size());
+        assertTrue(report.isErrorsTruncated());
+        assertEquals(3, report.getErrors().get(0).getLine());
+        assertEquals(2001, report.getErrors().get(999).getLine());
+    }
+}
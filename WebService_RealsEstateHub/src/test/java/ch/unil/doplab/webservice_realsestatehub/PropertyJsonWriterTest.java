@@ -0,0 +1,91 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import ch.unil.doplab.Property;
+import jakarta.json.Json;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the PropertyJsonWriter class.
+ * Tests the ?fields= projection, rejection of unknown fields and that the
+ * collection ETag depends on the normalized field list.
+ */
+class PropertyJsonWriterTest {
+
+    private final Property loft = property("Loft", 400000);
+    private final Property villa = property("Villa", 1200000);
+
+    private static Property property(String title, double price) {
+        Property property = new Property(title, null, "Open space", "Lausanne", price, 70, Property.PropertyType.LOFT);
+        property.addFeature("bedrooms", 2);
+        return property;
+    }
+
+    private static JsonArray write(PropertyJsonWriter writer, List<Property> properties) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.array(properties).write(out);
+        return Json.createReader(new StringReader(out.toString(StandardCharsets.UTF_8))).readArray();
+    }
+
+    private static JsonObject codec(Property property) {
+        return Json.createReader(new StringReader(new String(JsonCodecs.encode(property), StandardCharsets.UTF_8)))
+                .readObject();
+    }
+
+    @Test
+    void testProjectionWritesOnlyTheSelectedFieldsInOrder() throws IOException {
+        JsonArray array = write(PropertyJsonWriter.forFields(" price, title ,price,,features"), List.of(loft, villa));
+
+        assertEquals(2, array.size());
+        JsonObject first = array.getJsonObject(0);
+        assertEquals(List.of("price", "title", "features"), List.copyOf(first.keySet()));
+        JsonObject full = codec(loft);
+        for (String field : first.keySet()) {
+            assertEquals(full.get(field), first.get(field), field);
+        }
+        assertEquals("Villa", array.getJsonObject(1).getString("title"));
+    }
+
+    @Test
+    void testNoSelectionWritesTheFullRepresentation() throws IOException {
+        for (String fields : new String[]{null, "", "  "}) {
+            PropertyJsonWriter writer = PropertyJsonWriter.forFields(fields);
+            assertEquals("", writer.getFields());
+            assertEquals(codec(loft), write(writer, List.of(loft)).getJsonObject(0));
+        }
+    }
+
+    @Test
+    void testUnknownFieldIsRejected() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> PropertyJsonWriter.forFields("title,password"));
+        assertTrue(e.getMessage().contains("'password'"), e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> PropertyJsonWriter.forFields("Title"));
+    }
+
+    @Test
+    void testCatalogTagDependsOnTheNormalizedFields() {
+        String titlePrice = PropertyJsonWriter.forFields("title, price,title").getFields();
+        assertEquals("title,price", titlePrice);
+        assertEquals("price,title", PropertyJsonWriter.forFields("price,title").getFields());
+
+        long version = 42;
+        String full = EntityTags.catalogValue(version, PropertyJsonWriter.forFields(null).getFields());
+        String projected = EntityTags.catalogValue(version, titlePrice);
+        assertEquals("c42", full);
+        assertNotEquals(full, projected);
+        assertEquals(projected, EntityTags.catalogValue(version, PropertyJsonWriter.forFields("title,price").getFields()));
+        assertNotEquals(projected, EntityTags.catalogValue(version, "price,title"));
+        assertNotEquals(projected, EntityTags.catalogValue(version + 1, titlePrice));
+        assertFalse(projected.contains(","));
+    }
+}
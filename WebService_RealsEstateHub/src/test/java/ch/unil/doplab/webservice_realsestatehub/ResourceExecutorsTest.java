@@ -0,0 +1,209 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import jakarta.ws.rs.core.StreamingOutput;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ResourceExecutors class.
+ * Tests that bulk streams hold a lane slot from creation until written or released,
+ * that a full lane answers with the fallback and, in a simulated load, that
+ * handing blocking work to a lane keeps the container threads free.
+ */
+class ResourceExecutorsTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final ResourceExecutors executors = new ResourceExecutors();
+
+    @AfterEach
+    void tearDown() {
+        executors.stop();
+    }
+
+    @Test
+    void testBulkStreamsAreLimitedBeforeTheyStartWriting() {
+        List<StreamingOutput> open = new ArrayList<>();
+        StreamingOutput stream;
+        while ((stream = executors.bulkStream(out -> out.write(1))) != null) {
+            open.add(stream);
+        }
+        assertTrue(open.size() >= 2);
+        assertEquals(open.size(), executors.getActive(ResourceExecutors.Lane.BULK));
+        assertEquals(1, executors.getRejected(ResourceExecutors.Lane.BULK));
+        assertNull(executors.bulkStream(out -> out.write(1)));
+        assertEquals(2, executors.getRejected(ResourceExecutors.Lane.BULK));
+    }
+
+    @Test
+    void testWritingGivesTheSlotBack() throws IOException {
+        StreamingOutput stream = executors.bulkStream(out -> out.write(42));
+        assertEquals(1, executors.getActive(ResourceExecutors.Lane.BULK));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        stream.write(out);
+        assertArrayEquals(new byte[]{42}, out.toByteArray());
+        assertEquals(0, executors.getActive(ResourceExecutors.Lane.BULK));
+    }
+
+    @Test
+    void testFailedWriteGivesTheSlotBack() {
+        StreamingOutput stream = executors.bulkStream(out -> {
+            throw new IOException("client gone");
+        });
+        assertThrows(IOException.class, () -> stream.write(new ByteArrayOutputStream()));
+        assertEquals(0, executors.getActive(ResourceExecutors.Lane.BULK));
+    }
+
+    @Test
+    void testUnwrittenStreamIsReleasedOnce() throws IOException {
+        ResourceExecutors.BulkStream stream = (ResourceExecutors.BulkStream) executors.bulkStream(out -> { });
+        executors.bulkStream(out -> { });
+        assertEquals(2, executors.getActive(ResourceExecutors.Lane.BULK));
+        stream.release();
+        stream.release();
+        stream.write(new ByteArrayOutputStream());
+        assertEquals(1, executors.getActive(ResourceExecutors.Lane.BULK));
+    }
+
+    @Test
+    void testFullLaneAnswersWithTheFallback() throws Exception {
+        CountDownLatch provider = new CountDownLatch(1);
+        ResourceExecutors.Lane lane = ResourceExecutors.Lane.BULK;
+        List<CompletableFuture<String>> accepted = new ArrayList<>();
+        // Every thread blocks on the first tasks, so exactly the queue's worth more is accepted
+        for (int i = 0; i < lane.threads() + lane.queue(); i++) {
+            accepted.add(executors.submit(lane, () -> {
+                await(provider);
+                return "sent";
+            }, () -> "busy").toCompletableFuture());
+        }
+
+        CompletableFuture<String> refused = executors.submit(lane, () -> "sent", () -> "busy").toCompletableFuture();
+        assertEquals("busy", refused.getNow(null));
+        assertEquals(1, executors.getRejected(lane));
+        assertEquals(lane.queue(), executors.getQueued(lane));
+        assertTrue(accepted.stream().noneMatch(CompletableFuture::isDone));
+
+        provider.countDown();
+        for (CompletableFuture<String> response : accepted) {
+            assertEquals("sent", response.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(1, executors.getRejected(lane));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Four container threads serve a request every half millisecond, in
+     * virtual time; one in four sends an email, blocked on the provider for
+     * 20 ms, and the others answer in 0.1 ms. Synchronously the sends hold the
+     * container threads and the quick requests queue behind them; handed to
+     * the notification lane, the container thread is back after the hand-off.
+     */
+    @Test
+    void testBlockingWorkOnALaneKeepsContainerThreadsFree() {
+        Simulation sync = Simulation.run(false);
+        Simulation async = Simulation.run(true);
+
+        assertTrue(Simulation.p99(sync.quickLatencies) > 1_000 * MILLIS,
+                "sync quick p99 " + Simulation.p99(sync.quickLatencies));
+        assertTrue(Simulation.p99(async.quickLatencies) < MILLIS,
+                "async quick p99 " + Simulation.p99(async.quickLatencies));
+        assertTrue(Simulation.p99(async.sendLatencies) < Simulation.SEND_NANOS + MILLIS,
+                "async send p99 " + Simulation.p99(async.sendLatencies));
+        assertEquals(0, async.rejected);
+    }
+
+    private static final class Simulation {
+        private static final int CONTAINER_THREADS = 4;
+        private static final int SENDING_EVERY = 4;
+        private static final long QUICK_NANOS = MILLIS / 10;
+        private static final long HANDOFF_NANOS = MILLIS / 20;
+        private static final long SEND_NANOS = 20 * MILLIS;
+        private static final long INTERVAL_NANOS = MILLIS / 2;
+        private static final long DURATION_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+        private final List<Long> quickLatencies = new ArrayList<>();
+        private final List<Long> sendLatencies = new ArrayList<>();
+        private int rejected;
+
+        static Simulation run(boolean onLane) {
+            Simulation simulation = new Simulation();
+            Pool container = new Pool(CONTAINER_THREADS, Integer.MAX_VALUE);
+            Pool lane = new Pool(ResourceExecutors.Lane.NOTIFICATION.threads(), ResourceExecutors.Lane.NOTIFICATION.queue());
+            long now = 0;
+            for (int i = 0; now < DURATION_NANOS; i++, now += INTERVAL_NANOS) {
+                if (i % SENDING_EVERY != 0) {
+                    simulation.quickLatencies.add(container.run(now, QUICK_NANOS) - now);
+                } else if (!onLane) {
+                    simulation.sendLatencies.add(container.run(now, SEND_NANOS) - now);
+                } else {
+                    long sent = lane.offer(container.run(now, HANDOFF_NANOS), SEND_NANOS);
+                    if (sent < 0) simulation.rejected++;
+                    else simulation.sendLatencies.add(sent - now);
+                }
+            }
+            return simulation;
+        }
+
+        static long p99(List<Long> latencies) {
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+            return sorted[(int) (sorted.length * 0.99)];
+        }
+    }
+
+    /**
+     * Fixed pool with a bounded queue; tasks start in arrival order on the first free thread
+     */
+    private static final class Pool {
+        private final PriorityQueue<Long> freeAt = new PriorityQueue<>();
+        private final PriorityQueue<Long> waitingUntil = new PriorityQueue<>();
+        private final int queue;
+
+        Pool(int threads, int queue) {
+            for (int i = 0; i < threads; i++) {
+                freeAt.add(0L);
+            }
+            this.queue = queue;
+        }
+
+        /**
+         * @return when the task is done, -1 when the queue is full
+         */
+        long offer(long arrival, long service) {
+            while (!waitingUntil.isEmpty() && waitingUntil.peek() <= arrival) {
+                waitingUntil.poll();
+            }
+            if (freeAt.peek() > arrival && waitingUntil.size() >= queue) {
+                return -1;
+            }
+            return run(arrival, service);
+        }
+
+        long run(long arrival, long service) {
+            long begin = Math.max(arrival, freeAt.poll());
+            if (begin > arrival) waitingUntil.add(begin);
+            freeAt.add(begin + service);
+            return begin + service;
+        }
+    }
+}
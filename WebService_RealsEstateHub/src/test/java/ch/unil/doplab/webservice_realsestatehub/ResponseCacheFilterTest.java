@@ -0,0 +1,164 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import ch.unil.doplab.CatalogVersion;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.UriInfo;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ResponseCacheFilter class.
+ * Tests the cache key per accepted representation, the Cache-Control and
+ * Vary headers of a miss and that only successful bodies are stored.
+ */
+class ResponseCacheFilterTest {
+
+    private static final URI LISTINGS = URI.create("http://localhost/api/properties?limit=20");
+
+    private final ResponseCache cache = new ResponseCache();
+    private final Map<String, Object> properties = new HashMap<>();
+
+    @CachedResponse(maxAge = 30)
+    void listings() {
+    }
+
+    @CachedResponse
+    void offer() {
+    }
+
+    /**
+     * Stand-in for a container interface, answering the named methods only
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T fake(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer == null) throw new UnsupportedOperationException(method.getName());
+            return answer.apply(args);
+        });
+    }
+
+    private ResponseCacheFilter filter(String resourceMethod) throws NoSuchMethodException {
+        Method method = getClass().getDeclaredMethod(resourceMethod);
+        return new ResponseCacheFilter(cache, fake(ResourceInfo.class, Map.of("getResourceMethod", args -> method)));
+    }
+
+    private ContainerRequestContext request(String method, MediaType accepted) {
+        UriInfo uriInfo = fake(UriInfo.class, Map.of("getRequestUri", args -> LISTINGS));
+        return fake(ContainerRequestContext.class, Map.of(
+                "getMethod", args -> method,
+                "getUriInfo", args -> uriInfo,
+                "getAcceptableMediaTypes", args -> List.of(accepted),
+                "getProperty", args -> properties.get((String) args[0]),
+                "setProperty", args -> properties.put((String) args[0], args[1]),
+                "removeProperty", args -> properties.remove((String) args[0])));
+    }
+
+    private static ContainerResponseContext response(int status, MultivaluedMap<String, Object> headers) {
+        return fake(ContainerResponseContext.class, Map.of(
+                "getStatus", args -> status,
+                "hasEntity", args -> true,
+                "getHeaders", args -> headers));
+    }
+
+    /**
+     * Writes the body through the interceptor as the container would after the response filters
+     */
+    private byte[] write(ResponseCacheFilter filter, String body, MultivaluedMap<String, Object> headers) throws Exception {
+        ByteArrayOutputStream client = new ByteArrayOutputStream();
+        OutputStream[] out = {client};
+        filter.aroundWriteTo(fake(WriterInterceptorContext.class, Map.of(
+                "getProperty", args -> properties.get((String) args[0]),
+                "getOutputStream", args -> out[0],
+                "setOutputStream", args -> out[0] = (OutputStream) args[0],
+                "getHeaders", args -> headers,
+                "getMediaType", args -> null,
+                "proceed", args -> {
+                    try {
+                        out[0].write(body.getBytes(StandardCharsets.UTF_8));
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    return null;
+                })));
+        return client.toByteArray();
+    }
+
+    @Test
+    void testKeyVariesOnAccept() {
+        MediaType json = MediaType.APPLICATION_JSON_TYPE;
+        String jsonKey = ResponseCacheFilter.key(LISTINGS, List.of(json));
+        assertEquals(jsonKey, ResponseCacheFilter.key(LISTINGS, List.of(new MediaType("application", "json"))));
+        assertNotEquals(jsonKey, ResponseCacheFilter.key(LISTINGS, List.of(new MediaType("text", "csv"))));
+        assertNotEquals(jsonKey, ResponseCacheFilter.key(LISTINGS, List.of(json.withCharset("UTF-8"))));
+        assertNotEquals(jsonKey, ResponseCacheFilter.key(LISTINGS, List.of(json, MediaType.APPLICATION_XML_TYPE)));
+        assertNotEquals(jsonKey, ResponseCacheFilter.key(URI.create("http://localhost/api/properties"), List.of(json)));
+    }
+
+    @Test
+    void testCacheControlFollowsMaxAge() throws Exception {
+        assertEquals("public, max-age=30", ResponseCacheFilter.cacheControl(getClass().getDeclaredMethod("listings")));
+        assertEquals("no-cache", ResponseCacheFilter.cacheControl(getClass().getDeclaredMethod("offer")));
+        assertEquals("no-cache", ResponseCacheFilter.cacheControl(null));
+    }
+
+    @Test
+    void testMissIsWrittenThroughAndStored() throws Exception {
+        ResponseCacheFilter filter = filter("listings");
+        ContainerRequestContext request = request("GET", MediaType.APPLICATION_JSON_TYPE);
+        long version = CatalogVersion.current();
+        filter.filter(request);
+
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        filter.filter(request, response(200, headers));
+        assertEquals("public, max-age=30", headers.getFirst(HttpHeaders.CACHE_CONTROL));
+        assertEquals(HttpHeaders.ACCEPT, headers.getFirst(HttpHeaders.VARY));
+        assertEquals("MISS", headers.getFirst("X-Cache"));
+
+        assertArrayEquals("[1,2]".getBytes(StandardCharsets.UTF_8), write(filter, "[1,2]", headers));
+        String key = ResponseCacheFilter.key(LISTINGS, List.of(MediaType.APPLICATION_JSON_TYPE));
+        ResponseCache.Entry entry = cache.get(key, version);
+        assertNotNull(entry);
+        assertArrayEquals("[1,2]".getBytes(StandardCharsets.UTF_8), entry.getBody());
+        assertEquals("public, max-age=30", entry.getCacheControl());
+        assertEquals(MediaType.APPLICATION_JSON, entry.getContentType());
+        assertNull(cache.get(ResponseCacheFilter.key(LISTINGS, List.of(new MediaType("text", "csv"))), version));
+    }
+
+    @Test
+    void testOnlySuccessfulGetsAreStored() throws Exception {
+        ResponseCacheFilter filter = filter("offer");
+        ContainerRequestContext request = request("GET", MediaType.APPLICATION_JSON_TYPE);
+        filter.filter(request);
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        filter.filter(request, response(404, headers));
+        assertEquals("no-cache", headers.getFirst(HttpHeaders.CACHE_CONTROL));
+        assertNull(headers.getFirst("X-Cache"));
+        assertArrayEquals("{}".getBytes(StandardCharsets.UTF_8), write(filter, "{}", headers));
+        assertEquals(0, cache.getStats().get("entries"));
+
+        properties.clear();
+        filter.filter(request("POST", MediaType.APPLICATION_JSON_TYPE));
+        assertTrue(properties.isEmpty());
+    }
+}
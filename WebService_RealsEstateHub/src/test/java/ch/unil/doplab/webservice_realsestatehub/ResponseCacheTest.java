@@ -0,0 +1,75 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ResponseCache class.
+ * Tests that entries are dropped once the catalog version moves, that the
+ * least recently used entries are evicted by total size and that oversized
+ * bodies are not kept.
+ */
+class ResponseCacheTest {
+
+    private final ResponseCache cache = new ResponseCache();
+
+    private static ResponseCache.Entry entry(long version, int size) {
+        return new ResponseCache.Entry(version, new byte[size], "application/json", null, "no-cache");
+    }
+
+    @Test
+    void testEntryIsServedOnlyAtItsCatalogVersion() {
+        ResponseCache.Entry entry = entry(7, 10);
+        cache.put("/api/properties", entry);
+        assertSame(entry, cache.get("/api/properties", 7));
+
+        assertNull(cache.get("/api/properties", 8));
+        assertNull(cache.get("/api/properties", 7)); // dropped, not kept for the old version
+        assertEquals(0, cache.getStats().get("entries"));
+        assertEquals(0L, cache.getStats().get("bytes"));
+        assertEquals(1L, cache.getStats().get("hits"));
+        assertEquals(2L, cache.getStats().get("misses"));
+        assertEquals(1L, cache.getStats().get("invalidations"));
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntriesAreEvictedBySize() {
+        int size = ResponseCache.MAX_ENTRY_BYTES / 2;
+        int fit = (int) (ResponseCache.MAX_BYTES / entry(1, size).size("k00"));
+        for (int i = 0; i < fit; i++) {
+            cache.put(String.format("k%02d", i), entry(1, size));
+        }
+        assertNotNull(cache.get("k00", 1)); // k00 is now the most recently used
+        assertEquals(0L, cache.getStats().get("evictions"));
+
+        cache.put("new", entry(1, size));
+        assertEquals(1L, cache.getStats().get("evictions"));
+        assertNotNull(cache.get("k00", 1));
+        assertNull(cache.get("k01", 1));
+        assertNotNull(cache.get("new", 1));
+        assertTrue((Long) cache.getStats().get("bytes") <= ResponseCache.MAX_BYTES);
+    }
+
+    @Test
+    void testReplacingAnEntryKeepsTheSizeAccurate() {
+        cache.put("k", entry(1, 1000));
+        long oneEntry = (Long) cache.getStats().get("bytes");
+        cache.put("k", entry(2, 1000));
+        assertEquals(oneEntry, cache.getStats().get("bytes"));
+        assertNull(cache.get("k", 1));
+    }
+
+    @Test
+    void testOversizedBodyIsNotCachedAndClearDropsEverything() {
+        cache.put("big", entry(1, ResponseCache.MAX_ENTRY_BYTES + 1));
+        assertNull(cache.get("big", 1));
+
+        cache.put("a", entry(1, 10));
+        cache.put("b", entry(1, 10));
+        cache.clear();
+        assertNull(cache.get("a", 1));
+        assertEquals(0L, cache.getStats().get("bytes"));
+        assertEquals(2L, cache.getStats().get("invalidations"));
+    }
+}
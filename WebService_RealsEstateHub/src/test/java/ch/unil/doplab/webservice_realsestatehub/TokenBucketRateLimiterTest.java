@@ -0,0 +1,59 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the TokenBucketRateLimiter class.
+ * Tests the burst capacity and the continuous refill arithmetic.
+ */
+class TokenBucketRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void testBurstUpToCapacityThenRejects() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(3, 1.0, 0);
+        assertTrue(limiter.tryAcquire(0));
+        assertTrue(limiter.tryAcquire(0));
+        assertTrue(limiter.tryAcquire(0));
+        assertFalse(limiter.tryAcquire(0));
+        assertEquals(3, limiter.getGrantedCount());
+        assertEquals(1, limiter.getRejectedCount());
+    }
+
+    @Test
+    void testRefillsContinuouslyAtTheConfiguredRate() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(2, 4.0, 0);
+        assertTrue(limiter.tryAcquire(0));
+        assertTrue(limiter.tryAcquire(0));
+        assertFalse(limiter.tryAcquire(SECOND / 8)); // half a token
+        assertEquals(0.5, limiter.getAvailableTokens(SECOND / 8), 1e-9);
+        assertTrue(limiter.tryAcquire(SECOND / 4));
+        assertEquals(0.0, limiter.getAvailableTokens(SECOND / 4), 1e-9);
+    }
+
+    @Test
+    void testRefillNeverExceedsCapacity() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(2, 100.0, 0);
+        assertEquals(2.0, limiter.getAvailableTokens(10 * SECOND), 1e-9);
+        assertTrue(limiter.tryAcquire(10 * SECOND));
+        assertTrue(limiter.tryAcquire(10 * SECOND));
+        assertFalse(limiter.tryAcquire(10 * SECOND));
+    }
+
+    @Test
+    void testClockGoingBackwardsDoesNotRemoveTokens() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 1.0, SECOND);
+        assertEquals(1.0, limiter.getAvailableTokens(0), 1e-9);
+    }
+
+    @Test
+    void testInvalidConfigurationIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketRateLimiter(0, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucketRateLimiter(1, 0));
+    }
+}
@@ -0,0 +1,111 @@
+package ch.unil.doplab.webservice_realsestatehub;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the Tracing class.
+ * Tests traceparent parsing and formatting, the ring buffer of finished
+ * spans and that wrap carries the context to another thread.
+ */
+class TracingTest {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+    private static final String SPAN_ID = "00f067aa0ba902b7";
+
+    @AfterEach
+    void tearDown() {
+        Tracing.setCurrent(null);
+    }
+
+    @Test
+    void testParseAndFormatRoundTrip() {
+        Tracing.TraceContext sampled = Tracing.parse("00-" + TRACE_ID + "-" + SPAN_ID + "-01");
+        assertEquals(new Tracing.TraceContext(TRACE_ID, SPAN_ID, true), sampled);
+        assertEquals("00-" + TRACE_ID + "-" + SPAN_ID + "-01", Tracing.format(sampled));
+
+        Tracing.TraceContext unsampled = Tracing.parse(" 00-" + TRACE_ID + "-" + SPAN_ID + "-00 ");
+        assertFalse(unsampled.sampled());
+        assertEquals(unsampled, Tracing.parse(Tracing.format(unsampled)));
+    }
+
+    @Test
+    void testParseRejectsMalformedHeaders() {
+        assertNull(Tracing.parse(null));
+        assertNull(Tracing.parse(""));
+        assertNull(Tracing.parse("00-" + TRACE_ID + "-" + SPAN_ID));
+        assertNull(Tracing.parse("00-" + TRACE_ID.substring(1) + "-" + SPAN_ID + "-01"));
+        assertNull(Tracing.parse("00-" + TRACE_ID + "-" + SPAN_ID + "0-01"));
+        assertNull(Tracing.parse("00-" + TRACE_ID + "-" + SPAN_ID + "-zz"));
+        assertNull(Tracing.parse("00-" + TRACE_ID + "-" + SPAN_ID + "-01-extra"));
+    }
+
+    @Test
+    void testNewRootHasWellFormedIds() {
+        Tracing.TraceContext root = Tracing.newRoot();
+        assertTrue(root.traceId().matches("[0-9a-f]{32}"));
+        assertTrue(root.spanId().matches("[0-9a-f]{16}"));
+        assertEquals(root, Tracing.parse(Tracing.format(root)));
+    }
+
+    @Test
+    void testUnsampledTraceRecordsNothing() {
+        Tracing.Span span = Tracing.start(new Tracing.TraceContext(TRACE_ID, SPAN_ID, false), "skipped");
+        assertFalse(span.isRecording());
+        assertNull(span.context());
+        span.detail("ignored").end();
+        assertTrue(Tracing.recent(TRACE_ID, 10).isEmpty());
+    }
+
+    @Test
+    void testRingKeepsTheLatestSpansNewestFirst() {
+        Tracing.TraceContext trace = new Tracing.TraceContext(Tracing.newRoot().traceId(), SPAN_ID, true);
+        int capacity = (Integer) Tracing.getStats().get("capacity");
+        long recordedBefore = (Long) Tracing.getStats().get("recorded");
+        int total = capacity + 10;
+        for (int i = 0; i < total; i++) {
+            Tracing.Span span = Tracing.start(trace, "span " + i);
+            span.end();
+            span.end(); // recorded once
+        }
+
+        List<Tracing.SpanRecord> spans = Tracing.recent(trace.traceId(), Integer.MAX_VALUE);
+        assertEquals(capacity, spans.size());
+        assertEquals("span " + (total - 1), spans.get(0).getName());
+        assertEquals("span 10", spans.get(capacity - 1).getName());
+        assertEquals(SPAN_ID, spans.get(0).getParentId());
+        assertEquals(Tracing.TIER, spans.get(0).getTier());
+
+        List<Tracing.SpanRecord> latest = Tracing.recent(trace.traceId(), 3);
+        assertEquals(List.of("span " + (total - 1), "span " + (total - 2), "span " + (total - 3)),
+                latest.stream().map(Tracing.SpanRecord::getName).toList());
+        assertTrue(Tracing.recent(Tracing.newRoot().traceId(), 10).isEmpty());
+
+        Map<String, Object> stats = Tracing.getStats();
+        assertEquals(recordedBefore + total, stats.get("recorded"));
+        assertEquals((long) capacity, stats.get("retained"));
+    }
+
+    @Test
+    void testWrapCarriesTheContextToAnotherThread() throws Exception {
+        Tracing.TraceContext trace = new Tracing.TraceContext(TRACE_ID, SPAN_ID, true);
+        Supplier<Tracing.TraceContext> unwrapped = Tracing::current;
+        assertSame(unwrapped, Tracing.wrap(unwrapped));
+
+        Tracing.setCurrent(trace);
+        Supplier<Tracing.TraceContext> wrapped = Tracing.wrap(Tracing::current);
+        Tracing.setCurrent(null);
+
+        assertEquals(trace, CompletableFuture.supplyAsync(wrapped).get());
+        assertNull(CompletableFuture.supplyAsync(unwrapped).get());
+        assertEquals(trace, wrapped.get());
+        assertNull(Tracing.current());
+    }
+}
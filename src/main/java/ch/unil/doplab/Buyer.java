@@ -17,7 +17,10 @@ public class Buyer extends User {
     }
 
     public double getBudget() { return budget; }
-    public void setBudget(double budget) { this.budget = budget; }
+    public void setBudget(double budget) {
+        this.budget = budget;
+        touch();
+    }
     public List<String> getPropertyTypesOfInterest() { return propertyTypesOfInterest; }
 
     public Offer placeOffer(Property property, double amount) {
@@ -33,10 +36,13 @@ public class Buyer extends User {
     public void addDocument(String documentName) {
         if (documentName != null && !documentName.isEmpty() && !this.documents.contains(documentName)) {
             this.documents.add(documentName);
+            touch();
         }
     }
     public void removeDocument(String documentName) {
-        this.documents.remove(documentName);
+        if (this.documents.remove(documentName)) {
+            touch();
+        }
     }
 
     public List<String> getPropertyTypeOfInterest(){
@@ -45,10 +51,13 @@ public class Buyer extends User {
     public void addPropertyTypeOfInterest(String propertyType) {
         if (propertyType != null && !propertyType.isEmpty() && !this.propertyTypesOfInterest.contains(propertyType)) {
             this.propertyTypesOfInterest.add(propertyType);
+            touch();
         }
     }
     public void removePropertyTypeOfInterest(String propertyType) {
-        this.propertyTypesOfInterest.remove(propertyType);
+        if (this.propertyTypesOfInterest.remove(propertyType)) {
+            touch();
+        }
     }
 
 
@@ -0,0 +1,105 @@
+package ch.unil.doplab;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version clock shared by properties, offers and users.
+ * Every change takes the next value, so entity versions are unique and only
+ * grow, and {@link #current()} is the version of the catalog as a whole.
+ * Changes taken through {@link #record} are also passed to the listeners, in
+ * version order. Changes no listener accepts, such as edits of entities not
+ * yet published, take a plain version without the listeners' lock.
+ */
+public final class CatalogVersion {
+
+    public enum Change { CREATED, UPDATED, DELETED }
+
+    /**
+     * Called with the clock held, so it must be quick and must not record changes itself
+     */
+    public interface ChangeListener {
+        void onChange(long version, String entity, UUID id, Change change);
+
+        /**
+         * Whether the change should be passed to {@link #onChange}; called
+         * without the clock held, so it must not depend on version order
+         */
+        default boolean accepts(String entity, UUID id, Change change) {
+            return true;
+        }
+    }
+
+    private static final AtomicLong CLOCK = new AtomicLong();
+    private static final List<ChangeListener> LISTENERS = new CopyOnWriteArrayList<>();
+    private static final Object LOCK = new Object();
+
+    private CatalogVersion() {
+    }
+
+    public static void addListener(ChangeListener listener) {
+        LISTENERS.add(listener);
+    }
+
+    public static void removeListener(ChangeListener listener) {
+        LISTENERS.remove(listener);
+    }
+
+    public static long next() {
+        return CLOCK.incrementAndGet();
+    }
+
+    public static long current() {
+        return CLOCK.get();
+    }
+
+    /**
+     * Next version, reported to the listeners as a change of one entity
+     */
+    public static long record(String entity, UUID id, Change change) {
+        if (!accepted(entity, id, change)) {
+            return next();
+        }
+        synchronized (LOCK) {
+            long version = next();
+            for (ChangeListener listener : LISTENERS) {
+                if (listener.accepts(entity, id, change)) {
+                    listener.onChange(version, entity, id, change);
+                }
+            }
+            return version;
+        }
+    }
+
+    /**
+     * One version for a batch of changes of the same kind
+     */
+    public static long record(String entity, Collection<UUID> ids, Change change) {
+        if (ids.stream().noneMatch(id -> accepted(entity, id, change))) {
+            return next();
+        }
+        synchronized (LOCK) {
+            long version = next();
+            for (ChangeListener listener : LISTENERS) {
+                for (UUID id : ids) {
+                    if (listener.accepts(entity, id, change)) {
+                        listener.onChange(version, entity, id, change);
+                    }
+                }
+            }
+            return version;
+        }
+    }
+
+    private static boolean accepted(String entity, UUID id, Change change) {
+        for (ChangeListener listener : LISTENERS) {
+            if (listener.accepts(entity, id, change)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,37 @@
+package ch.unil.doplab;
+
+import java.util.UUID;
+
+/**
+ * Latest state of one conversation as seen by one participant.
+ * {@link #getActivity()} orders conversations by their latest message and
+ * can be passed back as a cursor to list older conversations.
+ */
+public class ConversationSummary {
+    private final UUID conversationId;
+    private final UUID propertyId;
+    private final UUID offerId;
+    private final Message latestMessage;
+    private final int messageCount;
+    private final int unreadCount;
+    private final int activity;
+
+    public ConversationSummary(UUID conversationId, UUID propertyId, UUID offerId, Message latestMessage,
+                               int messageCount, int unreadCount, int activity) {
+        this.conversationId = conversationId;
+        this.propertyId = propertyId;
+        this.offerId = offerId;
+        this.latestMessage = latestMessage;
+        this.messageCount = messageCount;
+        this.unreadCount = unreadCount;
+        this.activity = activity;
+    }
+
+    public UUID getConversationId() { return conversationId; }
+    public UUID getPropertyId() { return propertyId; }
+    public UUID getOfferId() { return offerId; }
+    public Message getLatestMessage() { return latestMessage; }
+    public int getMessageCount() { return messageCount; }
+    public int getUnreadCount() { return unreadCount; }
+    public int getActivity() { return activity; }
+}
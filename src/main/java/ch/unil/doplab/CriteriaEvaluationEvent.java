@@ -0,0 +1,40 @@
+package ch.unil.doplab;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JFR event for one pass of {@link PropertySearchCriteria} over a collection
+ */
+@Name("ch.unil.doplab.CriteriaEvaluation")
+@Label("Criteria Evaluation")
+@Category({"RealEstateHub", "Search"})
+@Description("Search criteria applied to a collection of listings")
+@StackTrace(false)
+@Threshold("100 us")
+class CriteriaEvaluationEvent extends jdk.jfr.Event {
+
+    @Label("Locations")
+    int locations;
+
+    @Label("Property Types")
+    int propertyTypes;
+
+    @Label("Min Price")
+    @Description("NaN when not set")
+    double minPrice;
+
+    @Label("Max Price")
+    @Description("NaN when not set")
+    double maxPrice;
+
+    @Label("Candidates")
+    int candidates;
+
+    @Label("Matches")
+    int matches;
+}
@@ -0,0 +1,334 @@
+package ch.unil.doplab;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Per-user index into the {@link MessageLog}.
+ * Slot i holds the log offset of the user's i-th message; read and sent
+ * flags live in bit vectors indexed by slot instead of on each message.
+ * Received slots are also listed in arrival order so the inbox can be paged
+ * newest-first, and the unread count is kept up to date on every change.
+ * Conversations get the same treatment: their slots, unread count and an
+ * ordering by latest activity are maintained as messages arrive.
+ * Slot lists and flags are {@link PersistentIntVector}s: writers publish a
+ * new version, readers use whichever version they loaded without locking,
+ * and copies share them instead of duplicating the history.
+ */
+final class Mailbox {
+
+    private final MessageLog log;
+    private final User owner; // marks made through a Message are routed back to it
+    private volatile PersistentIntVector offsets;
+    private volatile PersistentIntVector read;  // 32 flags per word
+    private volatile PersistentIntVector sent;  // 32 flags per word
+    private PersistentIntVector inbox; // slots of received messages, oldest first
+    private int unread;
+    private final Map<UUID, Conversation> conversations;
+    private final TreeMap<Integer, UUID> byActivity; // latest slot -> conversation
+    private volatile long lastChange; // CatalogVersion of the latest change
+
+    private static final class Conversation {
+        private final UUID propertyId;
+        private final UUID offerId;
+        private PersistentIntVector slots = PersistentIntVector.empty();
+        private int unread;
+
+        Conversation(UUID propertyId, UUID offerId) {
+            this.propertyId = propertyId;
+            this.offerId = offerId;
+        }
+
+        int latestSlot() {
+            return slots.get(slots.size() - 1);
+        }
+
+        Conversation copy() {
+            Conversation copy = new Conversation(propertyId, offerId);
+            copy.slots = slots;
+            copy.unread = unread;
+            return copy;
+        }
+    }
+
+    Mailbox(MessageLog log, User owner) {
+        this.log = log;
+        this.owner = owner;
+        this.offsets = PersistentIntVector.empty();
+        this.read = PersistentIntVector.empty();
+        this.sent = PersistentIntVector.empty();
+        this.inbox = PersistentIntVector.empty();
+        this.conversations = new HashMap<>();
+        this.byActivity = new TreeMap<>();
+    }
+
+    /**
+     * Index a logged message and return its slot
+     */
+    synchronized int add(int offset, boolean outbound) {
+        int slot = offsets.size();
+        if (outbound) {
+            sent = withFlag(sent, slot);
+            read = withFlag(read, slot);
+        } else {
+            inbox = inbox.append(slot);
+            unread++;
+        }
+        offsets = offsets.append(offset);
+        indexConversation(slot);
+        lastChange = CatalogVersion.next();
+        return slot;
+    }
+
+    /**
+     * Attach a slot to its conversation; flags must already be set
+     */
+    private void indexConversation(int slot) {
+        Message message = log.get(offsets.get(slot));
+        Conversation conversation = conversations.computeIfAbsent(message.getConversationId(),
+                id -> new Conversation(message.getPropertyId(), message.getOfferId()));
+        if (!conversation.slots.isEmpty()) {
+            byActivity.remove(conversation.latestSlot());
+        }
+        conversation.slots = conversation.slots.append(slot);
+        if (!flag(read, slot)) {
+            conversation.unread++;
+        }
+        byActivity.put(slot, message.getConversationId());
+    }
+
+    private void readSlot(int slot) {
+        read = withFlag(read, slot);
+        unread--;
+        Conversation conversation = conversations.get(log.get(offsets.get(slot)).getConversationId());
+        if (conversation != null) {
+            conversation.unread--;
+        }
+        lastChange = CatalogVersion.next();
+    }
+
+    private static boolean flag(PersistentIntVector words, int slot) {
+        int word = slot >>> 5;
+        return word < words.size() && (words.get(word) & (1 << (slot & 31))) != 0;
+    }
+
+    private static PersistentIntVector withFlag(PersistentIntVector words, int slot) {
+        int word = slot >>> 5;
+        while (words.size() <= word) {
+            words = words.append(0);
+        }
+        int current = words.get(word);
+        int updated = current | (1 << (slot & 31));
+        return updated == current ? words : words.set(word, updated);
+    }
+
+    int size() {
+        return offsets.size();
+    }
+
+    long lastChange() {
+        return lastChange;
+    }
+
+    Message get(int slot) {
+        PersistentIntVector current = offsets;
+        if (slot < 0 || slot >= current.size()) {
+            throw new IndexOutOfBoundsException("Slot " + slot + " outside mailbox of size " + current.size());
+        }
+        return log.get(current.get(slot));
+    }
+
+    boolean isRead(int slot) {
+        return flag(read, slot);
+    }
+
+    User owner() {
+        return owner;
+    }
+
+    boolean isSent(int slot) {
+        return flag(sent, slot);
+    }
+
+    synchronized int inboxSize() {
+        return inbox.size();
+    }
+
+    synchronized int unreadCount() {
+        return unread;
+    }
+
+    /**
+     * Received messages newest-first, starting just below the cursor position
+     */
+    synchronized MessagePage inboxPage(Integer cursor, int limit) {
+        return page(inbox, cursor, limit, unread);
+    }
+
+    /**
+     * Messages of one conversation newest-first, starting just below the cursor position
+     */
+    synchronized MessagePage conversationPage(UUID conversationId, Integer cursor, int limit) {
+        Conversation conversation = conversations.get(conversationId);
+        if (conversation == null) {
+            return page(PersistentIntVector.empty(), cursor, limit, 0);
+        }
+        return page(conversation.slots, cursor, limit, conversation.unread);
+    }
+
+    /**
+     * Conversations ordered by latest message, newest first
+     */
+    synchronized List<ConversationSummary> conversations(Integer cursor, int limit) {
+        if (limit <= 0) throw new IllegalArgumentException("Limit must be positive");
+        NavigableMap<Integer, UUID> ordered = cursor == null
+                ? byActivity.descendingMap()
+                : byActivity.headMap(cursor, false).descendingMap();
+        List<ConversationSummary> summaries = new ArrayList<>();
+        for (Map.Entry<Integer, UUID> entry : ordered.entrySet()) {
+            if (summaries.size() == limit) break;
+            Conversation conversation = conversations.get(entry.getValue());
+            summaries.add(new ConversationSummary(entry.getValue(), conversation.propertyId, conversation.offerId,
+                    log.get(offsets.get(entry.getKey())), conversation.slots.size(), conversation.unread,
+                    entry.getKey()));
+        }
+        return summaries;
+    }
+
+    private MessagePage page(PersistentIntVector slots, Integer cursor, int limit, int unreadCount) {
+        if (limit <= 0) throw new IllegalArgumentException("Limit must be positive");
+        int count = slots.size();
+        int end = cursor == null ? count : cursor;
+        if (end < 0 || end > count) throw new IllegalArgumentException("Invalid cursor");
+        int start = Math.max(0, end - limit);
+        List<Message> page = new ArrayList<>(end - start);
+        for (int i = end - 1; i >= start; i--) {
+            page.add(log.get(offsets.get(slots.get(i))));
+        }
+        return new MessagePage(page, start > 0 ? start : null, unreadCount);
+    }
+
+    /**
+     * Mark every received message as read
+     */
+    synchronized int markAllRead() {
+        int marked = unread;
+        if (marked == 0) return 0;
+        int size = offsets.size();
+        PersistentIntVector words = PersistentIntVector.empty();
+        for (int bit = 0; bit < size; bit += 32) {
+            int remaining = size - bit;
+            words = words.append(remaining >= 32 ? -1 : (1 << remaining) - 1);
+        }
+        read = words;
+        unread = 0;
+        conversations.values().forEach(conversation -> conversation.unread = 0);
+        lastChange = CatalogVersion.next();
+        return marked;
+    }
+
+    /**
+     * Mark the given received messages as read, searching from the newest one
+     * so that acknowledging a recent page only touches that page
+     */
+    synchronized int markRead(Collection<UUID> messageIds) {
+        Set<UUID> remaining = new HashSet<>(messageIds);
+        int marked = 0;
+        for (int i = inbox.size() - 1; i >= 0 && !remaining.isEmpty() && unread > 0; i--) {
+            int slot = inbox.get(i);
+            if (remaining.remove(log.get(offsets.get(slot)).getMessageId()) && !flag(read, slot)) {
+                readSlot(slot);
+                marked++;
+            }
+        }
+        return marked;
+    }
+
+    /**
+     * Independent copy sharing the same log and the same slot vectors;
+     * only the per-conversation bookkeeping is duplicated. The copy becomes
+     * the owner of the read state of messages received here.
+     */
+    synchronized Mailbox copy(User owner) {
+        Mailbox copy = new Mailbox(log, owner);
+        copy.offsets = offsets;
+        copy.read = read;
+        copy.sent = sent;
+        copy.inbox = inbox;
+        copy.unread = unread;
+        copy.lastChange = lastChange;
+        conversations.forEach((id, conversation) -> copy.conversations.put(id, conversation.copy()));
+        copy.byActivity.putAll(byActivity);
+        for (int i = 0; i < inbox.size(); i++) {
+            int slot = inbox.get(i);
+            log.get(offsets.get(slot)).movedTo(this, copy, slot);
+        }
+        return copy;
+    }
+
+    /**
+     * Append all entries of another mailbox, keeping their flags; this
+     * mailbox takes over the read state of messages received there
+     */
+    void appendAll(Mailbox other) {
+        if (other == this) return;
+        PersistentIntVector otherOffsets;
+        PersistentIntVector otherRead;
+        PersistentIntVector otherSent;
+        synchronized (other) {
+            otherOffsets = other.offsets;
+            otherRead = other.read;
+            otherSent = other.sent;
+        }
+        if (otherOffsets.isEmpty()) return;
+        synchronized (this) {
+            for (int i = 0; i < otherOffsets.size(); i++) {
+                int slot = offsets.size();
+                if (flag(otherSent, i)) {
+                    sent = withFlag(sent, slot);
+                } else {
+                    inbox = inbox.append(slot);
+                }
+                if (flag(otherRead, i)) {
+                    read = withFlag(read, slot);
+                } else {
+                    unread++;
+                }
+                offsets = offsets.append(otherOffsets.get(i));
+                indexConversation(slot);
+                if (!flag(otherSent, i)) {
+                    log.get(otherOffsets.get(i)).movedTo(other, this, slot);
+                }
+            }
+            lastChange = CatalogVersion.next();
+        }
+    }
+
+    /**
+     * Read-only snapshot of the current messages, resolved through the log
+     * without copying and unaffected by later additions
+     */
+    List<Message> view() {
+        PersistentIntVector snapshot = offsets;
+        return new AbstractList<>() {
+            @Override
+            public Message get(int index) {
+                return log.get(snapshot.get(index));
+            }
+
+            @Override
+            public int size() {
+                return snapshot.size();
+            }
+        };
+    }
+}
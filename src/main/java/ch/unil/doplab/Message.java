@@ -1,8 +1,17 @@
 package ch.unil.doplab;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 
+/**
+ * A message stored once in the {@link MessageLog} and shared by sender and recipient.
+ * Read state belongs to the recipient and is kept in the recipient's mailbox;
+ * when that mailbox is copied or merged into another user, the new owner takes it over.
+ * Messages between the same two users about the same property/offer share a conversation ID.
+ */
 public class Message {
     public enum MessageDirection { SENT, RECEIVED }
 
@@ -12,37 +21,55 @@ public class Message {
     private final String subject;
     private final String content;
     private final LocalDateTime sentAt;
-    private final MessageDirection direction;
-    private boolean read;
+    private final UUID conversationId;
+    private final UUID propertyId;
+    private final UUID offerId;
+    private volatile Delivery delivery; // recipient mailbox slot holding the read flag
 
-    private Message(UUID senderId, UUID recipientId, String subject, String content, MessageDirection direction) {
+    private record Delivery(Mailbox mailbox, int slot) {
+    }
+
+    Message(UUID senderId, UUID recipientId, String subject, String content, UUID propertyId, UUID offerId) {
         this.messageId = UUID.randomUUID();
         this.senderId = senderId;
         this.recipientId = recipientId;
         this.subject = subject;
         this.content = content;
         this.sentAt = LocalDateTime.now();
-        this.direction = direction;
-        this.read = direction == MessageDirection.SENT;
+        this.propertyId = propertyId;
+        this.offerId = offerId;
+        this.conversationId = conversationIdFor(senderId, recipientId, propertyId, offerId);
     }
 
-    public Message(Message other) {
-        this.messageId = other.messageId;
-        this.senderId = other.senderId;
-        this.recipientId = other.recipientId;
-        this.subject = other.subject;
-        this.content = other.content;
-        this.sentAt = other.sentAt;
-        this.direction = other.direction;
-        this.read = other.read;
+    /**
+     * Deterministic conversation ID, identical from both participants' side
+     */
+    public static UUID conversationIdFor(UUID userA, UUID userB, UUID propertyId, UUID offerId) {
+        String first = String.valueOf(userA);
+        String second = String.valueOf(userB);
+        if (first.compareTo(second) > 0) {
+            String swap = first;
+            first = second;
+            second = swap;
+        }
+        String key = first + "|" + second + "|" + propertyId + "|" + offerId;
+        return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8));
     }
 
-    public static Message outbound(UUID senderId, UUID recipientId, String subject, String content) {
-        return new Message(senderId, recipientId, subject, content, MessageDirection.SENT);
+    /**
+     * Attach the message to the recipient's mailbox slot that tracks its read state
+     */
+    synchronized void deliveredTo(Mailbox mailbox, int slot) {
+        this.delivery = new Delivery(mailbox, slot);
     }
 
-    public static Message inbound(UUID senderId, UUID recipientId, String subject, String content) {
-        return new Message(senderId, recipientId, subject, content, MessageDirection.RECEIVED);
+    /**
+     * Hand the read state over to the mailbox that replaces the current owner
+     */
+    synchronized void movedTo(Mailbox from, Mailbox to, int slot) {
+        if (delivery != null && delivery.mailbox() == from) {
+            this.delivery = new Delivery(to, slot);
+        }
     }
 
     public UUID getMessageId() { return messageId; }
@@ -51,9 +78,29 @@ public class Message {
     public String getSubject() { return subject; }
     public String getContent() { return content; }
     public LocalDateTime getSentAt() { return sentAt; }
-    public MessageDirection getDirection() { return direction; }
-    public boolean isRead() { return read; }
-    public void markAsRead() { this.read = true; }
+    public UUID getConversationId() { return conversationId; }
+    public UUID getPropertyId() { return propertyId; }
+    public UUID getOfferId() { return offerId; }
+
+    public MessageDirection getDirectionFor(UUID userId) {
+        return Objects.equals(senderId, userId) ? MessageDirection.SENT : MessageDirection.RECEIVED;
+    }
+
+    public boolean isRead() {
+        Delivery current = delivery;
+        return current != null && current.mailbox().isRead(current.slot());
+    }
+
+    /**
+     * Mark as read for the recipient, through {@link User#markMessagesAsRead}
+     * so the recipient's version and change feed see it
+     */
+    public void markAsRead() {
+        Delivery current = delivery;
+        if (current != null) {
+            current.mailbox().owner().markMessagesAsRead(List.of(messageId));
+        }
+    }
 
     @Override
     public String toString() {
@@ -63,8 +110,8 @@ public class Message {
                 ", recipientId=" + recipientId +
                 ", subject='" + subject + '\'' +
                 ", sentAt=" + sentAt +
-                ", direction=" + direction +
-                ", read=" + read +
+                ", conversationId=" + conversationId +
+                ", read=" + isRead() +
                 '}';
     }
 }
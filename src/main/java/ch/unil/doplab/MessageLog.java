@@ -0,0 +1,53 @@
+package ch.unil.doplab;
+
+import java.util.Arrays;
+
+/**
+ * Append-only store holding every message exactly once.
+ * Users keep only the offsets of their messages (see {@link Mailbox}),
+ * so sender and recipient share the same {@link Message} instance.
+ */
+public final class MessageLog {
+
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final MessageLog SHARED = new MessageLog();
+
+    private volatile Message[][] chunks = new Message[1][];
+    private volatile int size;
+
+    public static MessageLog shared() {
+        return SHARED;
+    }
+
+    /**
+     * Append a message and return its offset in the log
+     */
+    public synchronized int append(Message message) {
+        if (message == null) throw new IllegalArgumentException("Message must not be null");
+        int offset = size;
+        int chunk = offset >>> CHUNK_BITS;
+        Message[][] current = chunks;
+        if (chunk == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        if (current[chunk] == null) {
+            current[chunk] = new Message[CHUNK_SIZE];
+        }
+        current[chunk][offset & (CHUNK_SIZE - 1)] = message;
+        chunks = current;
+        size = offset + 1;
+        return offset;
+    }
+
+    public Message get(int offset) {
+        if (offset < 0 || offset >= size) {
+            throw new IndexOutOfBoundsException("Offset " + offset + " outside log of size " + size);
+        }
+        return chunks[offset >>> CHUNK_BITS][offset & (CHUNK_SIZE - 1)];
+    }
+
+    public int size() {
+        return size;
+    }
+}
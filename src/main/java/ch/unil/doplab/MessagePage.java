@@ -0,0 +1,25 @@
+package ch.unil.doplab;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a user's inbox, newest message first.
+ * Pass {@link #getNextCursor()} back to fetch the following (older) page;
+ * it is null once the oldest message has been returned.
+ */
+public class MessagePage {
+    private final List<Message> messages;
+    private final Integer nextCursor;
+    private final int unreadCount;
+
+    public MessagePage(List<Message> messages, Integer nextCursor, int unreadCount) {
+        this.messages = Collections.unmodifiableList(messages);
+        this.nextCursor = nextCursor;
+        this.unreadCount = unreadCount;
+    }
+
+    public List<Message> getMessages() { return messages; }
+    public Integer getNextCursor() { return nextCursor; }
+    public int getUnreadCount() { return unreadCount; }
+}
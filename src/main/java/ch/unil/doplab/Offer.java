@@ -13,6 +13,7 @@ public class Offer {
     private final double amount;
     private final LocalDateTime createdAt;
     private Status status;
+    private volatile long version; // from CatalogVersion, advanced on every change
 
     public Offer(UUID propertyId, UUID buyerId, double amount) {
         if (propertyId == null) throw new IllegalArgumentException("propertyId is required");
@@ -24,6 +25,7 @@ public class Offer {
         this.amount = amount;
         this.createdAt = LocalDateTime.now();
         this.status = Status.PENDING;
+        this.version = CatalogVersion.next();
     }
 
     public UUID getOfferId() { return offerId; }
@@ -32,7 +34,11 @@ public class Offer {
     public double getAmount() { return amount; }
     public LocalDateTime getCreatedAt() { return createdAt; }
     public Status getStatus() { return status; }
-    public void setStatus(Status status) { this.status = status; }
+    public long getVersion() { return version; }
+    public void setStatus(Status status) {
+        this.status = status;
+        this.version = CatalogVersion.record("offer", offerId, CatalogVersion.Change.UPDATED);
+    }
 
     @Override
     public boolean equals(Object o) {
@@ -0,0 +1,141 @@
+package ch.unil.doplab;
+
+import java.util.Arrays;
+
+/**
+ * Immutable vector of ints with structural sharing (32-way trie plus a tail).
+ * append and set return a new vector in O(log32 n) while the original stays
+ * valid, so a published instance can be read from any thread without locks.
+ */
+public final class PersistentIntVector {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    private static final PersistentIntVector EMPTY =
+            new PersistentIntVector(0, BITS, new Object[WIDTH], new int[0]);
+
+    private final int size;
+    private final int shift;
+    private final Object[] root; // internal nodes hold Object[] children, the lowest level holds int[] leaves
+    private final int[] tail;
+
+    private PersistentIntVector(int size, int shift, Object[] root, int[] tail) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    public static PersistentIntVector empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " outside vector of size " + size);
+        }
+        return leafFor(index)[index & MASK];
+    }
+
+    public PersistentIntVector append(int value) {
+        if (size - tailOffset() < WIDTH) {
+            int[] newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = value;
+            return new PersistentIntVector(size + 1, shift, root, newTail);
+        }
+        Object[] newRoot;
+        int newShift = shift;
+        if ((size >>> BITS) > (1 << shift)) {
+            newRoot = new Object[WIDTH];
+            newRoot[0] = root;
+            newRoot[1] = newPath(shift, tail);
+            newShift += BITS;
+        } else {
+            newRoot = pushTail(shift, root, tail);
+        }
+        return new PersistentIntVector(size + 1, newShift, newRoot, new int[]{value});
+    }
+
+    public PersistentIntVector set(int index, int value) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " outside vector of size " + size);
+        }
+        if (index >= tailOffset()) {
+            int[] newTail = tail.clone();
+            newTail[index & MASK] = value;
+            return new PersistentIntVector(size, shift, root, newTail);
+        }
+        return new PersistentIntVector(size, shift, assoc(shift, root, index, value), tail);
+    }
+
+    public int[] toArray() {
+        int[] values = new int[size];
+        for (int i = 0; i < size; i += WIDTH) {
+            int[] leaf = leafFor(i);
+            System.arraycopy(leaf, 0, values, i, Math.min(WIDTH, size - i));
+        }
+        return values;
+    }
+
+    private int tailOffset() {
+        return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+    }
+
+    private int[] leafFor(int index) {
+        if (index >= tailOffset()) {
+            return tail;
+        }
+        Object node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = ((Object[]) node)[(index >>> level) & MASK];
+        }
+        return (int[]) node;
+    }
+
+    private Object[] pushTail(int level, Object[] parent, int[] tailNode) {
+        int subIndex = ((size - 1) >>> level) & MASK;
+        Object[] copy = parent.clone();
+        Object inserted;
+        if (level == BITS) {
+            inserted = tailNode;
+        } else {
+            Object child = parent[subIndex];
+            inserted = child != null
+                    ? pushTail(level - BITS, (Object[]) child, tailNode)
+                    : newPath(level - BITS, tailNode);
+        }
+        copy[subIndex] = inserted;
+        return copy;
+    }
+
+    private static Object newPath(int level, Object node) {
+        if (level == 0) {
+            return node;
+        }
+        Object[] path = new Object[WIDTH];
+        path[0] = newPath(level - BITS, node);
+        return path;
+    }
+
+    private static Object[] assoc(int level, Object[] node, int index, int value) {
+        Object[] copy = node.clone();
+        int subIndex = (index >>> level) & MASK;
+        if (level == BITS) {
+            int[] leaf = ((int[]) node[subIndex]).clone();
+            leaf[index & MASK] = value;
+            copy[subIndex] = leaf;
+        } else {
+            copy[subIndex] = assoc(level - BITS, (Object[]) node[subIndex], index, value);
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,259 @@
+package ch.unil.doplab;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Immutable set of UUIDs with structural sharing (hash array mapped trie,
+ * 32-way, entries stored as raw longs). add and remove return a new set in
+ * O(log32 n), copying only the nodes on the path, while the original stays
+ * valid, so a published instance can be read from any thread without locks.
+ * Iteration order is unspecified.
+ */
+public final class PersistentUuidSet {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final int HASH_BITS = 32; // below this depth a node holds colliding entries in a flat list
+    private static final PersistentUuidSet EMPTY = new PersistentUuidSet(Node.EMPTY, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentUuidSet(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    public static PersistentUuidSet empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(UUID id) {
+        if (id == null) return false;
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        return root.contains(msb, lsb, hash(msb, lsb), 0);
+    }
+
+    /**
+     * @return this set when the id is already present
+     */
+    public PersistentUuidSet add(UUID id) {
+        if (id == null) throw new IllegalArgumentException("ID must not be null");
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        Node added = root.add(msb, lsb, hash(msb, lsb), 0);
+        return added == root ? this : new PersistentUuidSet(added, size + 1);
+    }
+
+    /**
+     * @return this set when the id is absent
+     */
+    public PersistentUuidSet remove(UUID id) {
+        if (id == null) return this;
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        Node removed = root.remove(msb, lsb, hash(msb, lsb), 0);
+        if (removed == root) return this;
+        return size == 1 ? EMPTY : new PersistentUuidSet(removed, size - 1);
+    }
+
+    public PersistentUuidSet addAll(PersistentUuidSet other) {
+        if (other.size > size) {
+            return other.addAll(this);
+        }
+        PersistentUuidSet[] result = {this};
+        other.forEach(id -> result[0] = result[0].add(id));
+        return result[0];
+    }
+
+    public void forEach(Consumer<UUID> action) {
+        root.forEach(action);
+    }
+
+    public List<UUID> toList() {
+        List<UUID> list = new ArrayList<>(size);
+        forEach(list::add);
+        return list;
+    }
+
+    private static int hash(long msb, long lsb) {
+        long h = msb ^ lsb;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    /**
+     * Entries whose hash slot is unique at this level sit in data, positioned
+     * by dataMap; slots shared by several entries point to a child in nodes.
+     * Past HASH_BITS the maps are unused and data is a flat list of collisions.
+     */
+    private static final class Node {
+        static final Node EMPTY = new Node(0, 0, new long[0], new Node[0]);
+
+        final int dataMap;
+        final int nodeMap;
+        final long[] data; // entry i -> data[2i] = most significant, data[2i + 1] = least significant
+        final Node[] nodes;
+
+        Node(int dataMap, int nodeMap, long[] data, Node[] nodes) {
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.data = data;
+            this.nodes = nodes;
+        }
+
+        int entries() {
+            return data.length / 2;
+        }
+
+        boolean contains(long msb, long lsb, int hash, int shift) {
+            if (shift >= HASH_BITS) {
+                return indexOf(msb, lsb) >= 0;
+            }
+            int bit = bit(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int i = Integer.bitCount(dataMap & (bit - 1));
+                return data[2 * i] == msb && data[2 * i + 1] == lsb;
+            }
+            if ((nodeMap & bit) != 0) {
+                return nodes[Integer.bitCount(nodeMap & (bit - 1))].contains(msb, lsb, hash, shift + BITS);
+            }
+            return false;
+        }
+
+        Node add(long msb, long lsb, int hash, int shift) {
+            if (shift >= HASH_BITS) {
+                if (indexOf(msb, lsb) >= 0) return this;
+                return new Node(0, 0, insertEntry(data, entries(), msb, lsb), nodes);
+            }
+            int bit = bit(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int i = Integer.bitCount(dataMap & (bit - 1));
+                long otherMsb = data[2 * i];
+                long otherLsb = data[2 * i + 1];
+                if (otherMsb == msb && otherLsb == lsb) return this;
+                // Two entries now share the slot: push both one level down
+                Node child = pair(otherMsb, otherLsb, hash(otherMsb, otherLsb), msb, lsb, hash, shift + BITS);
+                int n = Integer.bitCount(nodeMap & (bit - 1));
+                return new Node(dataMap ^ bit, nodeMap | bit, removeEntry(data, i), insertNode(nodes, n, child));
+            }
+            if ((nodeMap & bit) != 0) {
+                int n = Integer.bitCount(nodeMap & (bit - 1));
+                Node child = nodes[n].add(msb, lsb, hash, shift + BITS);
+                if (child == nodes[n]) return this;
+                Node[] copy = nodes.clone();
+                copy[n] = child;
+                return new Node(dataMap, nodeMap, data, copy);
+            }
+            int i = Integer.bitCount(dataMap & (bit - 1));
+            return new Node(dataMap | bit, nodeMap, insertEntry(data, i, msb, lsb), nodes);
+        }
+
+        Node remove(long msb, long lsb, int hash, int shift) {
+            if (shift >= HASH_BITS) {
+                int i = indexOf(msb, lsb);
+                return i < 0 ? this : new Node(0, 0, removeEntry(data, i), nodes);
+            }
+            int bit = bit(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int i = Integer.bitCount(dataMap & (bit - 1));
+                if (data[2 * i] != msb || data[2 * i + 1] != lsb) return this;
+                return new Node(dataMap ^ bit, nodeMap, removeEntry(data, i), nodes);
+            }
+            if ((nodeMap & bit) != 0) {
+                int n = Integer.bitCount(nodeMap & (bit - 1));
+                Node child = nodes[n].remove(msb, lsb, hash, shift + BITS);
+                if (child == nodes[n]) return this;
+                if (child.nodes.length == 0 && child.entries() == 1) {
+                    // A lone entry moves back up so every path stays as short as possible
+                    int i = Integer.bitCount(dataMap & (bit - 1));
+                    return new Node(dataMap | bit, nodeMap ^ bit,
+                            insertEntry(data, i, child.data[0], child.data[1]), removeNode(nodes, n));
+                }
+                Node[] copy = nodes.clone();
+                copy[n] = child;
+                return new Node(dataMap, nodeMap, data, copy);
+            }
+            return this;
+        }
+
+        void forEach(Consumer<UUID> action) {
+            for (int i = 0; i < data.length; i += 2) {
+                action.accept(new UUID(data[i], data[i + 1]));
+            }
+            for (Node node : nodes) {
+                node.forEach(action);
+            }
+        }
+
+        private int indexOf(long msb, long lsb) {
+            for (int i = 0; i < data.length; i += 2) {
+                if (data[i] == msb && data[i + 1] == lsb) return i / 2;
+            }
+            return -1;
+        }
+
+        private static Node pair(long msb1, long lsb1, int hash1, long msb2, long lsb2, int hash2, int shift) {
+            if (shift >= HASH_BITS) {
+                return new Node(0, 0, new long[]{msb1, lsb1, msb2, lsb2}, EMPTY.nodes);
+            }
+            int bit1 = bit(hash1, shift);
+            int bit2 = bit(hash2, shift);
+            if (bit1 == bit2) {
+                return new Node(0, bit1, EMPTY.data, new Node[]{pair(msb1, lsb1, hash1, msb2, lsb2, hash2, shift + BITS)});
+            }
+            long[] data = Integer.compareUnsigned(bit1, bit2) < 0
+                    ? new long[]{msb1, lsb1, msb2, lsb2}
+                    : new long[]{msb2, lsb2, msb1, lsb1};
+            return new Node(bit1 | bit2, 0, data, EMPTY.nodes);
+        }
+
+        private static long[] insertEntry(long[] data, int index, long msb, long lsb) {
+            long[] copy = new long[data.length + 2];
+            System.arraycopy(data, 0, copy, 0, 2 * index);
+            copy[2 * index] = msb;
+            copy[2 * index + 1] = lsb;
+            System.arraycopy(data, 2 * index, copy, 2 * index + 2, data.length - 2 * index);
+            return copy;
+        }
+
+        private static long[] removeEntry(long[] data, int index) {
+            long[] copy = Arrays.copyOf(data, data.length - 2);
+            System.arraycopy(data, 2 * index + 2, copy, 2 * index, data.length - 2 * index - 2);
+            return copy;
+        }
+
+        private static Node[] insertNode(Node[] nodes, int index, Node node) {
+            Node[] copy = new Node[nodes.length + 1];
+            System.arraycopy(nodes, 0, copy, 0, index);
+            copy[index] = node;
+            System.arraycopy(nodes, index, copy, index + 1, nodes.length - index);
+            return copy;
+        }
+
+        private static Node[] removeNode(Node[] nodes, int index) {
+            Node[] copy = Arrays.copyOf(nodes, nodes.length - 1);
+            System.arraycopy(nodes, index + 1, copy, index, nodes.length - index - 1);
+            return copy;
+        }
+    }
+}
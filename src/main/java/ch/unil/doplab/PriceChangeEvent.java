@@ -0,0 +1,37 @@
+package ch.unil.doplab;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Emitted by {@link Property} whenever its price changes
+ */
+public class PriceChangeEvent {
+    private final UUID propertyId;
+    private final double oldPrice;
+    private final double newPrice;
+    private final LocalDateTime changedAt;
+
+    public PriceChangeEvent(UUID propertyId, double oldPrice, double newPrice, LocalDateTime changedAt) {
+        this.propertyId = propertyId;
+        this.oldPrice = oldPrice;
+        this.newPrice = newPrice;
+        this.changedAt = changedAt;
+    }
+
+    public UUID getPropertyId() { return propertyId; }
+    public double getOldPrice() { return oldPrice; }
+    public double getNewPrice() { return newPrice; }
+    public LocalDateTime getChangedAt() { return changedAt; }
+
+    public boolean isDrop() {
+        return newPrice < oldPrice;
+    }
+
+    /**
+     * Relative drop in percent, 0 when the price did not go down
+     */
+    public double getDropPercent() {
+        return isDrop() && oldPrice > 0 ? (oldPrice - newPrice) * 100.0 / oldPrice : 0.0;
+    }
+}
@@ -0,0 +1,9 @@
+package ch.unil.doplab;
+
+/**
+ * Receives price changes of any {@link Property}; called on the thread that changed the price
+ */
+@FunctionalInterface
+public interface PriceChangeListener {
+    void onPriceChange(PriceChangeEvent event);
+}
@@ -2,6 +2,7 @@ package ch.unil.doplab;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class Property {
     // iu
@@ -25,6 +26,8 @@ public class Property {
         OFF_MARKET
     }
 
+    private static final List<PriceChangeListener> PRICE_LISTENERS = new CopyOnWriteArrayList<>();
+
     private final UUID propertyId;
     private UUID ownerId;
     private String title;
@@ -38,13 +41,16 @@ public class Property {
     private PropertyStatus status;
     private final LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private volatile long version; // from CatalogVersion, advanced on every change
+    private final long createdVersion;
 
     public Property() {
         this.propertyId = UUID.randomUUID();
         this.features = new LinkedHashMap<>();
         this.images = new ArrayList<>();
         this.createdAt = LocalDateTime.now();
-        this.updatedAt = LocalDateTime.now();
+        touch();
+        this.createdVersion = version;
         this.status = PropertyStatus.OFF_MARKET;
     }
 
@@ -71,7 +77,7 @@ public class Property {
 
     public void setTitle(String title) {
         this.title = title;
-        this.updatedAt = LocalDateTime.now();
+        touch();
     }
 
     public UUID getOwnerId() {
@@ -80,7 +86,7 @@ public class Property {
 
     public void setOwnerId(UUID ownerId) {
         this.ownerId = ownerId;
-        this.updatedAt = LocalDateTime.now();
+        touch();
     }
 
     public String getDescription() {
@@ -89,7 +95,7 @@ public class Property {
 
     public void setDescription(String description) {
         this.description = description;
-        this.updatedAt = LocalDateTime.now();
+        touch();
     }
 
     public String getLocation() {
@@ -98,7 +104,7 @@ public class Property {
 
     public void setLocation(String location) {
         this.location = location;
-        this.updatedAt = LocalDateTime.now();
+        touch();
     }
 
     public double getPrice() {
@@ -106,8 +112,10 @@ public class Property {
     }
 
     public void setPrice(double price) {
+        double oldPrice = this.price;
         this.price = price;
-        this.updatedAt = LocalDateTime.now();
+        touch();
+        firePriceChange(oldPrice);
     }
 
     public double getSize() {
@@ -116,7 +124,7 @@ public class Property {
 
     public void setSize(double size) {
         this.size = size;
-        this.updatedAt = LocalDateTime.now();
+        touch();
     }
 
     public PropertyType getType() {
@@ -125,7 +133,7 @@ public class Property {
 
     public void setType(PropertyType type) {
         this.type = type;
-        this.updatedAt = LocalDateTime.now();
+        touch();
     }
 
     public Map<String, Object> getFeatures() {
@@ -134,12 +142,12 @@ public class Property {
 
     public void addFeature(String key, Object value) {
         features.put(key, value);
-        this.updatedAt = LocalDateTime.now();
+        touch();
     }
 
     public void removeFeature(String key) {
         features.remove(key);
-        this.updatedAt = LocalDateTime.now();
+        touch();
     }
 
     public PropertyStatus getStatus() {
@@ -148,7 +156,7 @@ public class Property {
 
     public void setStatus(PropertyStatus status) {
         this.status = status;
-        this.updatedAt = LocalDateTime.now();
+        touch();
     }
 
     public List<String> getImages() {
@@ -158,13 +166,13 @@ public class Property {
     public void addImage(String imageUrl) {
         if (imageUrl != null && !imageUrl.isBlank()) {
             this.images.add(imageUrl);
-            this.updatedAt = LocalDateTime.now();
+            touch();
         }
     }
 
     public void removeImage(String imageUrl) {
         if (this.images.remove(imageUrl)) {
-            this.updatedAt = LocalDateTime.now();
+            touch();
         }
     }
 
@@ -176,31 +184,72 @@ public class Property {
         return updatedAt;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Catalog version at construction, to tell listings created after a snapshot
+     */
+    public long getCreatedVersion() {
+        return createdVersion;
+    }
+
+    private void touch() {
+        this.updatedAt = LocalDateTime.now();
+        this.version = CatalogVersion.record("property", propertyId, CatalogVersion.Change.UPDATED);
+    }
+
     // Property Actions
     public void publish() {
         this.status = PropertyStatus.FOR_SALE;
-        this.updatedAt = LocalDateTime.now();
+        touch();
     }
 
     public void suspend() {
         this.status = PropertyStatus.OFF_MARKET;
-        this.updatedAt = LocalDateTime.now();
+        touch();
     }
 
     public void close() {
         this.status = PropertyStatus.SOLD;
-        this.updatedAt = LocalDateTime.now();
+        touch();
     }
 
     public void updatePropertyDetails(String title, String description, String location,
                                     double price, double size, PropertyType type) {
+        double oldPrice = this.price;
         if (title != null) this.title = title;
         if (description != null) this.description = description;
         if (location != null) this.location = location;
         if (price >= 0) this.price = price;
         if (size >= 0) this.size = size;
         if (type != null) this.type = type;
-        this.updatedAt = LocalDateTime.now();
+        touch();
+        firePriceChange(oldPrice);
+    }
+
+    // Price change notifications
+    public static void addPriceChangeListener(PriceChangeListener listener) {
+        PRICE_LISTENERS.add(Objects.requireNonNull(listener, "Listener must not be null"));
+    }
+
+    public static void removePriceChangeListener(PriceChangeListener listener) {
+        PRICE_LISTENERS.remove(listener);
+    }
+
+    private void firePriceChange(double oldPrice) {
+        if (oldPrice == price || PRICE_LISTENERS.isEmpty()) {
+            return;
+        }
+        PriceChangeEvent event = new PriceChangeEvent(propertyId, oldPrice, price, updatedAt);
+        for (PriceChangeListener listener : PRICE_LISTENERS) {
+            try {
+                listener.onPriceChange(event);
+            } catch (RuntimeException e) {
+                System.err.println("Price change listener failed: " + e.getMessage());
+            }
+        }
     }
 
     // Derived Statistics
@@ -1,7 +1,10 @@
 package ch.unil.doplab;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.Predicate;
@@ -23,6 +26,42 @@ public class PropertySearchCriteria {
         return property -> matchesLocation(property) && matchesPrice(property) && matchesType(property);
     }
 
+    /**
+     * Listings matching the criteria, in iteration order
+     */
+    public List<Property> filter(Collection<Property> properties) {
+        CriteriaEvaluationEvent event = new CriteriaEvaluationEvent();
+        event.begin();
+        Predicate<Property> predicate = toPredicate();
+        List<Property> matches = new ArrayList<>();
+        for (Property property : properties) {
+            if (predicate.test(property)) {
+                matches.add(property);
+            }
+        }
+        if (event.shouldCommit()) {
+            event.locations = locations.size();
+            event.propertyTypes = propertyTypes.size();
+            event.minPrice = minPrice != null ? minPrice : Double.NaN;
+            event.maxPrice = maxPrice != null ? maxPrice : Double.NaN;
+            event.candidates = properties.size();
+            event.matches = matches.size();
+            event.commit();
+        }
+        return matches;
+    }
+
+    /**
+     * Which filters are set, e.g. "locations=2,types=1,minPrice"
+     */
+    String shape() {
+        StringBuilder shape = new StringBuilder();
+        shape.append("locations=").append(locations.size()).append(",types=").append(propertyTypes.size());
+        if (minPrice != null) shape.append(",minPrice");
+        if (maxPrice != null) shape.append(",maxPrice");
+        return shape.toString();
+    }
+
     private boolean matchesLocation(Property property) {
         return locations.isEmpty() || (property.getLocation() != null && locations.contains(property.getLocation()));
     }
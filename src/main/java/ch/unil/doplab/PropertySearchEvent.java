@@ -0,0 +1,29 @@
+package ch.unil.doplab;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JFR event for {@link User#searchProperties}, criteria filtering plus sorting
+ */
+@Name("ch.unil.doplab.PropertySearch")
+@Label("Property Search")
+@Category({"RealEstateHub", "Search"})
+@Description("A user search over a collection of listings")
+@StackTrace(false)
+@Threshold("100 us")
+class PropertySearchEvent extends jdk.jfr.Event {
+
+    @Label("Candidates")
+    int candidates;
+
+    @Label("Results")
+    int results;
+
+    @Label("Criteria")
+    String criteria;
+}
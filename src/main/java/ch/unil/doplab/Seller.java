@@ -1,17 +1,18 @@
 package ch.unil.doplab;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class Seller extends User {
-    private final List<Property> ownedProperties;
-    private final List<Offer> receivedOffers;
+    // Copy-on-write: getVersion() and the JSON writers iterate these while requests add to them
+    private final CopyOnWriteArrayList<Property> ownedProperties;
+    private final CopyOnWriteArrayList<Offer> receivedOffers;
 
     public Seller(String firstName, String lastName, String email, String username, String password) {
         super(firstName, lastName, email, username, password);
-        this.ownedProperties = new ArrayList<>();
-        this.receivedOffers = new ArrayList<>();
+        this.ownedProperties = new CopyOnWriteArrayList<>();
+        this.receivedOffers = new CopyOnWriteArrayList<>();
     }
 
     public List<Property> getOwnedProperties() { return Collections.unmodifiableList(ownedProperties); }
@@ -21,6 +22,7 @@ public class Seller extends User {
                                    double price, double size, Property.PropertyType type) {
         Property property = new Property(title, this.getUserID(), description, location, price, size, type);
         ownedProperties.add(property);
+        touch();
         return property;
     }
 
@@ -32,8 +34,8 @@ public class Seller extends User {
             throw new IllegalArgumentException("Seller can only publish properties they own");
         }
         
-        if (!ownedProperties.contains(property)) {
-            ownedProperties.add(property);
+        if (ownedProperties.addIfAbsent(property)) {
+            touch();
         }
         property.publish();
     }
@@ -49,12 +51,27 @@ public class Seller extends User {
             throw new IllegalArgumentException("Seller can only respond to offers for their own properties");
         }
         
-        if (!receivedOffers.contains(offer)) {
-            receivedOffers.add(offer);
+        if (receivedOffers.addIfAbsent(offer)) {
+            touch();
         }
         offer.setStatus(accept ? Offer.Status.ACCEPTED : Offer.Status.REJECTED);
     }
 
+    /**
+     * Also covers the owned properties and received offers, which are part of the seller's representation
+     */
+    @Override
+    public long getVersion() {
+        long version = super.getVersion();
+        for (Property property : ownedProperties) {
+            version = Math.max(version, property.getVersion());
+        }
+        for (Offer offer : receivedOffers) {
+            version = Math.max(version, offer.getVersion());
+        }
+        return version;
+    }
+
     @Override
     public String getRole() {
         return "Seller";
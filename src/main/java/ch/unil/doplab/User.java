@@ -1,7 +1,6 @@
 package ch.unil.doplab;
 
 import java.util.*;
-import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public abstract class User {
@@ -15,9 +14,13 @@ public abstract class User {
     private String email;
     
     // Real Estate Specific Data
-    private final List<String> preferredLocations;
-    private final List<String> savedProperties; // List of property IDs
-    private final List<Message> messages;
+    // Published collections are never mutated: writers swap in a changed version
+    // (the saved set shares everything but the changed path with the previous
+    // one), so replaceWith can share them and readers always see a whole snapshot
+    private volatile List<String> preferredLocations;
+    private volatile PersistentUuidSet savedProperties; // property IDs, two longs per entry
+    private volatile Mailbox mailbox; // offsets into the shared MessageLog; replaceWith swaps it
+    private volatile long version; // from CatalogVersion, advanced on every change
 
     public User() {
         this(null, null, null, null, null);
@@ -34,9 +37,10 @@ public abstract class User {
         this.email = email;
         this.username = username;
         this.password = password;
-        this.preferredLocations = new ArrayList<>();
-        this.savedProperties = new ArrayList<>();
-    this.messages = new ArrayList<>();
+        this.preferredLocations = List.of();
+        this.savedProperties = PersistentUuidSet.empty();
+        this.mailbox = new Mailbox(MessageLog.shared(), this);
+        this.version = CatalogVersion.next();
     }
 
     public void replaceWith(User user) {
@@ -49,12 +53,10 @@ public abstract class User {
         this.email = user.email;
         this.username = user.username;
         this.password = user.password;
-        this.preferredLocations.clear();
-        this.preferredLocations.addAll(user.preferredLocations);
-        this.savedProperties.clear();
-        this.savedProperties.addAll(user.savedProperties);
-    this.messages.clear();
-    user.messages.forEach(message -> this.messages.add(new Message(message)));
+        this.preferredLocations = user.preferredLocations;
+        this.savedProperties = user.savedProperties;
+        this.mailbox = user.mailbox.copy(this);
+        touch();
     }
 
     public void mergeWith(User user) {
@@ -80,14 +82,17 @@ public abstract class User {
             this.password = user.password;
         }
         if (!user.preferredLocations.isEmpty()) {
-            this.preferredLocations.addAll(user.preferredLocations);
+            List<String> locations = new ArrayList<>(this.preferredLocations);
+            locations.addAll(user.preferredLocations);
+            this.preferredLocations = Collections.unmodifiableList(locations);
         }
         if (!user.savedProperties.isEmpty()) {
-            this.savedProperties.addAll(user.savedProperties);
+            this.savedProperties = this.savedProperties.addAll(user.savedProperties);
         }
-        if (!user.messages.isEmpty()) {
-            user.messages.forEach(message -> this.messages.add(new Message(message)));
+        if (user.mailbox.size() > 0) {
+            this.mailbox.appendAll(user.mailbox);
         }
+        touch();
         // identity documents and preferences removed in simplified model
     }
 
@@ -95,8 +100,20 @@ public abstract class User {
         return userID;
     }
 
+    /**
+     * Version of this user, including changes to the mailbox
+     */
+    public long getVersion() {
+        return Math.max(version, mailbox.lastChange());
+    }
+
+    protected void touch() {
+        this.version = CatalogVersion.record(getRole().toLowerCase(Locale.ROOT), userID, CatalogVersion.Change.UPDATED);
+    }
+
     public void setUserID(UUID userID) {
         this.userID = userID;
+        touch();
     }
 
     public String getFirstName() {
@@ -105,6 +122,7 @@ public abstract class User {
 
     public void setFirstName(String firstName) {
         this.firstName = firstName;
+        touch();
     }
 
     public String getLastName() {
@@ -113,6 +131,7 @@ public abstract class User {
 
     public void setLastName(String lastName) {
         this.lastName = lastName;
+        touch();
     }
 
     public String getFullName() {
@@ -125,6 +144,7 @@ public abstract class User {
 
     public void setUsername(String username) {
         this.username = username;
+        touch();
     }
 
     public String getPassword() {
@@ -133,6 +153,7 @@ public abstract class User {
 
     public void setPassword(String password) {
         this.password = password;
+        touch();
     }
 
     public String getEmail() {
@@ -141,54 +162,125 @@ public abstract class User {
 
     public void setEmail(String email) {
         this.email = email;
+        touch();
     }
 
     public List<String> getPreferredLocations() {
-        return Collections.unmodifiableList(preferredLocations);
+        return preferredLocations;
     }
 
     public boolean addPreferredLocation(String location) {
         if (location == null || location.isBlank()) {
             throw new IllegalArgumentException("Location must not be blank");
         }
-        return preferredLocations.add(location.trim());
+        List<String> locations = new ArrayList<>(preferredLocations);
+        locations.add(location.trim());
+        preferredLocations = Collections.unmodifiableList(locations);
+        touch();
+        return true;
     }
 
     public boolean removePreferredLocation(String location) {
         if (location == null || location.isBlank()) {
             return false;
         }
-        return preferredLocations.remove(location.trim());
+        List<String> locations = new ArrayList<>(preferredLocations);
+        if (!locations.remove(location.trim())) {
+            return false;
+        }
+        preferredLocations = Collections.unmodifiableList(locations);
+        touch();
+        return true;
     }
 
     public List<String> getSavedProperties() {
-        return Collections.unmodifiableList(savedProperties);
+        PersistentUuidSet saved = savedProperties;
+        List<String> ids = new ArrayList<>(saved.size());
+        saved.forEach(id -> ids.add(id.toString()));
+        return Collections.unmodifiableList(ids);
     }
 
+    public List<UUID> getSavedPropertyIds() {
+        return Collections.unmodifiableList(savedProperties.toList());
+    }
+
+    public int getSavedPropertyCount() {
+        return savedProperties.size();
+    }
+
+    public boolean hasSavedProperty(UUID propertyId) {
+        return savedProperties.contains(propertyId);
+    }
+
+    /**
+     * Save a property; returns false if it was already saved
+     */
     public boolean saveProperty(String propertyId) {
         if (propertyId == null || propertyId.isBlank()) {
             throw new IllegalArgumentException("Property ID must not be blank");
         }
-        return savedProperties.add(propertyId.trim());
+        return savePropertyId(parsePropertyId(propertyId));
+    }
+
+    public boolean savePropertyId(UUID propertyId) {
+        if (propertyId == null) {
+            throw new IllegalArgumentException("Property ID must not be blank");
+        }
+        PersistentUuidSet current = savedProperties;
+        PersistentUuidSet saved = current.add(propertyId);
+        if (saved == current) {
+            return false;
+        }
+        savedProperties = saved;
+        touch();
+        return true;
     }
 
     public boolean removeSavedProperty(String propertyId) {
         if (propertyId == null || propertyId.isBlank()) {
             return false;
         }
-        return savedProperties.remove(propertyId.trim());
+        try {
+            return removeSavedPropertyId(UUID.fromString(propertyId.trim()));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    public boolean removeSavedPropertyId(UUID propertyId) {
+        PersistentUuidSet current = savedProperties;
+        PersistentUuidSet saved = current.remove(propertyId);
+        if (saved == current) {
+            return false;
+        }
+        savedProperties = saved;
+        touch();
+        return true;
+    }
+
+    private static UUID parsePropertyId(String propertyId) {
+        try {
+            return UUID.fromString(propertyId.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Property ID must be a UUID: " + propertyId);
+        }
     }
 
     public List<Property> searchProperties(Collection<Property> availableProperties, PropertySearchCriteria criteria) {
         Objects.requireNonNull(availableProperties, "Available properties must not be null");
-        Predicate<Property> predicate = property -> true;
-        if (criteria != null) {
-            predicate = predicate.and(criteria.toPredicate());
+        PropertySearchEvent event = new PropertySearchEvent();
+        event.begin();
+        List<Property> results = criteria != null
+                ? criteria.filter(availableProperties)
+                : new ArrayList<>(availableProperties);
+        results.sort(Comparator.comparing(Property::getPrice));
+        if (event.shouldCommit()) {
+            event.candidates = availableProperties.size();
+            event.results = results.size();
+            event.criteria = criteria != null ? criteria.shape() : "none";
+            event.commit();
         }
-        return availableProperties.stream()
-                .filter(predicate)
-                .sorted(Comparator.comparing(Property::getPrice))
-                .collect(Collectors.toList());
+        return results;
     }
 
     public List<Property> displayAvailableProperties(Collection<Property> availableProperties) {
@@ -200,30 +292,87 @@ public abstract class User {
     }
 
     public Message sendMessage(User recipient, String subject, String content) {
+        return sendMessage(recipient, subject, content, null, null);
+    }
+
+    /**
+     * Send a message in the conversation about a property and/or offer (both optional)
+     */
+    public Message sendMessage(User recipient, String subject, String content, UUID propertyId, UUID offerId) {
         Objects.requireNonNull(recipient, "Recipient must not be null");
-        Message outbound = Message.outbound(this.userID, recipient.userID, subject, content);
-        this.messages.add(outbound);
-        recipient.receiveMessage(Message.inbound(this.userID, recipient.userID, subject, content));
-        return outbound;
+        Message message = new Message(this.userID, recipient.userID, subject, content, propertyId, offerId);
+        int offset = MessageLog.shared().append(message);
+        this.mailbox.add(offset, true);
+        touch();
+        recipient.receiveMessage(message, offset);
+        return message;
     }
 
-    private void receiveMessage(Message message) {
-        this.messages.add(message);
+    private void receiveMessage(Message message, int offset) {
+        int slot = this.mailbox.add(offset, false);
+        message.deliveredTo(this.mailbox, slot);
+        touch();
     }
 
     public List<Message> getMessages() {
-        return Collections.unmodifiableList(messages);
+        return mailbox.view();
     }
 
     public List<Message> getMessages(Message.MessageDirection direction) {
         Objects.requireNonNull(direction, "Direction must not be null");
-        List<Message> filtered = messages.stream()
-                .filter(message -> message.getDirection() == direction)
-                .map(Message::new)
-                .collect(Collectors.toList());
+        boolean wantSent = direction == Message.MessageDirection.SENT;
+        Mailbox current = this.mailbox;
+        List<Message> filtered = new ArrayList<>();
+        for (int slot = 0, size = current.size(); slot < size; slot++) {
+            if (current.isSent(slot) == wantSent) {
+                filtered.add(current.get(slot));
+            }
+        }
         return Collections.unmodifiableList(filtered);
     }
 
+    /**
+     * Read state of the index-th message of {@link #getMessages()} as this user
+     * sees it; messages the user sent are always read
+     */
+    public boolean isMessageRead(int index) {
+        return mailbox.isRead(index);
+    }
+
+    public int getUnreadCount() {
+        return mailbox.unreadCount();
+    }
+
+    public MessagePage getInboxPage(Integer cursor, int limit) {
+        return mailbox.inboxPage(cursor, limit);
+    }
+
+    public List<ConversationSummary> getConversations(Integer cursor, int limit) {
+        return mailbox.conversations(cursor, limit);
+    }
+
+    public MessagePage getConversationPage(UUID conversationId, Integer cursor, int limit) {
+        Objects.requireNonNull(conversationId, "Conversation ID must not be null");
+        return mailbox.conversationPage(conversationId, cursor, limit);
+    }
+
+    public int markAllMessagesAsRead() {
+        int marked = mailbox.markAllRead();
+        if (marked > 0) {
+            touch();
+        }
+        return marked;
+    }
+
+    public int markMessagesAsRead(Collection<UUID> messageIds) {
+        Objects.requireNonNull(messageIds, "Message IDs must not be null");
+        int marked = mailbox.markRead(messageIds);
+        if (marked > 0) {
+            touch();
+        }
+        return marked;
+    }
+
     public void updateProfile(String firstName, String lastName, String email) {
         if (firstName != null && !firstName.isBlank()) {
             this.firstName = firstName;
@@ -234,6 +383,7 @@ public abstract class User {
         if (email != null && !email.isBlank()) {
             this.email = email;
         }
+        touch();
     }
 
     public void changePassword(String currentPassword, String newPassword) {
@@ -244,6 +394,7 @@ public abstract class User {
             throw new IllegalArgumentException("New password must not be blank");
         }
         this.password = newPassword;
+        touch();
     }
 
     public String describe() {
@@ -253,7 +404,7 @@ public abstract class User {
                 ", username='" + this.username + "'" +
                 ", email='" + this.email + "'" +
                 ", preferredLocations=" + preferredLocations +
-        ", savedProperties=" + savedProperties;
+        ", savedProperties=" + getSavedProperties();
     }
 
     @Override
@@ -0,0 +1,165 @@
+package ch.unil.doplab;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Insertion-ordered set of UUIDs stored as raw longs (two per entry).
+ * Entries live densely in one long array and an open-addressing table of
+ * entry indexes gives O(1) add, remove and contains without boxing.
+ * Removing an entry moves the last entry into its place.
+ * Not thread-safe; callers sharing an instance must synchronize on it or
+ * treat it as immutable once published and modify a {@link #copy()}.
+ */
+public final class UuidSet {
+
+    private long[] bits;   // entry i -> bits[2i] = most significant, bits[2i + 1] = least significant
+    private int size;
+    private int[] table;   // entry index + 1, 0 marks an empty bucket
+
+    public UuidSet() {
+        this.bits = new long[8];
+        this.table = new int[8];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(UUID id) {
+        return id != null && bucketOf(id.getMostSignificantBits(), id.getLeastSignificantBits()) >= 0;
+    }
+
+    public boolean add(UUID id) {
+        if (id == null) throw new IllegalArgumentException("ID must not be null");
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        if (bucketOf(msb, lsb) >= 0) return false;
+        if ((size + 1) * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        if (2 * size + 2 > bits.length) {
+            bits = Arrays.copyOf(bits, bits.length * 2);
+        }
+        bits[2 * size] = msb;
+        bits[2 * size + 1] = lsb;
+        insert(size, msb, lsb);
+        size++;
+        return true;
+    }
+
+    public boolean remove(UUID id) {
+        if (id == null) return false;
+        int bucket = bucketOf(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        if (bucket < 0) return false;
+        int index = table[bucket] - 1;
+        deleteBucket(bucket);
+        int last = size - 1;
+        if (index != last) {
+            // Move the last entry into the hole and repoint its bucket
+            int lastBucket = bucketOf(bits[2 * last], bits[2 * last + 1]);
+            bits[2 * index] = bits[2 * last];
+            bits[2 * index + 1] = bits[2 * last + 1];
+            table[lastBucket] = index + 1;
+        }
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0);
+        size = 0;
+    }
+
+    public UUID get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " outside set of size " + size);
+        }
+        return new UUID(bits[2 * index], bits[2 * index + 1]);
+    }
+
+    public void forEach(Consumer<UUID> action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(new UUID(bits[2 * i], bits[2 * i + 1]));
+        }
+    }
+
+    public void addAll(UuidSet other) {
+        for (int i = 0; i < other.size; i++) {
+            add(new UUID(other.bits[2 * i], other.bits[2 * i + 1]));
+        }
+    }
+
+    public UuidSet copy() {
+        UuidSet copy = new UuidSet();
+        copy.bits = Arrays.copyOf(bits, Math.max(8, 2 * size));
+        copy.table = table.clone();
+        copy.size = size;
+        return copy;
+    }
+
+    public List<UUID> toList() {
+        List<UUID> list = new ArrayList<>(size);
+        forEach(list::add);
+        return list;
+    }
+
+    private static int hash(long msb, long lsb) {
+        long h = msb ^ lsb;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    private int bucketOf(long msb, long lsb) {
+        int mask = table.length - 1;
+        for (int b = hash(msb, lsb) & mask; ; b = (b + 1) & mask) {
+            int slot = table[b];
+            if (slot == 0) return -1;
+            int i = slot - 1;
+            if (bits[2 * i] == msb && bits[2 * i + 1] == lsb) return b;
+        }
+    }
+
+    private void insert(int index, long msb, long lsb) {
+        int mask = table.length - 1;
+        int b = hash(msb, lsb) & mask;
+        while (table[b] != 0) {
+            b = (b + 1) & mask;
+        }
+        table[b] = index + 1;
+    }
+
+    /**
+     * Linear-probing delete: shift later entries of the cluster back into the gap
+     */
+    private void deleteBucket(int bucket) {
+        int mask = table.length - 1;
+        int gap = bucket;
+        for (int b = (gap + 1) & mask; table[b] != 0; b = (b + 1) & mask) {
+            int i = table[b] - 1;
+            int home = hash(bits[2 * i], bits[2 * i + 1]) & mask;
+            // Move the entry if its home is not strictly between the gap and its current bucket
+            if (((b - home) & mask) >= ((b - gap) & mask)) {
+                table[gap] = table[b];
+                gap = b;
+            }
+        }
+        table[gap] = 0;
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        for (int i = 0; i < size; i++) {
+            insert(i, bits[2 * i], bits[2 * i + 1]);
+        }
+    }
+}
@@ -200,4 +200,36 @@ class BuyerSellerIntegrationTest {
         assertEquals(buyer.getUserID(), offer.getBuyerId());
         assertEquals(seller.getUserID(), property.getOwnerId());
     }
+
+    @Test
+    void testSellerVersionCanBeReadWhileListingsAreAdded() throws InterruptedException {
+        int listings = 2000;
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < listings; i++) {
+                seller.createProperty("Listing " + i, "", "Zurich", 1000, 10, Property.PropertyType.STUDIO);
+            }
+        });
+        writer.start();
+
+        long last = 0;
+        while (writer.isAlive()) {
+            long version = seller.getVersion();
+            assertTrue(version >= last);
+            last = version;
+        }
+        writer.join();
+
+        assertEquals(listings, seller.getOwnedProperties().size());
+        assertTrue(seller.getVersion() >= seller.getOwnedProperties().get(listings - 1).getVersion());
+    }
+
+    @Test
+    void testRepublishingDoesNotDuplicateTheListing() {
+        seller.publishProperty(property);
+        long version = seller.getVersion();
+        seller.publishProperty(property);
+
+        assertEquals(1, seller.getOwnedProperties().size());
+        assertTrue(seller.getVersion() >= version);
+    }
 }
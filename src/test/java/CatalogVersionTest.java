@@ -0,0 +1,99 @@
+import ch.unil.doplab.Buyer;
+import ch.unil.doplab.CatalogVersion;
+import ch.unil.doplab.Property;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the CatalogVersion class.
+ * Tests that recorded changes reach the listeners with their version, in order.
+ */
+class CatalogVersionTest {
+
+    private record Recorded(long version, String entity, UUID id, CatalogVersion.Change change) {}
+
+    private final List<Recorded> recorded = new ArrayList<>();
+    private final CatalogVersion.ChangeListener listener =
+            (version, entity, id, change) -> recorded.add(new Recorded(version, entity, id, change));
+
+    @AfterEach
+    void tearDown() {
+        CatalogVersion.removeListener(listener);
+    }
+
+    @Test
+    void testEntityUpdatesAreRecordedInVersionOrder() {
+        Property property = new Property("Loft", null, "Open space", "Lausanne", 400000, 70, Property.PropertyType.LOFT);
+        Buyer buyer = new Buyer("Ada", "Byron", "ada@test.com", "ada", "pw", 500000);
+        CatalogVersion.addListener(listener);
+
+        property.setPrice(390000);
+        buyer.setBudget(450000);
+
+        assertEquals(2, recorded.size());
+        assertEquals(new Recorded(property.getVersion(), "property", property.getPropertyId(), CatalogVersion.Change.UPDATED),
+                recorded.get(0));
+        assertEquals(new Recorded(buyer.getVersion(), "buyer", buyer.getUserID(), CatalogVersion.Change.UPDATED),
+                recorded.get(1));
+        assertTrue(recorded.get(0).version() < recorded.get(1).version());
+        assertEquals(recorded.get(1).version(), CatalogVersion.current());
+    }
+
+    @Test
+    void testBatchSharesOneVersion() {
+        CatalogVersion.addListener(listener);
+        List<UUID> ids = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+
+        long version = CatalogVersion.record("property", ids, CatalogVersion.Change.CREATED);
+
+        assertEquals(3, recorded.size());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(version, recorded.get(i).version());
+            assertEquals(ids.get(i), recorded.get(i).id());
+        }
+    }
+
+    @Test
+    void testDeclinedChangesAdvanceTheClockWithoutReachingTheListener() {
+        UUID published = UUID.randomUUID();
+        List<Recorded> accepted = new ArrayList<>();
+        CatalogVersion.ChangeListener selective = new CatalogVersion.ChangeListener() {
+            @Override
+            public void onChange(long version, String entity, UUID id, CatalogVersion.Change change) {
+                accepted.add(new Recorded(version, entity, id, change));
+            }
+
+            @Override
+            public boolean accepts(String entity, UUID id, CatalogVersion.Change change) {
+                return id.equals(published);
+            }
+        };
+        CatalogVersion.addListener(selective);
+        try {
+            long before = CatalogVersion.current();
+            long skipped = CatalogVersion.record("property", UUID.randomUUID(), CatalogVersion.Change.UPDATED);
+            long logged = CatalogVersion.record("property", published, CatalogVersion.Change.UPDATED);
+
+            assertTrue(skipped > before);
+            assertTrue(logged > skipped);
+            assertEquals(List.of(new Recorded(logged, "property", published, CatalogVersion.Change.UPDATED)), accepted);
+        } finally {
+            CatalogVersion.removeListener(selective);
+        }
+    }
+
+    @Test
+    void testNoListenerStillAdvancesTheClock() {
+        long before = CatalogVersion.current();
+        long version = CatalogVersion.record("offer", UUID.randomUUID(), CatalogVersion.Change.DELETED);
+
+        assertTrue(version > before);
+        assertTrue(recorded.isEmpty());
+    }
+}
@@ -1,3 +1,4 @@
+import ch.unil.doplab.CatalogVersion;
 import ch.unil.doplab.Offer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -220,4 +221,13 @@ class OfferTest {
         assertEquals(buyerId, offer.getBuyerId());
         assertEquals(buyer2Id, offer2.getBuyerId());
     }
+
+    @Test
+    void testVersionAdvancesOnStatusChange() {
+        long created = offer.getVersion();
+        offer.setStatus(Offer.Status.ACCEPTED);
+
+        assertTrue(offer.getVersion() > created);
+        assertTrue(CatalogVersion.current() >= offer.getVersion());
+    }
 }
@@ -0,0 +1,74 @@
+import ch.unil.doplab.PersistentIntVector;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the PersistentIntVector class.
+ * Tests append/set against an ArrayList reference and that older versions stay intact.
+ */
+class PersistentIntVectorTest {
+
+    @Test
+    void testAppendAndGetAcrossTreeLevels() {
+        PersistentIntVector vector = PersistentIntVector.empty();
+        int count = 40_000; // deeper than two trie levels
+        for (int i = 0; i < count; i++) {
+            vector = vector.append(i * 3);
+        }
+
+        assertEquals(count, vector.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i * 3, vector.get(i));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> PersistentIntVector.empty().get(0));
+    }
+
+    @Test
+    void testOlderVersionsAreUnchanged() {
+        PersistentIntVector before = PersistentIntVector.empty();
+        for (int i = 0; i < 100; i++) {
+            before = before.append(i);
+        }
+
+        PersistentIntVector after = before.set(5, -1).set(99, -2).append(100);
+
+        assertEquals(100, before.size());
+        assertEquals(5, before.get(5));
+        assertEquals(99, before.get(99));
+        assertEquals(101, after.size());
+        assertEquals(-1, after.get(5));
+        assertEquals(-2, after.get(99));
+        assertEquals(100, after.get(100));
+    }
+
+    @Test
+    void testRandomSetsMatchReference() {
+        Random random = new Random(42);
+        List<Integer> reference = new ArrayList<>();
+        PersistentIntVector vector = PersistentIntVector.empty();
+        for (int step = 0; step < 20_000; step++) {
+            if (reference.isEmpty() || random.nextInt(3) > 0) {
+                int value = random.nextInt();
+                reference.add(value);
+                vector = vector.append(value);
+            } else {
+                int index = random.nextInt(reference.size());
+                int value = random.nextInt();
+                reference.set(index, value);
+                vector = vector.set(index, value);
+            }
+        }
+
+        int[] values = vector.toArray();
+        assertEquals(reference.size(), values.length);
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(reference.get(i), values[i]);
+            assertEquals(reference.get(i), vector.get(i));
+        }
+    }
+}
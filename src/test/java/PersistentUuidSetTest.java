@@ -0,0 +1,128 @@
+import ch.unil.doplab.PersistentUuidSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the PersistentUuidSet class.
+ * Tests add/remove against a HashSet reference, hash collisions and that older versions stay intact.
+ */
+class PersistentUuidSetTest {
+
+    @Test
+    void testAddContainsRemove() {
+        UUID id = UUID.randomUUID();
+        PersistentUuidSet set = PersistentUuidSet.empty().add(id);
+
+        assertEquals(1, set.size());
+        assertTrue(set.contains(id));
+        assertSame(set, set.add(id));
+        assertSame(set, set.remove(UUID.randomUUID()));
+        assertFalse(set.contains(null));
+        assertTrue(set.remove(id).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> set.add(null));
+    }
+
+    @Test
+    void testOlderVersionsAreUnchanged() {
+        List<UUID> ids = new ArrayList<>();
+        PersistentUuidSet before = PersistentUuidSet.empty();
+        for (int i = 0; i < 1000; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            before = before.add(id);
+        }
+
+        UUID added = UUID.randomUUID();
+        PersistentUuidSet after = before.remove(ids.get(0)).remove(ids.get(500)).add(added);
+
+        assertEquals(1000, before.size());
+        assertTrue(before.contains(ids.get(0)));
+        assertTrue(before.contains(ids.get(500)));
+        assertFalse(before.contains(added));
+        assertEquals(999, after.size());
+        assertFalse(after.contains(ids.get(0)));
+        assertFalse(after.contains(ids.get(500)));
+        assertTrue(after.contains(added));
+        assertTrue(after.contains(ids.get(999)));
+    }
+
+    @Test
+    void testRandomOperationsMatchReference() {
+        Random random = new Random(42);
+        List<UUID> pool = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            pool.add(new UUID(random.nextLong(), random.nextLong()));
+        }
+        Set<UUID> reference = new HashSet<>();
+        PersistentUuidSet set = PersistentUuidSet.empty();
+        for (int step = 0; step < 50_000; step++) {
+            UUID id = pool.get(random.nextInt(pool.size()));
+            if (random.nextInt(3) > 0) {
+                assertEquals(reference.add(id), set.add(id) != set);
+                set = set.add(id);
+            } else {
+                assertEquals(reference.remove(id), set.remove(id) != set);
+                set = set.remove(id);
+            }
+            assertEquals(reference.size(), set.size());
+        }
+        for (UUID id : pool) {
+            assertEquals(reference.contains(id), set.contains(id));
+        }
+        assertEquals(reference, new HashSet<>(set.toList()));
+    }
+
+    @Test
+    void testEntriesWithTheSameHashAreKeptApart() {
+        // The hash mixes msb ^ lsb, so flipping the same bits in both halves collides
+        PersistentUuidSet set = PersistentUuidSet.empty();
+        List<UUID> colliding = new ArrayList<>();
+        for (long flip = 0; flip < 5; flip++) {
+            UUID id = new UUID(0x1234L ^ (flip << 40), 0x5678L ^ (flip << 40));
+            colliding.add(id);
+            set = set.add(id);
+        }
+        UUID neighbour = new UUID(0x1234L, 0x5679L);
+        set = set.add(neighbour);
+
+        assertEquals(6, set.size());
+        for (UUID id : colliding) {
+            assertTrue(set.contains(id));
+        }
+        PersistentUuidSet fewer = set.remove(colliding.get(2)).remove(colliding.get(0));
+        assertEquals(4, fewer.size());
+        assertFalse(fewer.contains(colliding.get(2)));
+        assertTrue(fewer.contains(colliding.get(4)));
+        assertTrue(fewer.contains(neighbour));
+
+        PersistentUuidSet last = fewer;
+        for (UUID id : colliding) {
+            last = last.remove(id);
+        }
+        assertEquals(1, last.size());
+        assertEquals(List.of(neighbour), last.toList());
+    }
+
+    @Test
+    void testAddAllKeepsBothSides() {
+        UUID shared = UUID.randomUUID();
+        PersistentUuidSet small = PersistentUuidSet.empty().add(shared).add(UUID.randomUUID());
+        PersistentUuidSet large = PersistentUuidSet.empty().add(shared);
+        for (int i = 0; i < 100; i++) {
+            large = large.add(UUID.randomUUID());
+        }
+
+        assertEquals(102, small.addAll(large).size());
+        assertEquals(102, large.addAll(small).size());
+        assertEquals(2, small.size());
+        assertSame(large, large.addAll(PersistentUuidSet.empty()));
+    }
+}
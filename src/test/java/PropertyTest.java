@@ -1,7 +1,11 @@
+import ch.unil.doplab.PriceChangeEvent;
+import ch.unil.doplab.PriceChangeListener;
 import ch.unil.doplab.Property;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -123,6 +127,30 @@ class PropertyTest {
         assertEquals(originalPrice, property.getPrice());
     }
 
+    @Test
+    void testPriceChangesNotifyListeners() {
+        List<PriceChangeEvent> events = new ArrayList<>();
+        PriceChangeListener listener = events::add;
+        Property.addPriceChangeListener(listener);
+        try {
+            property.setPrice(800000);
+            property.updatePropertyDetails(null, null, null, 800000, -1, null); // unchanged
+            property.updatePropertyDetails(null, null, null, 880000, -1, null);
+        } finally {
+            Property.removePriceChangeListener(listener);
+        }
+
+        assertEquals(2, events.size());
+        PriceChangeEvent drop = events.get(0);
+        assertEquals(property.getPropertyId(), drop.getPropertyId());
+        assertTrue(drop.isDrop());
+        assertEquals(850000, drop.getOldPrice());
+        assertEquals(800000, drop.getNewPrice());
+        assertEquals(50000 * 100.0 / 850000, drop.getDropPercent(), 1e-9);
+        assertFalse(events.get(1).isDrop());
+        assertEquals(0.0, events.get(1).getDropPercent());
+    }
+
     @Test
     void testAddAndRemoveFeatures() {
         assertTrue(property.getFeatures().isEmpty());
@@ -292,4 +320,15 @@ class PropertyTest {
         assertThrows(UnsupportedOperationException.class,
                 () -> images.add("image2.jpg"));
     }
+
+    @Test
+    void testCreatedVersionStaysWhileVersionAdvances() {
+        long created = property.getCreatedVersion();
+        assertEquals(created, property.getVersion());
+
+        property.setPrice(property.getPrice() + 1000);
+
+        assertEquals(created, property.getCreatedVersion());
+        assertTrue(property.getVersion() > created);
+    }
 }
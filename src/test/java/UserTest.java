@@ -1,6 +1,9 @@
 import ch.unil.doplab.User;
+import ch.unil.doplab.ConversationSummary;
 import ch.unil.doplab.Message;
+import ch.unil.doplab.MessagePage;
 import ch.unil.doplab.Buyer;
+import ch.unil.doplab.CatalogVersion;
 import ch.unil.doplab.Seller;
 import ch.unil.doplab.Property;
 import ch.unil.doplab.PropertySearchCriteria;
@@ -9,6 +12,7 @@ import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -55,17 +59,30 @@ class UserTest {
 
     @Test
     void testSaveAndRemoveSavedProperty() {
-        assertTrue(user.saveProperty("PROP123"));
+        String propertyId = UUID.randomUUID().toString();
+        assertTrue(user.saveProperty(propertyId));
         assertEquals(1, user.getSavedProperties().size());
-        assertTrue(user.getSavedProperties().contains("PROP123"));
+        assertTrue(user.getSavedProperties().contains(propertyId));
 
-        assertTrue(user.removeSavedProperty("PROP123"));
+        assertTrue(user.removeSavedProperty(propertyId));
         assertTrue(user.getSavedProperties().isEmpty());
 
         assertFalse(user.removeSavedProperty("")); // Invalid input
         assertThrows(IllegalArgumentException.class, () -> user.saveProperty(null));
     }
 
+    @Test
+    void testSavedPropertiesAreDeduplicatedUuids() {
+        UUID propertyId = UUID.randomUUID();
+        assertTrue(user.saveProperty(" " + propertyId + " "));
+        assertFalse(user.savePropertyId(propertyId));
+        assertEquals(1, user.getSavedPropertyCount());
+        assertTrue(user.hasSavedProperty(propertyId));
+
+        assertThrows(IllegalArgumentException.class, () -> user.saveProperty("PROP123"));
+        assertFalse(user.removeSavedProperty("PROP123"));
+    }
+
     @Test
     void testSendAndReceiveMessage() {
         User recipient = new Buyer("Jane", "Doe", "jane.doe@example.com", "janedoe", "pass123", 600000.0);
@@ -83,6 +100,229 @@ class UserTest {
         assertEquals(content, recipient.getMessages().get(0).getContent());
     }
 
+    @Test
+    void testMessageIsSharedBetweenSenderAndRecipient() {
+        User recipient = new Buyer("Jane", "Doe", "jane.doe@example.com", "janedoe", "pass123", 600000.0);
+
+        Message sent = user.sendMessage(recipient, "Viewing", "Tomorrow?");
+
+        assertSame(sent, user.getMessages().get(0));
+        assertSame(sent, recipient.getMessages().get(0));
+        assertEquals(Message.MessageDirection.SENT, sent.getDirectionFor(user.getUserID()));
+        assertEquals(Message.MessageDirection.RECEIVED, sent.getDirectionFor(recipient.getUserID()));
+        assertEquals(1, user.getMessages(Message.MessageDirection.SENT).size());
+        assertTrue(user.getMessages(Message.MessageDirection.RECEIVED).isEmpty());
+        assertEquals(1, recipient.getMessages(Message.MessageDirection.RECEIVED).size());
+    }
+
+    @Test
+    void testMarkAsReadUpdatesRecipientState() {
+        User recipient = new Buyer("Jane", "Doe", "jane.doe@example.com", "janedoe", "pass123", 600000.0);
+
+        Message sent = user.sendMessage(recipient, "Offer", "Please review my offer.");
+        assertFalse(recipient.getMessages().get(0).isRead());
+
+        sent.markAsRead();
+
+        assertTrue(recipient.getMessages().get(0).isRead());
+    }
+
+    @Test
+    void testInboxPagesNewestFirstWithUnreadCount() {
+        User sender = new Buyer("Jane", "Doe", "jane.doe@example.com", "janedoe", "pass123", 600000.0);
+        for (int i = 0; i < 5; i++) {
+            sender.sendMessage(user, "Subject " + i, "Content " + i);
+        }
+        user.sendMessage(sender, "Reply", "Not part of the inbox");
+
+        MessagePage first = user.getInboxPage(null, 2);
+        assertEquals(List.of("Subject 4", "Subject 3"),
+                first.getMessages().stream().map(Message::getSubject).toList());
+        assertEquals(5, first.getUnreadCount());
+
+        MessagePage second = user.getInboxPage(first.getNextCursor(), 2);
+        assertEquals("Subject 2", second.getMessages().get(0).getSubject());
+
+        MessagePage last = user.getInboxPage(second.getNextCursor(), 2);
+        assertEquals(1, last.getMessages().size());
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void testUnreadCountFollowsMarkAsRead() {
+        User sender = new Buyer("Jane", "Doe", "jane.doe@example.com", "janedoe", "pass123", 600000.0);
+        Message first = sender.sendMessage(user, "One", "1");
+        Message second = sender.sendMessage(user, "Two", "2");
+        sender.sendMessage(user, "Three", "3");
+        assertEquals(3, user.getUnreadCount());
+
+        first.markAsRead();
+        first.markAsRead();
+        assertEquals(2, user.getUnreadCount());
+
+        assertEquals(1, user.markMessagesAsRead(List.of(second.getMessageId(), first.getMessageId())));
+        assertEquals(1, user.getUnreadCount());
+
+        assertEquals(1, user.markAllMessagesAsRead());
+        assertEquals(0, user.getUnreadCount());
+        assertEquals(0, sender.getUnreadCount());
+    }
+
+    @Test
+    void testConversationsAreThreadedAndOrderedByActivity() {
+        User seller = new Seller("Jane", "Doe", "jane.doe@example.com", "janedoe", "pass123");
+        UUID propertyId = UUID.randomUUID();
+
+        Message question = user.sendMessage(seller, "Flat", "Is it still available?", propertyId, null);
+        seller.sendMessage(user, "General", "Welcome to the platform");
+        Message answer = seller.sendMessage(user, "Re: Flat", "Yes it is", propertyId, null);
+
+        assertEquals(question.getConversationId(), answer.getConversationId());
+
+        List<ConversationSummary> threads = user.getConversations(null, 10);
+        assertEquals(2, threads.size());
+        assertEquals(question.getConversationId(), threads.get(0).getConversationId());
+        assertEquals(propertyId, threads.get(0).getPropertyId());
+        assertSame(answer, threads.get(0).getLatestMessage());
+        assertEquals(2, threads.get(0).getMessageCount());
+        assertEquals(1, threads.get(0).getUnreadCount());
+
+        List<ConversationSummary> older = user.getConversations(threads.get(0).getActivity(), 10);
+        assertEquals(1, older.size());
+        assertEquals(1, older.get(0).getUnreadCount());
+
+        answer.markAsRead();
+        MessagePage thread = user.getConversationPage(question.getConversationId(), null, 10);
+        assertEquals(List.of(answer, question), thread.getMessages());
+        assertEquals(0, thread.getUnreadCount());
+    }
+
+    @Test
+    void testMergeWithAppendsMessagesWithoutCopying() {
+        User recipient = new Buyer("Jane", "Doe", "jane.doe@example.com", "janedoe", "pass123", 600000.0);
+        Message sent = user.sendMessage(recipient, "Hello", "Hi Jane");
+
+        User merged = new Buyer("Other", "User", "other@example.com", "other", "pass123", 100000.0);
+        merged.mergeWith(user);
+
+        assertEquals(1, merged.getMessages().size());
+        assertSame(sent, merged.getMessages().get(0));
+    }
+
+    @Test
+    void testReplaceWithSharesSnapshotsButStaysIndependent() {
+        User source = new Buyer("Jane", "Doe", "jane.doe@example.com", "janedoe", "pass123", 600000.0);
+        source.addPreferredLocation("Geneva");
+        UUID propertyId = UUID.randomUUID();
+        source.savePropertyId(propertyId);
+        Message received = user.sendMessage(source, "Hello", "Hi Jane");
+
+        List<String> locationsBefore = user.getPreferredLocations();
+        List<Message> messagesBefore = source.getMessages();
+        user.replaceWith(source);
+
+        assertTrue(locationsBefore.isEmpty());
+        assertEquals(List.of("Geneva"), user.getPreferredLocations());
+        assertTrue(user.hasSavedProperty(propertyId));
+        assertSame(received, user.getMessages().get(0));
+
+        source.addPreferredLocation("Basel");
+        source.removeSavedPropertyId(propertyId);
+        user.sendMessage(source, "Again", "Still there?");
+        assertEquals(List.of("Geneva"), user.getPreferredLocations());
+        assertTrue(user.hasSavedProperty(propertyId));
+        assertEquals(2, user.getMessages().size());
+        assertEquals(1, messagesBefore.size());
+        assertEquals(2, source.getMessages().size());
+
+        assertEquals(1, user.markAllMessagesAsRead());
+        assertEquals(0, user.getUnreadCount());
+        assertEquals(2, source.getUnreadCount());
+    }
+
+    @Test
+    void testMessageReadStateIsPerParticipant() {
+        User recipient = new Buyer("Jane", "Doe", "jane.doe@example.com", "janedoe", "pass123", 600000.0);
+        Message sent = user.sendMessage(recipient, "Hello", "Hi Jane");
+
+        assertTrue(user.isMessageRead(0));
+        assertFalse(recipient.isMessageRead(0));
+        long senderVersion = user.getVersion();
+
+        sent.markAsRead();
+        assertTrue(recipient.isMessageRead(0));
+        assertTrue(user.isMessageRead(0));
+        assertEquals(senderVersion, user.getVersion());
+    }
+
+    @Test
+    void testMarkAsReadAfterReplaceWithUpdatesTheReplacingUser() {
+        User source = new Buyer("Jane", "Doe", "jane.doe@example.com", "janedoe", "pass123", 600000.0);
+        User replaced = new Buyer("Other", "User", "other@example.com", "other", "pass123", 100000.0);
+        Message received = user.sendMessage(source, "Hello", "Hi Jane");
+
+        replaced.replaceWith(source);
+        assertEquals(1, replaced.getUnreadCount());
+        assertFalse(received.isRead());
+
+        received.markAsRead();
+        assertTrue(received.isRead());
+        assertEquals(0, replaced.getUnreadCount());
+        assertEquals(0, replaced.getInboxPage(null, 10).getUnreadCount());
+    }
+
+    @Test
+    void testMarkAsReadAfterMergeWithUpdatesTheMergingUser() {
+        User source = new Buyer("Jane", "Doe", "jane.doe@example.com", "janedoe", "pass123", 600000.0);
+        User merged = new Buyer("Other", "User", "other@example.com", "other", "pass123", 100000.0);
+        user.sendMessage(merged, "Earlier", "Already here");
+        Message received = user.sendMessage(source, "Hello", "Hi Jane");
+
+        merged.mergeWith(source);
+        assertEquals(2, merged.getUnreadCount());
+
+        received.markAsRead();
+        assertTrue(received.isRead());
+        assertEquals(1, merged.getUnreadCount());
+        assertEquals(1, merged.getConversationPage(received.getConversationId(), null, 10).getMessages().size());
+        assertEquals(0, merged.getConversationPage(received.getConversationId(), null, 10).getUnreadCount());
+    }
+
+    @Test
+    void testVersionCoversProfileAndMailboxChanges() {
+        User recipient = new Buyer("Jane", "Doe", "jane.doe@example.com", "janedoe", "pass123", 600000.0);
+        long initial = user.getVersion();
+
+        user.updateProfile("Johnny", null, null);
+        long afterProfile = user.getVersion();
+        assertTrue(afterProfile > initial);
+
+        long recipientBefore = recipient.getVersion();
+        Message sent = user.sendMessage(recipient, "Hello", "Hi");
+        assertTrue(user.getVersion() > afterProfile);
+        long afterReceive = recipient.getVersion();
+        assertTrue(afterReceive > recipientBefore);
+
+        sent.markAsRead();
+        assertTrue(recipient.getVersion() > afterReceive);
+    }
+
+    @Test
+    void testMarkAsReadIsReportedAsAChangeOfTheRecipient() {
+        User recipient = new Buyer("Jane", "Doe", "jane.doe@example.com", "janedoe", "pass123", 600000.0);
+        Message sent = user.sendMessage(recipient, "Hello", "Hi");
+        List<UUID> changed = new ArrayList<>();
+        CatalogVersion.ChangeListener listener = (version, entity, id, change) -> changed.add(id);
+        CatalogVersion.addListener(listener);
+        try {
+            sent.markAsRead();
+            sent.markAsRead();
+        } finally {
+            CatalogVersion.removeListener(listener);
+        }
+        assertEquals(List.of(recipient.getUserID()), changed);
+    }
+
     @Test
     void testUpdateProfile() {
         user.updateProfile("Johnny", "Doe", "johnny.doe@example.com");
@@ -0,0 +1,76 @@
+import ch.unil.doplab.PersistentUuidSet;
+import ch.unil.doplab.UuidSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Memory footprint of the saved-properties representations: the former
+ * List of UUID strings, the UuidSet behind the saved-by index and the
+ * PersistentUuidSet held by each user.
+ * Not part of the regular test run; start it with
+ * mvn test -Dtest=UuidSetMemoryBenchmark -Dbenchmark=true
+ * or run main from the test classpath. Reports the retained heap per entry,
+ * measured as the heap delta after GC while the structure is reachable.
+ */
+class UuidSetMemoryBenchmark {
+
+    private static final int ENTRIES = 1_000_000;
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void run() {
+        main(new String[0]);
+    }
+
+    public static void main(String[] args) {
+        UUID[] ids = new UUID[ENTRIES];
+        Random random = new Random(42);
+        for (int i = 0; i < ENTRIES; i++) {
+            ids[i] = new UUID(random.nextLong(), random.nextLong());
+        }
+
+        report("List<String>", ids, all -> {
+            List<String> list = new ArrayList<>();
+            for (UUID id : all) list.add(id.toString());
+            return list;
+        });
+        report("UuidSet", ids, all -> {
+            UuidSet set = new UuidSet();
+            for (UUID id : all) set.add(id);
+            return set;
+        });
+        report("PersistentUuidSet", ids, all -> {
+            PersistentUuidSet set = PersistentUuidSet.empty();
+            for (UUID id : all) set = set.add(id);
+            return set;
+        });
+    }
+
+    private static void report(String name, UUID[] ids, Function<UUID[], Object> build) {
+        long before = usedAfterGc();
+        Object structure = build.apply(ids);
+        long after = usedAfterGc();
+        System.out.printf("%-20s %6.1f B/entry%n", name, (after - before) / (double) ids.length);
+        Reference.reachabilityFence(structure);
+    }
+
+    private static long usedAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
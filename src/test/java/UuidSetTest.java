@@ -0,0 +1,106 @@
+import ch.unil.doplab.UuidSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the UuidSet class.
+ * Tests set semantics, ordering and removal against a HashSet reference.
+ */
+class UuidSetTest {
+
+    private UuidSet set;
+
+    @BeforeEach
+    void setUp() {
+        set = new UuidSet();
+    }
+
+    @Test
+    void testAddContainsAndDeduplicate() {
+        UUID id = UUID.randomUUID();
+
+        assertTrue(set.add(id));
+        assertFalse(set.add(new UUID(id.getMostSignificantBits(), id.getLeastSignificantBits())));
+        assertTrue(set.contains(id));
+        assertEquals(1, set.size());
+        assertFalse(set.contains(UUID.randomUUID()));
+        assertFalse(set.contains(null));
+    }
+
+    @Test
+    void testKeepsInsertionOrder() {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            set.add(id);
+        }
+
+        assertEquals(ids, set.toList());
+    }
+
+    @Test
+    void testRemoveMovesLastEntryIntoHole() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        set.add(first);
+        set.add(second);
+        set.add(third);
+
+        assertTrue(set.remove(first));
+        assertFalse(set.remove(first));
+
+        assertEquals(List.of(third, second), set.toList());
+        assertTrue(set.contains(second));
+        assertTrue(set.contains(third));
+    }
+
+    @Test
+    void testMatchesHashSetUnderRandomOperations() {
+        Random random = new Random(42);
+        List<UUID> pool = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            pool.add(new UUID(random.nextInt(64), random.nextLong()));
+        }
+        Set<UUID> reference = new HashSet<>();
+
+        for (int i = 0; i < 20000; i++) {
+            UUID id = pool.get(random.nextInt(pool.size()));
+            if (random.nextBoolean()) {
+                assertEquals(reference.add(id), set.add(id));
+            } else {
+                assertEquals(reference.remove(id), set.remove(id));
+            }
+        }
+
+        assertEquals(reference.size(), set.size());
+        assertEquals(reference, new HashSet<>(set.toList()));
+        for (UUID id : pool) {
+            assertEquals(reference.contains(id), set.contains(id));
+        }
+    }
+
+    @Test
+    void testCopyIsIndependent() {
+        UUID id = UUID.randomUUID();
+        set.add(id);
+
+        UuidSet copy = set.copy();
+        copy.remove(id);
+        copy.add(UUID.randomUUID());
+
+        assertTrue(set.contains(id));
+        assertEquals(1, set.size());
+        assertFalse(copy.contains(id));
+    }
+}